@@ -0,0 +1,19 @@
+package com.example.Sweet_Shop.config;
+
+import com.example.Sweet_Shop.utilis.AdaptiveConcurrencyLimiter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class AdmissionControlConfig {
+
+    // Caps concurrent catalog writes (purchase, restock, add, update, delete); reads are never limited.
+    @Bean
+    public AdaptiveConcurrencyLimiter writeLimiter(@Value("${admission.initial-limit:20}") int initialLimit,
+                                                  @Value("${admission.min-limit:2}") int minLimit,
+                                                  @Value("${admission.max-limit:200}") int maxLimit,
+                                                  @Value("${admission.max-queue:50}") int maxQueue) {
+        return new AdaptiveConcurrencyLimiter(initialLimit, minLimit, maxLimit, maxQueue);
+    }
+}
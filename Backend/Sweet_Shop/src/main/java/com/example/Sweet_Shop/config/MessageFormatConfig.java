@@ -0,0 +1,30 @@
+package com.example.Sweet_Shop.config;
+
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+
+/**
+ * Binary encodings next to JSON, picked by the Accept header: application/cbor or
+ * application/x-jackson-smile. Both converters are built from Spring Boot's Jackson builder, so
+ * they serialize exactly the same fields (and the same way) as the JSON responses. They take the
+ * place of Spring MVC's default CBOR/Smile converters, which come after JSON, so JSON is still
+ * what clients get when their Accept header doesn't ask for anything else.
+ */
+@Configuration
+public class MessageFormatConfig {
+
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2CborHttpMessageConverter(builder.factory(new CBORFactory()).build());
+    }
+
+    @Bean
+    public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2SmileHttpMessageConverter(builder.factory(new SmileFactory()).build());
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.Sweet_Shop.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Rate limits, configured per role and per route, e.g.
+ * {@code rate-limit.limits.user.purchase.capacity=10}.
+ * Role keys are the Spring role without the "ROLE_" prefix in lower case ("user", "admin"),
+ * plus "anonymous" for requests without a valid token. The "default" route applies to any
+ * route that has no entry of its own.
+ */
+@Component
+@ConfigurationProperties(prefix = "rate-limit")
+public class RateLimitProperties {
+
+    private boolean enabled = true;
+    private int maxBuckets = 100_000;
+    private Map<String, Map<String, Limit>> limits = new HashMap<>();
+
+    public Limit limitFor(String role, String route) {
+        Map<String, Limit> routes = limits.get(role);
+        if (routes == null) {
+            return null;
+        }
+        Limit limit = routes.get(route);
+        return limit != null ? limit : routes.get("default");
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public int getMaxBuckets() {
+        return maxBuckets;
+    }
+
+    public void setMaxBuckets(int maxBuckets) {
+        this.maxBuckets = maxBuckets;
+    }
+
+    public Map<String, Map<String, Limit>> getLimits() {
+        return limits;
+    }
+
+    public void setLimits(Map<String, Map<String, Limit>> limits) {
+        this.limits = limits;
+    }
+
+    public static class Limit {
+        private long capacity;
+        private double refillPerSecond;
+
+        public Limit() {
+        }
+
+        public Limit(long capacity, double refillPerSecond) {
+            this.capacity = capacity;
+            this.refillPerSecond = refillPerSecond;
+        }
+
+        public long getCapacity() {
+            return capacity;
+        }
+
+        public void setCapacity(long capacity) {
+            this.capacity = capacity;
+        }
+
+        public double getRefillPerSecond() {
+            return refillPerSecond;
+        }
+
+        public void setRefillPerSecond(double refillPerSecond) {
+            this.refillPerSecond = refillPerSecond;
+        }
+    }
+}
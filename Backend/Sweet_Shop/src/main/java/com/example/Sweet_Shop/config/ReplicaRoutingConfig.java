@@ -0,0 +1,55 @@
+package com.example.Sweet_Shop.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Only active when datasource.replicas.urls lists at least one replica; otherwise Spring Boot's
+ * single auto-configured datasource is used as before.
+ */
+@Configuration
+@ConditionalOnExpression("!'${datasource.replicas.urls:}'.trim().isEmpty()")
+public class ReplicaRoutingConfig {
+
+    @Bean
+    public ReplicaRoutingDataSource routingDataSource(DataSourceProperties properties,
+                                                      @Value("${datasource.replicas.urls}") String[] replicaUrls,
+                                                      @Value("${datasource.replicas.username:}") String replicaUsername,
+                                                      @Value("${datasource.replicas.password:}") String replicaPassword,
+                                                      @Value("${datasource.replicas.read-your-writes-ms:5000}") long readYourWritesMillis,
+                                                      @Value("${datasource.replicas.health-check-interval-ms:5000}") long healthCheckIntervalMillis) {
+        HikariDataSource primary = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        primary.setPoolName("primary");
+
+        List<DataSource> replicas = new ArrayList<>();
+        for (int i = 0; i < replicaUrls.length; i++) {
+            HikariDataSource replica = new HikariDataSource();
+            replica.setPoolName("replica-" + i);
+            replica.setJdbcUrl(replicaUrls[i].trim());
+            replica.setUsername(replicaUsername.isEmpty() ? properties.determineUsername() : replicaUsername);
+            replica.setPassword(replicaPassword.isEmpty() ? properties.determinePassword() : replicaPassword);
+            replica.setReadOnly(true);
+            // Fail fast so an unreachable replica drops out of rotation instead of stalling reads
+            replica.setConnectionTimeout(3_000);
+            replica.setInitializationFailTimeout(-1);
+            replicas.add(replica);
+        }
+        return new ReplicaRoutingDataSource(primary, replicas, readYourWritesMillis, healthCheckIntervalMillis, 100_000);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(ReplicaRoutingDataSource routingDataSource) {
+        return new LazyConnectionDataSourceProxy(routingDataSource);
+    }
+}
@@ -0,0 +1,265 @@
+package com.example.Sweet_Shop.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Sends read-only transactions to a healthy replica (round robin) and everything else to the
+ * primary. A client that has just written is pinned to the primary for the read-your-writes
+ * window so it never reads its own change from a replica that has not replayed it yet; clients
+ * are identified by username, or by IP address before they log in (e.g. right after registering).
+ * Only a transaction that actually sends a write pins its client: the primary's connection is
+ * handed out wrapped, and the pin is taken when the first statement that is not a plain SELECT
+ * is prepared or executed on it. A read-write transaction that only reads (a purchase that is
+ * rejected for lack of stock, say) leaves the client's reads on the replicas.
+ *
+ * The pin is remembered on the node that took the write, and also handed to the client in the
+ * X-Read-Your-Writes-Until response header (epoch millis). A client that sends it back pins
+ * itself on whichever node the load balancer picks next; without it, only the node that took
+ * the write knows. The nodes' clocks only have to agree to well within the window.
+ *
+ * Work that must not see a replica's lag at all runs through {@link #onPrimary}: the catalog
+ * reads tagged with a CatalogVersion ETag, for instance, because the version moves when the
+ * primary commits and a lagging replica would serve old rows under the new tag.
+ *
+ * Must sit behind a LazyConnectionDataSourceProxy: the read-only flag of the transaction is only
+ * known once the transaction has started, which is after Hibernate asks for a connection.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(ReplicaRoutingDataSource.class);
+
+    static final String PRIMARY = "primary";
+    public static final String READ_YOUR_WRITES_HEADER = "X-Read-Your-Writes-Until";
+
+    private static final ThreadLocal<Boolean> primaryOnly = new ThreadLocal<>();
+
+    private final Map<String, DataSource> replicas;
+    private final long readYourWritesMillis;
+    private final long readYourWritesNanos;
+    private final int maxTrackedClients;
+    private final ConcurrentHashMap<String, Long> lastWriteNanos = new ConcurrentHashMap<>();
+    private final AtomicInteger nextReplica = new AtomicInteger();
+    private final ScheduledExecutorService healthChecker = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "replica-health-check");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private volatile String[] healthyReplicas;
+
+    public ReplicaRoutingDataSource(DataSource primary, List<DataSource> replicaDataSources,
+                                    long readYourWritesMillis, long healthCheckIntervalMillis, int maxTrackedClients) {
+        this.replicas = new LinkedHashMap<>();
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(PRIMARY, primary);
+        for (int i = 0; i < replicaDataSources.size(); i++) {
+            replicas.put("replica-" + i, replicaDataSources.get(i));
+            targets.put("replica-" + i, replicaDataSources.get(i));
+        }
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+        this.readYourWritesMillis = readYourWritesMillis;
+        this.readYourWritesNanos = TimeUnit.MILLISECONDS.toNanos(readYourWritesMillis);
+        this.maxTrackedClients = maxTrackedClients;
+        this.healthyReplicas = replicas.keySet().toArray(new String[0]);
+        healthChecker.scheduleWithFixedDelay(this::checkReplicas, 0, healthCheckIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return trackWrites(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return trackWrites(super.getConnection(username, password));
+    }
+
+    /** Runs work with every transaction it starts on the primary, read-only or not. */
+    public static <T> T onPrimary(Supplier<T> work) {
+        Boolean outer = primaryOnly.get();
+        primaryOnly.set(Boolean.TRUE);
+        try {
+            return work.get();
+        } finally {
+            if (outer == null) {
+                primaryOnly.remove();
+            }
+        }
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly() || primaryOnly.get() != null) {
+            return PRIMARY;
+        }
+        String client = currentClient();
+        if ((client != null && wroteRecently(client)) || pinnedByRequest()) {
+            return PRIMARY;
+        }
+        String[] healthy = healthyReplicas;
+        if (healthy.length == 0) {
+            return PRIMARY; // No replica available, the primary can serve reads too
+        }
+        return healthy[Math.floorMod(nextReplica.getAndIncrement(), healthy.length)];
+    }
+
+    public List<String> getHealthyReplicas() {
+        return List.of(healthyReplicas);
+    }
+
+    @Override
+    public void close() {
+        healthChecker.shutdownNow();
+        closeQuietly(getResolvedDefaultDataSource());
+        replicas.values().forEach(ReplicaRoutingDataSource::closeQuietly);
+    }
+
+    // Read-only transactions never write, and without a transaction or a client there is no one to pin
+    private Connection trackWrites(Connection connection) {
+        if (TransactionSynchronizationManager.isCurrentTransactionReadOnly()
+                || !TransactionSynchronizationManager.isActualTransactionActive()) {
+            return connection;
+        }
+        String client = currentClient();
+        if (client == null) {
+            return connection;
+        }
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    recordIfWrite(client, method, args, "prepare");
+                    Object result = invoke(connection, method, args);
+                    if (result instanceof Statement statement && method.getName().equals("createStatement")) {
+                        return Proxy.newProxyInstance(Statement.class.getClassLoader(), new Class<?>[]{Statement.class},
+                                (statementProxy, statementMethod, statementArgs) -> {
+                                    recordIfWrite(client, statementMethod, statementArgs, "execute");
+                                    recordIfWrite(client, statementMethod, statementArgs, "addBatch");
+                                    return invoke(statement, statementMethod, statementArgs);
+                                });
+                    }
+                    return result;
+                });
+    }
+
+    private void recordIfWrite(String client, Method method, Object[] args, String methodPrefix) {
+        if (method.getName().startsWith(methodPrefix) && args != null && args.length > 0
+                && args[0] instanceof String sql && isWrite(sql)) {
+            recordWrite(client);
+        }
+    }
+
+    // Anything but a SELECT counts, so a statement we can't classify errs towards pinning
+    private static boolean isWrite(String sql) {
+        String statement = sql.stripLeading();
+        return !statement.regionMatches(true, 0, "select", 0, 6);
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    private void recordWrite(String client) {
+        long now = System.nanoTime();
+        lastWriteNanos.put(client, now);
+        if (lastWriteNanos.size() > maxTrackedClients) {
+            lastWriteNanos.values().removeIf(writtenAt -> now - writtenAt > readYourWritesNanos);
+        }
+        // Writes happen before the response body is written, so the header still gets out
+        if (RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributes
+                && attributes.getResponse() != null && !attributes.getResponse().isCommitted()) {
+            attributes.getResponse().setHeader(READ_YOUR_WRITES_HEADER,
+                    Long.toString(System.currentTimeMillis() + readYourWritesMillis));
+        }
+    }
+
+    // A pin handed out by another node. Values beyond one window from now are not ones we issued,
+    // so they are ignored rather than letting a client keep itself on the primary for good.
+    private boolean pinnedByRequest() {
+        if (!(RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributes)) {
+            return false;
+        }
+        String header = attributes.getRequest().getHeader(READ_YOUR_WRITES_HEADER);
+        if (header == null) {
+            return false;
+        }
+        try {
+            long remaining = Long.parseLong(header.trim()) - System.currentTimeMillis();
+            return remaining > 0 && remaining <= readYourWritesMillis;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    private boolean wroteRecently(String client) {
+        Long writtenAt = lastWriteNanos.get(client);
+        return writtenAt != null && System.nanoTime() - writtenAt <= readYourWritesNanos;
+    }
+
+    private void checkReplicas() {
+        List<String> healthy = new ArrayList<>();
+        replicas.forEach((key, dataSource) -> {
+            try (Connection connection = dataSource.getConnection()) {
+                if (connection.isValid(2)) {
+                    healthy.add(key);
+                }
+            } catch (Exception e) {
+                log.warn("Replica {} failed its health check", key, e);
+            }
+        });
+        healthyReplicas = healthy.toArray(new String[0]);
+    }
+
+    private static String currentClient() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.isAuthenticated()
+                && !(authentication instanceof AnonymousAuthenticationToken)) {
+            return "u:" + authentication.getName();
+        }
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes instanceof ServletRequestAttributes servletAttributes) {
+            return "ip:" + servletAttributes.getRequest().getRemoteAddr();
+        }
+        return null;
+    }
+
+    private static void closeQuietly(DataSource dataSource) {
+        if (dataSource instanceof AutoCloseable closeable) {
+            try {
+                closeable.close();
+            } catch (Exception ignored) {
+                // Shutting down anyway
+            }
+        }
+    }
+}
@@ -1,9 +1,12 @@
 package com.example.Sweet_Shop.config;
 
+import com.example.Sweet_Shop.filter.AdmissionControlFilter;
 import com.example.Sweet_Shop.filter.JwtRequestFilter;
+import com.example.Sweet_Shop.filter.RateLimitFilter;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpStatus;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
@@ -13,6 +16,7 @@ import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.authentication.HttpStatusEntryPoint;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
@@ -26,18 +30,32 @@ import java.util.Arrays;
 public class SecurityConfig {
 
     @Bean
-    public SecurityFilterChain securityFilterChain(HttpSecurity http, JwtRequestFilter jwtRequestFilter) throws Exception {
+    public SecurityFilterChain securityFilterChain(HttpSecurity http, JwtRequestFilter jwtRequestFilter,
+                                                   RateLimitFilter rateLimitFilter,
+                                                   AdmissionControlFilter admissionControlFilter) throws Exception {
         http
                 // 1. Apply CORS configuration
                 .cors(cors -> cors.configurationSource(corsConfigurationSource()))
                 .csrf(csrf -> csrf.disable())
                 .authorizeHttpRequests(auth -> auth
+                        // Logging out and revoking act on the caller's own tokens, so they need one
+                        .requestMatchers("/api/auth/logout", "/api/auth/revoke").authenticated()
                         .requestMatchers("/api/auth/**").permitAll()
+                        // Lets a 401 from the refresh endpoint reach the client instead of turning into a 403
+                        .requestMatchers("/error").permitAll()
                         .anyRequest().authenticated()
                 )
-                .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS));
+                .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
+                // No usable token (missing, expired, revoked) is a 401, so clients know to refresh;
+                // a valid token without the right role is still a 403
+                .exceptionHandling(exceptions -> exceptions
+                        .authenticationEntryPoint(new HttpStatusEntryPoint(HttpStatus.UNAUTHORIZED)));
 
         http.addFilterBefore(jwtRequestFilter, UsernamePasswordAuthenticationFilter.class);
+        // Rate limiting needs the JWT subject, so it has to run after the JWT filter
+        http.addFilterAfter(rateLimitFilter, JwtRequestFilter.class);
+        // Shed excess writes only after rate limiting has thrown out abusive clients
+        http.addFilterAfter(admissionControlFilter, RateLimitFilter.class);
 
         return http.build();
     }
@@ -50,7 +68,10 @@ public class SecurityConfig {
         // Allow requests from your React frontend's origin
         configuration.setAllowedOrigins(Arrays.asList(frontendurl)); // Use your frontend's actual port
         configuration.setAllowedMethods(Arrays.asList("GET", "POST", "PUT", "DELETE", "OPTIONS"));
-        configuration.setAllowedHeaders(Arrays.asList("Authorization", "Content-Type"));
+        configuration.setAllowedHeaders(Arrays.asList("Authorization", "Content-Type",
+                ReplicaRoutingDataSource.READ_YOUR_WRITES_HEADER));
+        // The client sends the read-your-writes pin back, so reads after a write stay on the primary on any node
+        configuration.setExposedHeaders(Arrays.asList(ReplicaRoutingDataSource.READ_YOUR_WRITES_HEADER));
         UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
         source.registerCorsConfiguration("/**", configuration);
         return source;
@@ -1,12 +1,16 @@
 package com.example.Sweet_Shop.controller;
 
+import com.example.Sweet_Shop.dto.AuthTokens;
 import com.example.Sweet_Shop.model.User;
 import com.example.Sweet_Shop.service.AuthService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
@@ -30,10 +34,31 @@ public class AuthenticationController {
     }
     @PostMapping("/login")
     public ResponseEntity<?> loginUser(@RequestBody User loginRequest) {
-        String token = authService.login(loginRequest.getUsername(), loginRequest.getPassword());
-        // Return the token in a JSON object like {"token": "your_jwt_here"}
+        AuthTokens tokens = authService.login(loginRequest.getUsername(), loginRequest.getPassword());
+        // Return the tokens in a JSON object like {"token": "your_jwt_here", "refreshToken": ...}
         // The test expects this specific structure.
-        return ResponseEntity.ok(Map.of("token", token));
+        return ResponseEntity.ok(tokens);
+    }
+    // Body: {"refreshToken": "..."}; answers with a new pair, the old refresh token stops working
+    @PostMapping("/refresh")
+    public ResponseEntity<AuthTokens> refresh(@RequestBody Map<String, String> body) {
+        return ResponseEntity.ok(authService.refresh(body.get("refreshToken")));
+    }
+    // Revokes the access token in the Authorization header, plus {"refreshToken": "..."} if sent
+    @PostMapping("/logout")
+    public ResponseEntity<Void> logout(@RequestHeader(HttpHeaders.AUTHORIZATION) String authorization,
+                                       @RequestBody(required = false) Map<String, String> body) {
+        String accessToken = authorization.startsWith("Bearer ") ? authorization.substring(7) : authorization;
+        authService.logout(accessToken, body == null ? null : body.get("refreshToken"));
+        return ResponseEntity.noContent().build();
+    }
+    // Body: {"token": "..."}; users can revoke their own tokens, admins anyone's
+    @PostMapping("/revoke")
+    public ResponseEntity<Void> revoke(@RequestBody Map<String, String> body, Authentication authentication) {
+        boolean isAdmin = authentication.getAuthorities().stream()
+                .anyMatch(authority -> "ROLE_ADMIN".equals(authority.getAuthority()));
+        authService.revoke(body.get("token"), authentication.getName(), isAdmin);
+        return ResponseEntity.noContent().build();
     }
 }
 
@@ -0,0 +1,44 @@
+package com.example.Sweet_Shop.controller;
+
+import com.example.Sweet_Shop.model.PromotionRule;
+import com.example.Sweet_Shop.service.PricingService;
+import jakarta.validation.Valid;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+// Time-windowed discounts and scheduled price changes (see PricingService)
+@RestController
+@RequestMapping("/api/promotions")
+public class PromotionController {
+
+    private final PricingService pricingService;
+
+    @Autowired
+    public PromotionController(PricingService pricingService) {
+        this.pricingService = pricingService;
+    }
+
+    @GetMapping
+    public ResponseEntity<List<PromotionRule>> getPromotions() {
+        return ResponseEntity.ok(pricingService.getRules());
+    }
+
+    @PostMapping
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<PromotionRule> createPromotion(@Valid @RequestBody PromotionRule rule) {
+        return new ResponseEntity<>(pricingService.createRule(rule), HttpStatus.CREATED);
+    }
+
+    @DeleteMapping("/{id}")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Void> deletePromotion(@PathVariable Long id) {
+        return pricingService.deleteRule(id)
+                ? ResponseEntity.noContent().build()
+                : ResponseEntity.notFound().build();
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.Sweet_Shop.controller;
+
+import com.example.Sweet_Shop.exception.InvalidPurchaseException;
+import com.example.Sweet_Shop.model.Sweet;
+import com.example.Sweet_Shop.service.ReservationService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/reservations")
+public class ReservationController {
+
+    private final ReservationService reservationService;
+
+    @Autowired
+    public ReservationController(ReservationService reservationService) {
+        this.reservationService = reservationService;
+    }
+
+    // Turns the hold into a purchase; the stock was already taken when reserving.
+    // The body is empty if the sweet was deleted in the meantime.
+    @PostMapping("/{reservationId}/checkout")
+    public ResponseEntity<Sweet> checkout(@PathVariable Long reservationId) {
+        try {
+            String username = SecurityContextHolder.getContext().getAuthentication().getName();
+            Sweet sweet = reservationService.checkout(reservationId, username);
+            return ResponseEntity.ok(sweet);
+        } catch (InvalidPurchaseException e) {
+            return errorResponse(e);
+        }
+    }
+
+    @DeleteMapping("/{reservationId}")
+    public ResponseEntity<Void> cancel(@PathVariable Long reservationId) {
+        try {
+            String username = SecurityContextHolder.getContext().getAuthentication().getName();
+            reservationService.cancel(reservationId, username);
+            return ResponseEntity.noContent().build();
+        } catch (InvalidPurchaseException e) {
+            return errorResponse(e);
+        }
+    }
+
+    private static <T> ResponseEntity<T> errorResponse(InvalidPurchaseException e) {
+        if (e.getMessage().contains("not found")) {
+            return ResponseEntity.notFound().build();
+        } else if (e.getMessage().contains("expired")) {
+            return ResponseEntity.status(HttpStatus.GONE).build();
+        }
+        return ResponseEntity.badRequest().build();
+    }
+}
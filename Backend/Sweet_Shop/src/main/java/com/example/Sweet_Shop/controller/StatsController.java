@@ -0,0 +1,92 @@
+package com.example.Sweet_Shop.controller;
+
+import com.example.Sweet_Shop.service.AuditRetentionService;
+import com.example.Sweet_Shop.service.AuditTrailService;
+import com.example.Sweet_Shop.service.ClusterInvalidationBus;
+import com.example.Sweet_Shop.service.EntityCacheService;
+import com.example.Sweet_Shop.service.PricingService;
+import com.example.Sweet_Shop.service.PurchaseQueue;
+import com.example.Sweet_Shop.service.RateLimiter;
+import com.example.Sweet_Shop.service.RecommendationService;
+import com.example.Sweet_Shop.service.ReservationService;
+import com.example.Sweet_Shop.service.SweetService;
+import com.example.Sweet_Shop.service.TokenRevocationService;
+import com.example.Sweet_Shop.utilis.AdaptiveConcurrencyLimiter;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Operational counters for admins (request coalescing, entity cache, pricing, admission control, holds, rate limiting, token revocation, recommendations, audit trail, cluster bus, purchase queue)
+@RestController
+@RequestMapping("/api/stats")
+@PreAuthorize("hasRole('ADMIN')")
+public class StatsController {
+
+    private final SweetService sweetService;
+    private final EntityCacheService entityCacheService;
+    private final PricingService pricingService;
+    private final AdaptiveConcurrencyLimiter writeLimiter;
+    private final ReservationService reservationService;
+    private final RateLimiter rateLimiter;
+    private final TokenRevocationService tokenRevocationService;
+    private final RecommendationService recommendationService;
+    private final AuditTrailService auditTrailService;
+    private final AuditRetentionService auditRetentionService;
+    private final ObjectProvider<ClusterInvalidationBus> clusterInvalidationBus;
+    private final ObjectProvider<PurchaseQueue> purchaseQueue;
+
+    @Autowired
+    public StatsController(SweetService sweetService, EntityCacheService entityCacheService,
+                           PricingService pricingService,
+                           AdaptiveConcurrencyLimiter writeLimiter,
+                           ReservationService reservationService, RateLimiter rateLimiter,
+                           TokenRevocationService tokenRevocationService,
+                           RecommendationService recommendationService,
+                           AuditTrailService auditTrailService, AuditRetentionService auditRetentionService,
+                           ObjectProvider<ClusterInvalidationBus> clusterInvalidationBus,
+                           ObjectProvider<PurchaseQueue> purchaseQueue) {
+        this.sweetService = sweetService;
+        this.entityCacheService = entityCacheService;
+        this.pricingService = pricingService;
+        this.writeLimiter = writeLimiter;
+        this.reservationService = reservationService;
+        this.rateLimiter = rateLimiter;
+        this.tokenRevocationService = tokenRevocationService;
+        this.recommendationService = recommendationService;
+        this.auditTrailService = auditTrailService;
+        this.auditRetentionService = auditRetentionService;
+        this.clusterInvalidationBus = clusterInvalidationBus;
+        this.purchaseQueue = purchaseQueue;
+    }
+
+    @GetMapping
+    public ResponseEntity<Map<String, Object>> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("catalogQueries", sweetService.getCatalogQueryStats());
+        stats.put("entityCache", entityCacheService.getStats());
+        stats.put("pricing", pricingService.getStats());
+        stats.put("writeAdmission", Map.of(
+                "limit", writeLimiter.getLimit(),
+                "inFlight", writeLimiter.getInFlight(),
+                "admitted", writeLimiter.getAdmitted(),
+                "rejected", writeLimiter.getRejected()));
+        stats.put("activeReservations", reservationService.activeHolds());
+        stats.put("rateLimitBuckets", rateLimiter.size());
+        stats.put("tokenRevocation", tokenRevocationService.getStats());
+        stats.put("recommendations", recommendationService.getStats());
+        stats.put("auditTrail", auditTrailService.getStats());
+        stats.put("auditRetention", auditRetentionService.getStats());
+        // Only present when cluster.invalidation.enabled=true
+        clusterInvalidationBus.ifAvailable(bus -> stats.put("clusterInvalidation", bus.getStats()));
+        // Only present when purchase.mode=queued
+        purchaseQueue.ifAvailable(queue -> stats.put("purchaseQueue", queue.getStats()));
+        return ResponseEntity.ok(stats);
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.Sweet_Shop.controller;
+
+import com.example.Sweet_Shop.dto.RestockRequest;
+import com.example.Sweet_Shop.exception.InvalidPurchaseException;
+import com.example.Sweet_Shop.model.Store;
+import com.example.Sweet_Shop.service.AuditTrailService;
+import com.example.Sweet_Shop.service.RecommendationService;
+import com.example.Sweet_Shop.service.StoreInventoryService;
+import jakarta.validation.Valid;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+// Shops and warehouses, and the stock each of them holds
+@RestController
+@RequestMapping("/api/stores")
+public class StoreController {
+
+    private final StoreInventoryService storeInventoryService;
+    private final RecommendationService recommendationService;
+    private final AuditTrailService auditTrailService;
+
+    @Autowired
+    public StoreController(StoreInventoryService storeInventoryService, RecommendationService recommendationService,
+                           AuditTrailService auditTrailService) {
+        this.storeInventoryService = storeInventoryService;
+        this.recommendationService = recommendationService;
+        this.auditTrailService = auditTrailService;
+    }
+
+    @GetMapping
+    public ResponseEntity<List<Store>> getStores() {
+        return ResponseEntity.ok(storeInventoryService.getStores());
+    }
+
+    @PostMapping
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Store> createStore(@Valid @RequestBody Store store) {
+        return new ResponseEntity<>(storeInventoryService.createStore(store), HttpStatus.CREATED);
+    }
+
+    @PostMapping("/{storeId}/sweets/{sweetId}/purchase")
+    public ResponseEntity<Void> purchase(@PathVariable Long storeId, @PathVariable Long sweetId,
+                                         @RequestParam(defaultValue = "1") int quantity) {
+        try {
+            long unitPriceCents = storeInventoryService.purchase(storeId, sweetId, quantity);
+            String username = SecurityContextHolder.getContext().getAuthentication().getName();
+            recommendationService.recordPurchase(username, sweetId);
+            auditTrailService.recordPurchase(username, sweetId, storeId, quantity, unitPriceCents);
+            return ResponseEntity.ok().build();
+        } catch (InvalidPurchaseException e) {
+            return errorResponse(e);
+        }
+    }
+
+    @PostMapping("/{storeId}/sweets/{sweetId}/restock")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Void> restock(@PathVariable Long storeId, @PathVariable Long sweetId,
+                                        @RequestBody RestockRequest req) {
+        try {
+            storeInventoryService.restock(storeId, sweetId, req.getQuantity());
+            auditTrailService.recordRestock(SecurityContextHolder.getContext().getAuthentication().getName(),
+                    sweetId, storeId, req.getQuantity());
+            return ResponseEntity.ok().build();
+        } catch (InvalidPurchaseException e) {
+            return errorResponse(e);
+        }
+    }
+
+    private static <T> ResponseEntity<T> errorResponse(InvalidPurchaseException e) {
+        if (e.getMessage().contains("not found")) {
+            return ResponseEntity.notFound().build();
+        } else if (e.getMessage().contains("out of stock")) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+        return ResponseEntity.badRequest().build();
+    }
+}
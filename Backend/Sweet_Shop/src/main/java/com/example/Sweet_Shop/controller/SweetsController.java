@@ -2,29 +2,68 @@ package com.example.Sweet_Shop.controller;
 
 
 import com.example.Sweet_Shop.dto.RestockRequest;
+import com.example.Sweet_Shop.dto.ReserveRequest;
+import com.example.Sweet_Shop.dto.SweetView;
 import com.example.Sweet_Shop.exception.InvalidPurchaseException;
+import com.example.Sweet_Shop.model.Reservation;
 import com.example.Sweet_Shop.model.Sweet;
+import com.example.Sweet_Shop.service.AuditTrailService;
+import com.example.Sweet_Shop.service.CatalogExportService;
+import com.example.Sweet_Shop.service.CatalogVersion;
+import com.example.Sweet_Shop.service.PurchaseQueue;
+import com.example.Sweet_Shop.service.RecommendationService;
+import com.example.Sweet_Shop.service.ReservationService;
+import com.example.Sweet_Shop.service.StoreInventoryService;
 import com.example.Sweet_Shop.service.SweetService;
+import com.example.Sweet_Shop.utilis.CoPurchaseIndex;
+import com.example.Sweet_Shop.utilis.Money;
+import com.example.Sweet_Shop.utilis.StoreStockIndex;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
+import java.io.IOException;
+import java.time.Duration;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/sweets")
 public class SweetsController {
 
     private final SweetService sweetService;
+    private final ReservationService reservationService;
+    private final CatalogVersion catalogVersion;
+    private final StoreInventoryService storeInventoryService;
+    private final CatalogExportService catalogExportService;
+    private final RecommendationService recommendationService;
+    private final AuditTrailService auditTrailService;
+    // Only present when purchase.mode=queued
+    private final PurchaseQueue purchaseQueue;
 
     @Autowired
-    public SweetsController(SweetService sweetService) {
+    public SweetsController(SweetService sweetService, ReservationService reservationService,
+                            CatalogVersion catalogVersion, StoreInventoryService storeInventoryService,
+                            CatalogExportService catalogExportService, RecommendationService recommendationService,
+                            AuditTrailService auditTrailService, ObjectProvider<PurchaseQueue> purchaseQueue) {
         this.sweetService = sweetService;
+        this.reservationService = reservationService;
+        this.catalogVersion = catalogVersion;
+        this.storeInventoryService = storeInventoryService;
+        this.catalogExportService = catalogExportService;
+        this.recommendationService = recommendationService;
+        this.auditTrailService = auditTrailService;
+        this.purchaseQueue = purchaseQueue.getIfAvailable();
     }
 
     @PostMapping
@@ -32,20 +71,79 @@ public class SweetsController {
         Sweet newSweet = sweetService.addSweet(sweet);
         return new ResponseEntity<>(newSweet, HttpStatus.CREATED);
     }
+    // Reads carry an ETag built from the in-memory catalog version. The tag is computed before
+    // the data is loaded, and a matching If-None-Match is answered with 304 before any DB access.
+    // checkNotModified also sets the ETag header on the 200 path, and returning null tells Spring
+    // the 304 has already been handled.
+    // Listings and searches are negotiated: JSON by default, CBOR or Smile when the Accept header
+    // asks for it (see MessageFormatConfig), and gzipped when large.
     @GetMapping
-    public ResponseEntity<List<Sweet>> getAllSweets() {
-        List<Sweet> sweets = sweetService.getAllSweets();
-        return ResponseEntity.ok(sweets);
+    public ResponseEntity<List<SweetView>> getAllSweets(WebRequest request) {
+        String etag = catalogVersion.catalogEtag();
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+        List<SweetView> sweets = sweetService.getAllSweets();
+        return ResponseEntity.ok().varyBy(HttpHeaders.ACCEPT).body(sweets);
     }
     @GetMapping("/search")
-    public ResponseEntity<List<Sweet>> searchSweets(
+    public ResponseEntity<List<SweetView>> searchSweets(
             @RequestParam(required = false) String name,
             @RequestParam(required = false) String category,
             @RequestParam(required = false) Double minPrice,
-            @RequestParam(required = false) Double maxPrice) {
-        // We will update the service to handle these new parameters next
-        List<Sweet> sweets = sweetService.searchSweets(name, category, minPrice, maxPrice);
-        return ResponseEntity.ok(sweets);
+            @RequestParam(required = false) Double maxPrice,
+            WebRequest request) {
+        String etag = catalogVersion.catalogEtag();
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+        try {
+            List<SweetView> sweets = sweetService.searchSweets(name, category, minPrice, maxPrice);
+            return ResponseEntity.ok().varyBy(HttpHeaders.ACCEPT).body(sweets);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build(); // minPrice=NaN, maxPrice=Infinity and the like
+        }
+    }
+    // The whole catalog as a JSON array, streamed from the database rows as they arrive
+    @GetMapping("/export")
+    public void exportSweets(WebRequest request, HttpServletResponse response) throws IOException {
+        if (request.checkNotModified(catalogVersion.catalogEtag())) {
+            return;
+        }
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        catalogExportService.exportCatalog(response.getOutputStream());
+    }
+    @GetMapping("/{id}")
+    public ResponseEntity<Sweet> getSweet(@PathVariable Long id, WebRequest request) {
+        String etag = catalogVersion.sweetEtag(id);
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+        return sweetService.getSweet(id)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+    // Stock across all stores (see /api/stores), answered from memory; shares the sweet's ETag
+    @GetMapping("/{id}/availability")
+    public ResponseEntity<Map<String, Object>> getAvailability(@PathVariable Long id, WebRequest request) {
+        if (request.checkNotModified(catalogVersion.sweetEtag(id))) {
+            return null;
+        }
+        return ResponseEntity.ok(storeInventoryService.availability(id));
+    }
+    @GetMapping("/{id}/nearest-store")
+    public ResponseEntity<StoreStockIndex.Nearest> getNearestStore(@PathVariable Long id,
+                                                                   @RequestParam double lat,
+                                                                   @RequestParam double lon,
+                                                                   @RequestParam(defaultValue = "1") int quantity) {
+        StoreStockIndex.Nearest nearest = storeInventoryService.nearestWithStock(id, lat, lon, quantity);
+        return nearest == null ? ResponseEntity.notFound().build() : ResponseEntity.ok(nearest);
+    }
+    // "Frequently bought together", answered from the in-memory co-purchase index (see RecommendationService)
+    @GetMapping("/{id}/recommendations")
+    public ResponseEntity<List<CoPurchaseIndex.Recommendation>> getRecommendations(@PathVariable Long id,
+                                                                                  @RequestParam(defaultValue = "5") int limit) {
+        return ResponseEntity.ok(recommendationService.recommendationsFor(id, limit));
     }
     @PutMapping("/{id}")
     public ResponseEntity<Sweet> updateSweet(@PathVariable Long id, @Valid @RequestBody Sweet sweetDetails) {
@@ -58,6 +156,7 @@ public class SweetsController {
     public ResponseEntity<Void> deleteSweet(@PathVariable Long id) {
         boolean isDeleted = sweetService.deleteSweet(id);
         if (isDeleted) {
+            auditTrailService.recordDelete(SecurityContextHolder.getContext().getAuthentication().getName(), id);
             return ResponseEntity.noContent().build(); // Return 204 No Content on success
         } else {
             return ResponseEntity.notFound().build(); // Return 404 if sweet was not found
@@ -66,7 +165,10 @@ public class SweetsController {
     @PostMapping("/{id}/purchase")
     public ResponseEntity<Void> purchaseSweet(@PathVariable Long id) {
         try {
-            sweetService.purchaseSweet(id);
+            Sweet purchased = purchaseQueue != null ? purchaseQueue.purchase(id) : sweetService.purchaseSweet(id);
+            String username = SecurityContextHolder.getContext().getAuthentication().getName();
+            recommendationService.recordPurchase(username, id);
+            auditTrailService.recordPurchase(username, id, null, 1, Money.toCents(purchased.getEffectivePrice()));
             return ResponseEntity.ok().build();
         } catch (InvalidPurchaseException e) {
             if (e.getMessage().contains("not found")) {
@@ -78,6 +180,23 @@ public class SweetsController {
             return ResponseEntity.badRequest().build();
         }
     }
+    // Hold stock for a while; check out or cancel through /api/reservations/{reservationId}
+    @PostMapping("/{id}/reserve")
+    public ResponseEntity<Reservation> reserveSweet(@PathVariable Long id, @RequestBody ReserveRequest req) {
+        try {
+            String username = SecurityContextHolder.getContext().getAuthentication().getName();
+            Duration holdFor = req.getMinutes() != null ? Duration.ofMinutes(req.getMinutes()) : null;
+            Reservation reservation = reservationService.reserve(id, req.getQuantity(), holdFor, username);
+            return new ResponseEntity<>(reservation, HttpStatus.CREATED);
+        } catch (InvalidPurchaseException e) {
+            if (e.getMessage().contains("not found")) {
+                return ResponseEntity.notFound().build();
+            } else if (e.getMessage().contains("out of stock")) {
+                return ResponseEntity.status(HttpStatus.CONFLICT).build();
+            }
+            return ResponseEntity.badRequest().build();
+        }
+    }
     // New endpoint to restock a sweet
     @PostMapping("/{id}/restock")
     @PreAuthorize("hasRole('ADMIN')")
@@ -93,6 +212,7 @@ public class SweetsController {
             }
             // -----------------------------
             Sweet updatedSweet = sweetService.restockSweet(id, req.getQuantity());
+            auditTrailService.recordRestock(authentication.getName(), id, null, req.getQuantity());
             return ResponseEntity.ok(updatedSweet);
         } catch (RuntimeException e) {
             // This handles the "Sweet not found" exception from the service layer
@@ -0,0 +1,37 @@
+package com.example.Sweet_Shop.controller;
+
+import com.example.Sweet_Shop.dto.PurchaseHistoryPage;
+import com.example.Sweet_Shop.service.AuditTrailService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+// The signed-in user's own data
+@RestController
+@RequestMapping("/api/users")
+public class UserController {
+
+    private final AuditTrailService auditTrailService;
+
+    @Autowired
+    public UserController(AuditTrailService auditTrailService) {
+        this.auditTrailService = auditTrailService;
+    }
+
+    // Purchase history, newest first; pass nextCursor back as ?before= for the next page.
+    // Purchases show up here a moment after they are made, once the audit writer has flushed them.
+    @GetMapping("/me/purchases")
+    public ResponseEntity<PurchaseHistoryPage> getMyPurchases(@RequestParam(required = false) String before,
+                                                              @RequestParam(defaultValue = "20") int limit) {
+        String username = SecurityContextHolder.getContext().getAuthentication().getName();
+        try {
+            return ResponseEntity.ok(auditTrailService.purchaseHistory(username, before, limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package com.example.Sweet_Shop.dto;
+
+/**
+ * What login and refresh return. "token" is the short-lived access token (sent as the Bearer
+ * token on every request); the refresh token is only sent to /api/auth/refresh to get a new pair.
+ */
+public record AuthTokens(String token, String refreshToken, long expiresInSeconds) {
+}
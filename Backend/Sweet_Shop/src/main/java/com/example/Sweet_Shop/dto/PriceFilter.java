@@ -0,0 +1,23 @@
+package com.example.Sweet_Shop.dto;
+
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A search by effective price, turned into conditions on the stored price column so the database
+ * can use its price index (built by PricingService.priceFilter from the active promotions).
+ *
+ * Sweets without a promotion match when their stored price is in unadjusted. A category with a
+ * promotion of its own lists the stored prices that end up in range in categories; categories
+ * that are adjusted but absent from that map have no sweet in range at all. Sweets with a rule of
+ * their own are few and are simply fetched and checked one by one. The bounds are a little wide
+ * around each cent, so the caller still checks the exact effective price of every row.
+ */
+public record PriceFilter(Range unadjusted, Set<String> adjustedCategories, Map<String, Range> categories,
+                          Set<Long> adjustedSweets) {
+
+    /** Stored price bounds, inclusive; null means unbounded on that side. */
+    public record Range(Double min, Double max) {
+        public static final Range ANY = new Range(null, null);
+    }
+}
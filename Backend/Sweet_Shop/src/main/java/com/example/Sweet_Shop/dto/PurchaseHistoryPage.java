@@ -0,0 +1,10 @@
+package com.example.Sweet_Shop.dto;
+
+import java.util.List;
+
+/**
+ * A page of purchase history, newest first. nextCursor is passed back as ?before= to get the
+ * next page, and is null on the last one.
+ */
+public record PurchaseHistoryPage(List<PurchaseRecord> purchases, String nextCursor) {
+}
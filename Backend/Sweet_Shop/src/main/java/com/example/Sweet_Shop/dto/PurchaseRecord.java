@@ -0,0 +1,8 @@
+package com.example.Sweet_Shop.dto;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/** One entry of a user's purchase history; storeId is null for purchases from the main catalog. */
+public record PurchaseRecord(long id, Instant purchasedAt, long sweetId, Long storeId, int quantity, BigDecimal unitPrice) {
+}
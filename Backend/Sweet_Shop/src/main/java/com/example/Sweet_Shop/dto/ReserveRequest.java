@@ -0,0 +1,24 @@
+package com.example.Sweet_Shop.dto;
+
+public class ReserveRequest {
+    private int quantity = 1;
+    // How long to hold the stock; the configured default is used when missing
+    private Integer minutes;
+
+    // Getters and Setters
+    public int getQuantity() {
+        return quantity;
+    }
+
+    public void setQuantity(int quantity) {
+        this.quantity = quantity;
+    }
+
+    public Integer getMinutes() {
+        return minutes;
+    }
+
+    public void setMinutes(Integer minutes) {
+        this.minutes = minutes;
+    }
+}
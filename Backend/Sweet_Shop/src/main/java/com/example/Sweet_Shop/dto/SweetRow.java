@@ -0,0 +1,9 @@
+package com.example.Sweet_Shop.dto;
+
+/**
+ * The stored columns of a sweet, as catalog queries select them. Built straight from the query
+ * result, so listing the catalog never creates managed entities (no persistence context entries,
+ * no dirty-checking snapshots).
+ */
+public record SweetRow(Long id, String name, String category, double price, int quantity) {
+}
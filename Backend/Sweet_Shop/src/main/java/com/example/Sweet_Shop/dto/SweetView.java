@@ -0,0 +1,23 @@
+package com.example.Sweet_Shop.dto;
+
+import com.example.Sweet_Shop.model.Sweet;
+import com.example.Sweet_Shop.utilis.Money;
+
+import java.math.BigDecimal;
+
+/**
+ * What catalog listings and searches send to clients: a plain immutable copy of the fields,
+ * so serialization never goes through a Hibernate entity.
+ */
+public record SweetView(Long id, String name, String category, double price, BigDecimal effectivePrice, int quantity) {
+
+    public static SweetView of(Sweet sweet) {
+        return new SweetView(sweet.getId(), sweet.getName(), sweet.getCategory(), sweet.getPrice(),
+                sweet.getEffectivePrice(), sweet.getQuantity());
+    }
+
+    public static SweetView of(SweetRow row, long effectiveCents) {
+        return new SweetView(row.id(), row.name(), row.category(), row.price(), Money.fromCents(effectiveCents),
+                row.quantity());
+    }
+}
@@ -0,0 +1,11 @@
+package com.example.Sweet_Shop.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class InvalidPromotionException extends RuntimeException {
+    public InvalidPromotionException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.Sweet_Shop.filter;
+
+import com.example.Sweet_Shop.utilis.AdaptiveConcurrencyLimiter;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Admission control for the SweetService write paths. Writes are the requests that hold a DB
+ * connection and row locks, so under a flash sale they are the ones that pile up; reads pass
+ * straight through and keep being served.
+ */
+@Component
+public class AdmissionControlFilter extends OncePerRequestFilter {
+
+    private final AdaptiveConcurrencyLimiter writeLimiter;
+    private final boolean enabled;
+    private final long maxWaitMillis;
+
+    @Autowired
+    public AdmissionControlFilter(AdaptiveConcurrencyLimiter writeLimiter,
+                                  @Value("${admission.enabled:true}") boolean enabled,
+                                  @Value("${admission.max-wait-ms:50}") long maxWaitMillis) {
+        this.writeLimiter = writeLimiter;
+        this.enabled = enabled;
+        this.maxWaitMillis = maxWaitMillis;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String method = request.getMethod();
+        return !enabled
+                || "GET".equals(method) || "HEAD".equals(method) || "OPTIONS".equals(method)
+                || !(request.getRequestURI().startsWith("/api/sweets") || request.getRequestURI().startsWith("/api/stores"));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        boolean admitted;
+        try {
+            admitted = writeLimiter.tryAcquire(maxWaitMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            admitted = false;
+        }
+        if (!admitted) {
+            response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+            response.setHeader("Retry-After", "1");
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            response.getWriter().write("{\"message\":\"Server is busy, please retry\"}");
+            return;
+        }
+
+        long start = System.nanoTime();
+        boolean dropped = true;
+        try {
+            chain.doFilter(request, response);
+            dropped = response.getStatus() >= 500;
+        } finally {
+            writeLimiter.release(System.nanoTime() - start, dropped);
+        }
+    }
+}
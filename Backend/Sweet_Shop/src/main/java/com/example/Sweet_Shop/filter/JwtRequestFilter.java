@@ -1,6 +1,8 @@
 package com.example.Sweet_Shop.filter;
 
 import com.example.Sweet_Shop.service.JwtUtil;
+import com.example.Sweet_Shop.service.TokenRevocationService;
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -22,6 +24,9 @@ public class JwtRequestFilter extends OncePerRequestFilter {
     @Autowired
     private JwtUtil jwtUtil;
 
+    @Autowired
+    private TokenRevocationService tokenRevocationService;
+
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
             throws ServletException, IOException {
@@ -29,14 +34,16 @@ public class JwtRequestFilter extends OncePerRequestFilter {
         final String authorizationHeader = request.getHeader("Authorization");
 
         String username = null;
-        String jwt = null;
         String role = null;
+        Claims claims = null;
 
         if (authorizationHeader != null && authorizationHeader.startsWith("Bearer ")) {
-            jwt = authorizationHeader.substring(7);
+            String jwt = authorizationHeader.substring(7);
             try {
-                username = jwtUtil.extractUsername(jwt);
-                role = jwtUtil.extractRole(jwt); // Extract the role from the token
+                // One parse checks the signature and expiry and gives us every claim
+                claims = jwtUtil.parse(jwt);
+                username = claims.getSubject();
+                role = claims.get("role", String.class); // Extract the role from the token
             } catch (Exception e) {
                 // Handle potential exceptions during token parsing if needed
                 System.out.println("Invalid JWT Token");
@@ -45,7 +52,9 @@ public class JwtRequestFilter extends OncePerRequestFilter {
 
         if (username != null && role != null && SecurityContextHolder.getContext().getAuthentication() == null) {
             // We trust the validated token's claims, so we don't need to hit the database here.
-            if (jwtUtil.validateToken(jwt, username)) {
+            // Refresh tokens are not accepted here, and revoked tokens are looked up in memory.
+            if (JwtUtil.isAccessToken(claims)
+                    && !tokenRevocationService.isRevoked(claims.getId(), claims.getExpiration())) {
 
                 // Create the Authentication object with the role from the token.
                 SimpleGrantedAuthority authority = new SimpleGrantedAuthority(role);
@@ -0,0 +1,93 @@
+package com.example.Sweet_Shop.filter;
+
+import com.example.Sweet_Shop.config.RateLimitProperties;
+import com.example.Sweet_Shop.service.RateLimiter;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+@Component
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private final RateLimiter rateLimiter;
+    private final RateLimitProperties properties;
+
+    @Autowired
+    public RateLimitFilter(RateLimiter rateLimiter, RateLimitProperties properties) {
+        this.rateLimiter = rateLimiter;
+        this.properties = properties;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        if (!properties.isEnabled()) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        // This filter runs right after JwtRequestFilter, so a valid token has already been turned
+        // into an Authentication. Authenticated clients are keyed by username, everyone else by IP.
+        // Behind a proxy the IP is the client's from X-Forwarded-For (server.forward-headers-strategy).
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        String clientKey;
+        String role;
+        if (authentication != null && authentication.isAuthenticated()
+                && !(authentication instanceof AnonymousAuthenticationToken)) {
+            clientKey = "u:" + authentication.getName();
+            role = roleOf(authentication);
+        } else {
+            clientKey = "ip:" + request.getRemoteAddr();
+            role = "anonymous";
+        }
+
+        long waitNanos = rateLimiter.tryAcquire(clientKey, role, routeOf(request));
+        if (waitNanos > 0) {
+            long retryAfterSeconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + 999_999_999L));
+            response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+            response.setHeader("Retry-After", Long.toString(retryAfterSeconds));
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            response.getWriter().write("{\"message\":\"Too many requests, retry in " + retryAfterSeconds + "s\"}");
+            return;
+        }
+        chain.doFilter(request, response);
+    }
+
+    // "ROLE_ADMIN" -> "admin", matching the keys under rate-limit.limits
+    private static String roleOf(Authentication authentication) {
+        for (GrantedAuthority authority : authentication.getAuthorities()) {
+            String name = authority.getAuthority();
+            if (name != null && name.startsWith("ROLE_")) {
+                return name.substring(5).toLowerCase();
+            }
+        }
+        return "user";
+    }
+
+    // Only the expensive or abuse-prone endpoints get their own bucket; everything else shares "default".
+    private static String routeOf(HttpServletRequest request) {
+        if ("POST".equals(request.getMethod())) {
+            String path = request.getRequestURI();
+            if (path.endsWith("/api/auth/login") || path.endsWith("/api/auth/refresh")) {
+                return "login";
+            }
+            if ((path.startsWith("/api/sweets/") || path.startsWith("/api/stores/")) && path.endsWith("/purchase")) {
+                return "purchase";
+            }
+        }
+        return "default";
+    }
+}
@@ -0,0 +1,11 @@
+package com.example.Sweet_Shop.model;
+
+// What an audit_events row records (see AuditTrailService)
+public enum AuditAction {
+    // A user bought sweets, directly, through a reservation checkout or from a store
+    PURCHASE,
+    // An admin added stock, to the catalog or to one store
+    RESTOCK,
+    // An admin deleted a sweet
+    DELETE
+}
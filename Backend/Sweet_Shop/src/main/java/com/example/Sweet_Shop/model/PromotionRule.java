@@ -0,0 +1,127 @@
+package com.example.Sweet_Shop.model;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/**
+ * A discount or price change for one sweet (sweetId) or a whole category, active from startsAt
+ * until endsAt (open-ended when endsAt is null). See PricingService for how rules combine.
+ */
+@Entity
+@Table(name = "promotion_rules")
+public class PromotionRule {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @NotBlank(message = "Promotion name cannot be blank")
+    private String name;
+
+    // Exactly one of sweetId and category is set
+    private Long sweetId;
+
+    private String category;
+
+    @NotNull(message = "Promotion type is required")
+    @Enumerated(EnumType.STRING)
+    private PromotionType type;
+
+    @NotNull(message = "Amount is required")
+    @Positive(message = "Amount must be positive")
+    @Column(precision = 12, scale = 2)
+    private BigDecimal amount;
+
+    @NotNull(message = "Start time is required")
+    private Instant startsAt;
+
+    private Instant endsAt;
+
+    // JPA requires a no-argument constructor
+    public PromotionRule() {
+    }
+
+    public PromotionRule(String name, Long sweetId, String category, PromotionType type, BigDecimal amount,
+                         Instant startsAt, Instant endsAt) {
+        this.name = name;
+        this.sweetId = sweetId;
+        this.category = category;
+        this.type = type;
+        this.amount = amount;
+        this.startsAt = startsAt;
+        this.endsAt = endsAt;
+    }
+
+    public boolean isActiveAt(Instant time) {
+        return !time.isBefore(startsAt) && (endsAt == null || time.isBefore(endsAt));
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public Long getSweetId() {
+        return sweetId;
+    }
+
+    public void setSweetId(Long sweetId) {
+        this.sweetId = sweetId;
+    }
+
+    public String getCategory() {
+        return category;
+    }
+
+    public void setCategory(String category) {
+        this.category = category;
+    }
+
+    public PromotionType getType() {
+        return type;
+    }
+
+    public void setType(PromotionType type) {
+        this.type = type;
+    }
+
+    public BigDecimal getAmount() {
+        return amount;
+    }
+
+    public void setAmount(BigDecimal amount) {
+        this.amount = amount;
+    }
+
+    public Instant getStartsAt() {
+        return startsAt;
+    }
+
+    public void setStartsAt(Instant startsAt) {
+        this.startsAt = startsAt;
+    }
+
+    public Instant getEndsAt() {
+        return endsAt;
+    }
+
+    public void setEndsAt(Instant endsAt) {
+        this.endsAt = endsAt;
+    }
+}
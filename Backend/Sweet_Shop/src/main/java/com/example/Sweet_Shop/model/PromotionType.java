@@ -0,0 +1,10 @@
+package com.example.Sweet_Shop.model;
+
+public enum PromotionType {
+    // amount is a percentage, e.g. 15 for 15% off
+    PERCENT_OFF,
+    // amount is money taken off the price
+    AMOUNT_OFF,
+    // amount replaces the price while the rule is active (scheduled price changes)
+    FIXED_PRICE
+}
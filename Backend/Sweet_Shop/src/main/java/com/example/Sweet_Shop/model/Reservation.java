@@ -0,0 +1,81 @@
+package com.example.Sweet_Shop.model;
+
+import jakarta.persistence.*;
+
+import java.time.Instant;
+
+/**
+ * A time-bounded hold on stock. The held quantity has already been taken off Sweet.quantity;
+ * the row exists until the hold is checked out, cancelled or expires (which gives the stock back).
+ */
+@Entity
+@Table(name = "reservations", indexes = @Index(name = "idx_reservations_username", columnList = "username"))
+public class Reservation {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private Long sweetId;
+
+    @Column(nullable = false)
+    private String username;
+
+    private int quantity;
+
+    @Column(nullable = false)
+    private Instant expiresAt;
+
+    // JPA requires a no-argument constructor
+    public Reservation() {
+    }
+
+    public Reservation(Long sweetId, String username, int quantity, Instant expiresAt) {
+        this.sweetId = sweetId;
+        this.username = username;
+        this.quantity = quantity;
+        this.expiresAt = expiresAt;
+    }
+
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getSweetId() {
+        return sweetId;
+    }
+
+    public void setSweetId(Long sweetId) {
+        this.sweetId = sweetId;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public void setUsername(String username) {
+        this.username = username;
+    }
+
+    public int getQuantity() {
+        return quantity;
+    }
+
+    public void setQuantity(int quantity) {
+        this.quantity = quantity;
+    }
+
+    public Instant getExpiresAt() {
+        return expiresAt;
+    }
+
+    public void setExpiresAt(Instant expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+}
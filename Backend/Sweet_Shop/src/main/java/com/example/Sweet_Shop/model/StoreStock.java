@@ -0,0 +1,66 @@
+package com.example.Sweet_Shop.model;
+
+import jakarta.persistence.*;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+/**
+ * Stock of one sweet in one store. The table is hash-partitioned by store (see the V1 migration
+ * in db/migration), so each store's rows, locks and index pages are separate from every other
+ * store's.
+ */
+@Entity
+@Table(name = "store_stock")
+@IdClass(StoreStock.Key.class)
+public class StoreStock {
+
+    @Id
+    @Column(name = "store_id")
+    private Long storeId;
+
+    @Id
+    @Column(name = "sweet_id")
+    private Long sweetId;
+
+    private int quantity;
+
+    // JPA requires a no-argument constructor
+    public StoreStock() {
+    }
+
+    public Long getStoreId() {
+        return storeId;
+    }
+
+    public Long getSweetId() {
+        return sweetId;
+    }
+
+    public int getQuantity() {
+        return quantity;
+    }
+
+    public static class Key implements Serializable {
+        private Long storeId;
+        private Long sweetId;
+
+        public Key() {
+        }
+
+        public Key(Long storeId, Long sweetId) {
+            this.storeId = storeId;
+            this.sweetId = sweetId;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key other && Objects.equals(storeId, other.storeId) && Objects.equals(sweetId, other.sweetId);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(storeId, sweetId);
+        }
+    }
+}
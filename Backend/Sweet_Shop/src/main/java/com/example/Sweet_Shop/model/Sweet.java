@@ -1,12 +1,21 @@
 package com.example.Sweet_Shop.model;
 
 
+import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.PositiveOrZero;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
+import java.math.BigDecimal;
 
 @Entity
 @Table(name = "sweets")
+// Second-level cached (region "sweets" in ehcache.xml). Stock UPDATEs are bulk JPQL, which makes
+// Hibernate drop the whole region on commit, so cached quantities are never stale locally.
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "sweets")
 public class Sweet {
 
     @Id
@@ -24,6 +33,11 @@ public class Sweet {
 
     @PositiveOrZero(message = "Quantity must be zero or positive")
     private int quantity;
+
+    // Price after active promotions, filled in by PricingService; never stored
+    @Transient
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private BigDecimal effectivePrice;
     // JPA requires a no-argument constructor
     public Sweet() {
     }
@@ -75,6 +89,12 @@ public class Sweet {
     public void setQuantity(int quantity) {
         this.quantity = quantity;
     }
-}
 
+    public BigDecimal getEffectivePrice() {
+        return effectivePrice;
+    }
 
+    public void setEffectivePrice(BigDecimal effectivePrice) {
+        this.effectivePrice = effectivePrice;
+    }
+}
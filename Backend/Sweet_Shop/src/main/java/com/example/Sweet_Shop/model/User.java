@@ -3,9 +3,13 @@ package com.example.Sweet_Shop.model;
 
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 @Entity
 @Table(name = "users") // This will create a 'users' table
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "users")
 public class User {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -0,0 +1,23 @@
+package com.example.Sweet_Shop.repository;
+
+import com.example.Sweet_Shop.model.Reservation;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface ReservationRepository extends JpaRepository<Reservation, Long> {
+
+    // Returns 1 only for the caller that actually removed the hold, so checkout, cancel and
+    // expiry can race safely: whoever wins decides what happens to the stock.
+    @Modifying
+    @Query("delete from Reservation r where r.id = :id")
+    int deleteHold(@Param("id") Long id);
+
+    // Used to page through all holds on startup and put them back on the timing wheel
+    Slice<Reservation> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+}
@@ -0,0 +1,9 @@
+package com.example.Sweet_Shop.repository;
+
+import com.example.Sweet_Shop.model.Store;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface StoreRepository extends JpaRepository<Store, Long> {
+}
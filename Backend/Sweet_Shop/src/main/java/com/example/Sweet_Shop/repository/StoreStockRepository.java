@@ -0,0 +1,46 @@
+package com.example.Sweet_Shop.repository;
+
+import com.example.Sweet_Shop.model.StoreStock;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface StoreStockRepository extends JpaRepository<StoreStock, StoreStock.Key> {
+
+    // Same conditional-UPDATE pattern as SweetRepository.takeStock, on one store's row only.
+    // store_id comes first so Postgres prunes to that store's partition. The sweet's category and
+    // list price come back from the same statement, so the purchase can be priced without reading
+    // the sweet again; empty when no stock was taken.
+    @Query(value = "update store_stock s set quantity = s.quantity - :amount from sweets w "
+            + "where s.store_id = :storeId and s.sweet_id = :sweetId and s.quantity >= :amount and w.id = s.sweet_id "
+            + "returning w.category as category, w.price as price",
+            nativeQuery = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "store_stock"))
+    Optional<Taken> takeStock(@Param("storeId") Long storeId, @Param("sweetId") Long sweetId, @Param("amount") int amount);
+
+    // Creates the row on the first restock of a sweet in a store. The query space hint tells
+    // Hibernate that only store_stock changed, so it leaves the second-level cache alone.
+    @Modifying
+    @Query(value = "insert into store_stock (store_id, sweet_id, quantity) values (:storeId, :sweetId, :amount) "
+            + "on conflict (store_id, sweet_id) do update set quantity = store_stock.quantity + excluded.quantity",
+            nativeQuery = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "store_stock"))
+    int addStock(@Param("storeId") Long storeId, @Param("sweetId") Long sweetId, @Param("amount") int amount);
+
+    List<StoreStock> findBySweetId(Long sweetId);
+
+    interface Taken {
+        String getCategory();
+
+        double getPrice();
+    }
+}
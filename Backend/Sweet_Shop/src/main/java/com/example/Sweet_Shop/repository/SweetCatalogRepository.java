@@ -0,0 +1,19 @@
+package com.example.Sweet_Shop.repository;
+
+import com.example.Sweet_Shop.dto.PriceFilter;
+import com.example.Sweet_Shop.dto.SweetRow;
+
+import java.util.List;
+
+/** Projection queries for catalog reads; implemented by SweetCatalogRepositoryImpl. */
+public interface SweetCatalogRepository {
+
+    /**
+     * Sweets whose lower-cased name contains nameContains and whose category equals category,
+     * ordered by id. A null argument matches everything.
+     */
+    List<SweetRow> findRows(String nameContains, String category);
+
+    /** Same as findRows(nameContains, category), also limited to the stored prices in prices if it isn't null. */
+    List<SweetRow> findRows(String nameContains, String category, PriceFilter prices);
+}
@@ -0,0 +1,98 @@
+package com.example.Sweet_Shop.repository;
+
+import com.example.Sweet_Shop.dto.PriceFilter;
+import com.example.Sweet_Shop.dto.SweetRow;
+import com.example.Sweet_Shop.model.Sweet;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.hibernate.FlushMode;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Read-only transactions put the session in manual flush mode (SweetService keeps these reads on
+// the primary, see ReplicaRoutingDataSource.onPrimary). The flush-mode hint covers calls that join a read-write transaction: selecting a few
+// columns should never make Hibernate flush pending changes first.
+@Transactional(readOnly = true)
+public class SweetCatalogRepositoryImpl implements SweetCatalogRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<SweetRow> findRows(String nameContains, String category) {
+        return findRows(nameContains, category, null);
+    }
+
+    @Override
+    public List<SweetRow> findRows(String nameContains, String category, PriceFilter prices) {
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<SweetRow> query = criteriaBuilder.createQuery(SweetRow.class);
+        Root<Sweet> root = query.from(Sweet.class);
+
+        List<Predicate> predicates = new ArrayList<>();
+        if (nameContains != null) {
+            predicates.add(criteriaBuilder.like(criteriaBuilder.lower(root.get("name")), "%" + nameContains + "%"));
+        }
+        if (category != null) {
+            predicates.add(criteriaBuilder.equal(root.get("category"), category));
+        }
+        if (prices != null) {
+            predicates.add(pricePredicate(criteriaBuilder, root, prices));
+        }
+
+        query.select(criteriaBuilder.construct(SweetRow.class,
+                        root.get("id"), root.get("name"), root.get("category"), root.get("price"), root.get("quantity")))
+                .where(predicates.toArray(new Predicate[0]))
+                .orderBy(criteriaBuilder.asc(root.get("id")));
+
+        // Cached like findAll was: any write to the sweets table drops the cached results
+        return entityManager.createQuery(query)
+                .setHint(HibernateHints.HINT_CACHEABLE, true)
+                .setHint(HibernateHints.HINT_FLUSH_MODE, FlushMode.MANUAL)
+                .getResultList();
+    }
+
+    // One alternative per way a sweet can be priced; each one is a range on the price index
+    private static Predicate pricePredicate(CriteriaBuilder criteriaBuilder, Root<Sweet> root, PriceFilter prices) {
+        Path<Long> id = root.get("id");
+        Path<String> category = root.get("category");
+        Path<Double> price = root.get("price");
+        Predicate notAdjustedItself = prices.adjustedSweets().isEmpty()
+                ? criteriaBuilder.conjunction() : criteriaBuilder.not(id.in(prices.adjustedSweets()));
+
+        List<Predicate> alternatives = new ArrayList<>();
+        if (prices.unadjusted() != null) {
+            Predicate inUnadjustedCategory = prices.adjustedCategories().isEmpty()
+                    ? criteriaBuilder.conjunction()
+                    : criteriaBuilder.or(category.isNull(), criteriaBuilder.not(category.in(prices.adjustedCategories())));
+            alternatives.add(criteriaBuilder.and(notAdjustedItself, inUnadjustedCategory,
+                    inRange(criteriaBuilder, price, prices.unadjusted())));
+        }
+        prices.categories().forEach((name, range) -> alternatives.add(criteriaBuilder.and(
+                criteriaBuilder.equal(category, name), notAdjustedItself, inRange(criteriaBuilder, price, range))));
+        if (!prices.adjustedSweets().isEmpty()) {
+            alternatives.add(id.in(prices.adjustedSweets()));
+        }
+        // No alternatives at all is an empty disjunction, which matches nothing
+        return criteriaBuilder.or(alternatives.toArray(new Predicate[0]));
+    }
+
+    private static Predicate inRange(CriteriaBuilder criteriaBuilder, Path<Double> price, PriceFilter.Range range) {
+        List<Predicate> bounds = new ArrayList<>();
+        if (range.min() != null) {
+            bounds.add(criteriaBuilder.greaterThanOrEqualTo(price, range.min()));
+        }
+        if (range.max() != null) {
+            bounds.add(criteriaBuilder.lessThanOrEqualTo(price, range.max()));
+        }
+        return criteriaBuilder.and(bounds.toArray(new Predicate[0]));
+    }
+}
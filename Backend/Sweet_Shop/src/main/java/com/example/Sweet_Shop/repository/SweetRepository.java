@@ -3,15 +3,51 @@ package com.example.Sweet_Shop.repository;
 
 
 import com.example.Sweet_Shop.model.Sweet;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.Optional;
 
 @Repository
-public interface SweetRepository extends JpaRepository<Sweet, Long>, JpaSpecificationExecutor<Sweet> {
-
+public interface SweetRepository extends JpaRepository<Sweet, Long>, JpaSpecificationExecutor<Sweet>,
+        SweetCatalogRepository {
+
+    // Catalog listing and search go through the query cache. Cached results are dropped whenever
+    // anything is written to the sweets table, so they can't outlive a stock change.
+    @Override
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    List<Sweet> findAll();
+
+    // Every id in the catalog, for reconciling in-memory indexes against deletes (an index-only scan)
+    @Query("select s.id from Sweet s")
+    List<Long> findAllIds();
+
+    // Stock changes are single conditional UPDATEs so concurrent purchases, reservations and
+    // restocks never overwrite each other's changes. Returns the number of rows changed (0 or 1).
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("update Sweet s set s.quantity = s.quantity - :amount where s.id = :id and s.quantity >= :amount")
+    int takeStock(@Param("id") Long id, @Param("amount") int amount);
+
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("update Sweet s set s.quantity = s.quantity + :amount where s.id = :id")
+    int returnStock(@Param("id") Long id, @Param("amount") int amount);
+
+    // SELECT ... FOR UPDATE, for the queued purchase path which reads the stock and then writes
+    // it back once per batch. Must be called inside a transaction.
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select s from Sweet s where s.id = :id")
+    Optional<Sweet> findByIdForUpdate(@Param("id") Long id);
 }
-
-
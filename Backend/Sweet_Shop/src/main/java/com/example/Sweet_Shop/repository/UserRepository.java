@@ -2,10 +2,18 @@ package com.example.Sweet_Shop.repository;
 
 
 import com.example.Sweet_Shop.model.User;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 
 import java.util.Optional;
 
 public interface UserRepository extends JpaRepository<User, Long> {
+    // Runs twice per login (authentication, then token creation), so the result goes in the query cache
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     Optional<User> findByUsernameOrEmail(String username, String email);
+
+    // Uncached on purpose: the duplicate check at registration must see users created on other nodes
+    boolean existsByUsernameOrEmail(String username, String email);
 }
\ No newline at end of file
@@ -0,0 +1,179 @@
+package com.example.Sweet_Shop.service;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps the monthly partitions of audit_events in step with the calendar (see V3__audit_events.sql).
+ *
+ * Every few hours, and at startup, it creates the partitions for this month and the next
+ * months-ahead months, so inserts never hit a month without a table, and drops every partition
+ * whose month ended more than retention-months ago. Dropping a partition is a catalog change
+ * plus unlinking its files: no DELETE, no dead rows, nothing for vacuum to do, however many
+ * events it held. The partition is detached concurrently first, which waits for running queries
+ * instead of locking out the inserts into the current month.
+ *
+ * Either step can be cut short (a restart, a lost connection). A concurrent detach that was
+ * interrupted leaves the partition pending detach, and the next run finalizes it. A table that
+ * was detached but never dropped is no longer in pg_inherits, so the next run also looks for
+ * tables named like a partition that belong to no parent and drops the expired ones.
+ *
+ * Every node runs this. Creating a partition that exists is a no-op and a drop that loses the
+ * race just fails and is retried next time, so there is no need to elect one.
+ */
+@Service
+public class AuditRetentionService {
+
+    private static final Logger log = LoggerFactory.getLogger(AuditRetentionService.class);
+
+    private static final String PARENT = "audit_events";
+    private static final DateTimeFormatter PARTITION_SUFFIX = DateTimeFormatter.ofPattern("'y'yyyy'm'MM");
+    private static final String PARTITIONS_SQL = "SELECT c.relname FROM pg_inherits i "
+            + "JOIN pg_class c ON c.oid = i.inhrelid JOIN pg_class p ON p.oid = i.inhparent WHERE p.relname = ?";
+    private static final String PENDING_DETACH_SQL = PARTITIONS_SQL + " AND i.inhdetachpending";
+    private static final String DETACHED_SQL = "SELECT relname FROM pg_class "
+            + "WHERE relkind = 'r' AND NOT relispartition AND relname LIKE ? AND pg_table_is_visible(oid)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int retentionMonths;
+    private final int monthsAhead;
+    private final long intervalHours;
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "audit-retention");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final AtomicLong partitionsCreated = new AtomicLong();
+    private final AtomicLong partitionsDropped = new AtomicLong();
+    private final AtomicLong detachesFinalized = new AtomicLong();
+
+    @Autowired
+    public AuditRetentionService(JdbcTemplate jdbcTemplate,
+                                 @Value("${audit.retention-months:13}") int retentionMonths,
+                                 @Value("${audit.partitions.months-ahead:2}") int monthsAhead,
+                                 @Value("${audit.partitions.maintenance-interval-hours:6}") long intervalHours) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.retentionMonths = retentionMonths;
+        this.monthsAhead = monthsAhead;
+        this.intervalHours = intervalHours;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        scheduler.scheduleWithFixedDelay(this::maintainSafely, 0, intervalHours, TimeUnit.HOURS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * Finishes any detach or drop an earlier run left half done, creates the missing partitions up
+     * to monthsAhead, then drops the expired ones.
+     */
+    public void maintain() {
+        YearMonth current = YearMonth.now(ZoneOffset.UTC);
+        // A partition goes once every event in it is older than the retention period
+        YearMonth oldestKept = current.minusMonths(retentionMonths);
+
+        // A pending detach blocks any other detach on the parent, so finish those first
+        List<String> pending = jdbcTemplate.queryForList(PENDING_DETACH_SQL, String.class, PARENT);
+        for (String partition : expiredPartitions(pending, oldestKept)) {
+            jdbcTemplate.execute("ALTER TABLE " + PARENT + " DETACH PARTITION " + partition + " FINALIZE");
+            detachesFinalized.incrementAndGet();
+            log.info("Finalized interrupted detach of audit partition {}", partition);
+        }
+
+        List<String> existing = jdbcTemplate.queryForList(PARTITIONS_SQL, String.class, PARENT);
+        for (int i = 0; i <= monthsAhead; i++) {
+            YearMonth month = current.plusMonths(i);
+            String partition = partitionName(month);
+            if (existing.contains(partition)) {
+                continue;
+            }
+            // IF NOT EXISTS because another node may be creating it at the same time
+            jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + partition + " PARTITION OF " + PARENT
+                    + " FOR VALUES FROM ('" + startOf(month) + "') TO ('" + startOf(month.plusMonths(1)) + "')");
+            partitionsCreated.incrementAndGet();
+        }
+
+        for (String partition : expiredPartitions(existing, oldestKept)) {
+            // CONCURRENTLY can't run inside a transaction; JdbcTemplate statements autocommit
+            jdbcTemplate.execute("ALTER TABLE " + PARENT + " DETACH PARTITION " + partition + " CONCURRENTLY");
+            jdbcTemplate.execute("DROP TABLE " + partition);
+            partitionsDropped.incrementAndGet();
+            log.info("Dropped audit partition {}", partition);
+        }
+
+        // Detached by an earlier run whose DROP failed; these are no longer in pg_inherits
+        List<String> detached = jdbcTemplate.queryForList(DETACHED_SQL, String.class, PARENT + "\\_y%");
+        for (String table : expiredPartitions(detached, oldestKept)) {
+            // IF EXISTS because another node may be dropping it at the same time
+            jdbcTemplate.execute("DROP TABLE IF EXISTS " + table);
+            partitionsDropped.incrementAndGet();
+            log.info("Dropped detached audit partition {}", table);
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        return Map.of(
+                "retentionMonths", retentionMonths,
+                "monthsAhead", monthsAhead,
+                "partitionsCreated", partitionsCreated.get(),
+                "partitionsDropped", partitionsDropped.get(),
+                "detachesFinalized", detachesFinalized.get());
+    }
+
+    private void maintainSafely() {
+        try {
+            maintain();
+        } catch (RuntimeException e) {
+            log.error("Audit partition maintenance failed", e);
+        }
+    }
+
+    private static List<String> expiredPartitions(List<String> partitions, YearMonth oldestKept) {
+        List<String> expired = new ArrayList<>();
+        for (String partition : partitions) {
+            try {
+                YearMonth month = YearMonth.parse(partition.substring(PARENT.length() + 1), PARTITION_SUFFIX);
+                if (month.isBefore(oldestKept)) {
+                    expired.add(partition);
+                }
+            } catch (DateTimeParseException | StringIndexOutOfBoundsException e) {
+                // Not one of ours (e.g. attached by hand); leave it alone
+            }
+        }
+        return expired;
+    }
+
+    // Names are built from the month only, never from input, so they are safe to put in DDL
+    private static String partitionName(YearMonth month) {
+        return PARENT + "_" + month.format(PARTITION_SUFFIX);
+    }
+
+    private static String startOf(YearMonth month) {
+        return month.atDay(1) + " 00:00:00+00"; // Same bounds as the partitions V3 creates
+    }
+}
@@ -0,0 +1,243 @@
+package com.example.Sweet_Shop.service;
+
+import com.example.Sweet_Shop.dto.PurchaseHistoryPage;
+import com.example.Sweet_Shop.dto.PurchaseRecord;
+import com.example.Sweet_Shop.model.AuditAction;
+import com.example.Sweet_Shop.utilis.Money;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Purchase history and the audit of admin restocks and deletes, stored in audit_events.
+ *
+ * Callers only put the event on a bounded in-memory queue, after the change it describes has
+ * committed, so auditing never adds a write to the purchase's transaction. One writer thread
+ * takes events off the queue and inserts them in batches of up to batch-size rows: it waits up to
+ * linger-ms after the first event for more to arrive, so under load every round trip carries a
+ * full batch and when it's quiet an event waits at most that long. If the database falls so far
+ * behind that the queue fills up, new events are dropped and counted rather than blocking
+ * purchases. Events still queued are written on shutdown; a crash loses at most the queue.
+ *
+ * The time stored is when the event happened, not when its batch was written, and the history
+ * is paged by keyset on (occurred_at, id), so a page costs the same however far back it is.
+ */
+@Service
+public class AuditTrailService {
+
+    private static final Logger log = LoggerFactory.getLogger(AuditTrailService.class);
+
+    private static final String INSERT_SQL = "INSERT INTO audit_events "
+            + "(occurred_at, actor, action, sweet_id, store_id, quantity, unit_price_cents) VALUES (?, ?, ?, ?, ?, ?, ?)";
+    private static final String HISTORY_SQL = "SELECT id, occurred_at, sweet_id, store_id, quantity, unit_price_cents "
+            + "FROM audit_events WHERE actor = ? AND action = 'PURCHASE' ";
+    private static final String NEWEST_FIRST = "ORDER BY occurred_at DESC, id DESC LIMIT ?";
+    private static final int MAX_PAGE_SIZE = 100;
+
+    private record AuditEvent(Instant occurredAt, String actor, AuditAction action, long sweetId,
+                              Long storeId, int quantity, Long unitPriceCents) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate readOnlyTransaction;
+    private final BlockingQueue<AuditEvent> queue;
+    private final int batchSize;
+    private final long lingerMillis;
+    private final Thread writer;
+    private volatile boolean running = true;
+
+    private final AtomicLong recorded = new AtomicLong();
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+
+    @Autowired
+    public AuditTrailService(JdbcTemplate jdbcTemplate,
+                             PlatformTransactionManager transactionManager,
+                             @Value("${audit.queue-capacity:10000}") int queueCapacity,
+                             @Value("${audit.batch-size:500}") int batchSize,
+                             @Value("${audit.linger-ms:200}") long lingerMillis) {
+        this.jdbcTemplate = jdbcTemplate;
+        // History reads can go to a replica; the writer is a moment behind anyway
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.batchSize = batchSize;
+        this.lingerMillis = lingerMillis;
+        this.writer = new Thread(this::writeLoop, "audit-writer");
+        this.writer.setDaemon(true);
+    }
+
+    @PostConstruct
+    public void start() {
+        writer.start();
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        running = false;
+        writer.interrupt();
+        writer.join(TimeUnit.SECONDS.toMillis(10));
+    }
+
+    /** A completed purchase; storeId is null for the main catalog, unitPriceCents if known. */
+    public void recordPurchase(String username, long sweetId, Long storeId, int quantity, Long unitPriceCents) {
+        record(new AuditEvent(Instant.now(), username, AuditAction.PURCHASE, sweetId, storeId, quantity, unitPriceCents));
+    }
+
+    public void recordRestock(String username, long sweetId, Long storeId, int quantity) {
+        record(new AuditEvent(Instant.now(), username, AuditAction.RESTOCK, sweetId, storeId, quantity, null));
+    }
+
+    public void recordDelete(String username, long sweetId) {
+        record(new AuditEvent(Instant.now(), username, AuditAction.DELETE, sweetId, null, 0, null));
+    }
+
+    /**
+     * One page of the user's purchases, newest first.
+     *
+     * @param before the nextCursor of the previous page, or null for the first page
+     * @throws IllegalArgumentException if before is not a cursor this method returned
+     */
+    public PurchaseHistoryPage purchaseHistory(String username, String before, int limit) {
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        // One row more than the page, to know whether there is a next one
+        List<PurchaseRecord> rows = readOnlyTransaction.execute(status -> {
+            if (before == null) {
+                return jdbcTemplate.query(HISTORY_SQL + NEWEST_FIRST, (rs, i) -> toRecord(rs), username, pageSize + 1);
+            }
+            Cursor cursor = Cursor.parse(before);
+            return jdbcTemplate.query(HISTORY_SQL + "AND (occurred_at, id) < (?, ?) " + NEWEST_FIRST,
+                    (rs, i) -> toRecord(rs), username, Timestamp.from(cursor.occurredAt()), cursor.id(), pageSize + 1);
+        });
+        if (rows.size() <= pageSize) {
+            return new PurchaseHistoryPage(rows, null);
+        }
+        List<PurchaseRecord> page = rows.subList(0, pageSize);
+        PurchaseRecord last = page.get(pageSize - 1);
+        return new PurchaseHistoryPage(List.copyOf(page), new Cursor(last.purchasedAt(), last.id()).toString());
+    }
+
+    public Map<String, Object> getStats() {
+        return Map.of(
+                "recorded", recorded.get(),
+                "queued", queue.size(),
+                "written", written.get(),
+                "batches", batches.get(),
+                "dropped", dropped.get(),
+                "failed", failed.get());
+    }
+
+    private void record(AuditEvent event) {
+        recorded.incrementAndGet();
+        if (!queue.offer(event)) {
+            // Only the first few are worth a line each; the count is in /api/stats
+            if (dropped.incrementAndGet() <= 10) {
+                log.warn("Audit queue full, dropped {} of sweet {} by {}", event.action(), event.sweetId(), event.actor());
+            }
+        }
+    }
+
+    private void writeLoop() {
+        List<AuditEvent> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                AuditEvent first = queue.poll(lingerMillis, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(lingerMillis);
+                while (batch.size() < batchSize && running) {
+                    queue.drainTo(batch, batchSize - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() >= batchSize || remaining <= 0) {
+                        break;
+                    }
+                    AuditEvent next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next != null) {
+                        batch.add(next);
+                    }
+                }
+            } catch (InterruptedException e) {
+                // Shutting down: write what was taken, then drain the rest without waiting
+            }
+            queue.drainTo(batch, batchSize - batch.size());
+            if (!batch.isEmpty()) {
+                write(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    private void write(List<AuditEvent> batch) {
+        try {
+            jdbcTemplate.batchUpdate(INSERT_SQL, batch, batch.size(), (ps, event) -> {
+                ps.setTimestamp(1, Timestamp.from(event.occurredAt()));
+                ps.setString(2, event.actor());
+                ps.setString(3, event.action().name());
+                ps.setLong(4, event.sweetId());
+                ps.setObject(5, event.storeId(), Types.BIGINT);
+                ps.setInt(6, event.quantity());
+                ps.setObject(7, event.unitPriceCents(), Types.BIGINT);
+            });
+            written.addAndGet(batch.size());
+            batches.incrementAndGet();
+        } catch (RuntimeException e) {
+            failed.addAndGet(batch.size());
+            log.error("Could not write {} audit events", batch.size(), e);
+        }
+    }
+
+    private static PurchaseRecord toRecord(ResultSet rs) throws SQLException {
+        Long priceCents = rs.getObject(6, Long.class);
+        return new PurchaseRecord(rs.getLong(1), rs.getTimestamp(2).toInstant(), rs.getLong(3),
+                rs.getObject(4, Long.class), rs.getInt(5), priceCents == null ? null : Money.fromCents(priceCents));
+    }
+
+    // Position after the last row of a page: "<epoch microseconds>_<id>"
+    private record Cursor(Instant occurredAt, long id) {
+
+        static Cursor parse(String value) {
+            int separator = value.indexOf('_');
+            if (separator < 0) {
+                throw new IllegalArgumentException("Invalid cursor: " + value);
+            }
+            try {
+                long micros = Long.parseLong(value.substring(0, separator));
+                long id = Long.parseLong(value.substring(separator + 1));
+                return new Cursor(Instant.EPOCH.plus(micros, ChronoUnit.MICROS), id);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid cursor: " + value);
+            }
+        }
+
+        @Override
+        public String toString() {
+            long micros = TimeUnit.SECONDS.toMicros(occurredAt.getEpochSecond()) + occurredAt.getNano() / 1_000;
+            return micros + "_" + id;
+        }
+    }
+}
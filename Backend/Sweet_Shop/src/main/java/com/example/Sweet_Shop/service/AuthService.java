@@ -1,14 +1,20 @@
 package com.example.Sweet_Shop.service;
 
+import com.example.Sweet_Shop.dto.AuthTokens;
+import com.example.Sweet_Shop.exception.InvalidTokenException;
 import com.example.Sweet_Shop.exception.UserAlreadyExistsException;
 import com.example.Sweet_Shop.model.User;
 import com.example.Sweet_Shop.repository.UserRepository;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 
 @Service
@@ -18,22 +24,26 @@ public class AuthService {
     private final PasswordEncoder passwordEncoder;
     private final AuthenticationManager authenticationManager;
     private final JwtUtil jwtUtil;
+    private final TokenRevocationService tokenRevocationService;
 
     @Autowired
-    public AuthService(UserRepository userRepository, PasswordEncoder passwordEncoder, AuthenticationManager authenticationManager, JwtUtil jwtUtil) {
+    public AuthService(UserRepository userRepository, PasswordEncoder passwordEncoder, AuthenticationManager authenticationManager,
+                       JwtUtil jwtUtil, TokenRevocationService tokenRevocationService) {
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
         this.authenticationManager = authenticationManager;
         this.jwtUtil = jwtUtil;
+        this.tokenRevocationService = tokenRevocationService;
     }
 
+    // One read-write transaction, so the duplicate check reads the primary rather than a lagging replica
+    @Transactional
     public User registerUser(User user) {
         // Step 1: Check if a user with the given username or email already exists.
-        userRepository.findByUsernameOrEmail(user.getUsername(), user.getEmail())
-                .ifPresent(existingUser -> {
-                    // Step 2: If a user is found, throw the custom exception.
-                    throw new UserAlreadyExistsException("User with username or email already exists");
-                });
+        if (userRepository.existsByUsernameOrEmail(user.getUsername(), user.getEmail())) {
+            // Step 2: If a user is found, throw the custom exception.
+            throw new UserAlreadyExistsException("User with username or email already exists");
+        }
 
         // Step 3: If no user exists, hash the password.
         user.setRole("ROLE_USER"); // Assign default role
@@ -46,7 +56,7 @@ public class AuthService {
         return userRepository.save(user);
     }
 
-    public String login(String username, String password) {
+    public AuthTokens login(String username, String password) {
         // This will authenticate the user. If credentials are bad, it throws an exception.
         Authentication authentication = authenticationManager.authenticate(
                 new UsernamePasswordAuthenticationToken(username, password)
@@ -54,7 +64,63 @@ public class AuthService {
 
         User user = userRepository.findByUsernameOrEmail(username, username).get();
 
-        return jwtUtil.generateToken(user.getUsername(), user.getRole());
+        return issueTokens(user);
+    }
+
+    /**
+     * Trades a refresh token for a new access and refresh token. Each refresh token works once:
+     * it is revoked as part of the exchange, and the insert into revoked_tokens is what decides
+     * which of two concurrent refreshes with the same token wins.
+     */
+    public AuthTokens refresh(String refreshToken) {
+        Claims claims = parseOrReject(refreshToken);
+        if (!JwtUtil.isRefreshToken(claims)) {
+            throw new InvalidTokenException("Not a refresh token.");
+        }
+        if (tokenRevocationService.isRevoked(claims.getId(), claims.getExpiration())
+                || !tokenRevocationService.revoke(claims.getId(), claims.getExpiration())) {
+            throw new InvalidTokenException("Refresh token has been revoked.");
+        }
+        // Read the user again so a changed role takes effect
+        User user = userRepository.findByUsernameOrEmail(claims.getSubject(), claims.getSubject())
+                .orElseThrow(() -> new InvalidTokenException("User no longer exists."));
+        return issueTokens(user);
+    }
+
+    /** Revokes the caller's access token, and their refresh token if one is given. */
+    public void logout(String accessToken, String refreshToken) {
+        Claims access = parseOrReject(accessToken);
+        tokenRevocationService.revoke(access.getId(), access.getExpiration());
+        if (refreshToken != null && !refreshToken.isEmpty()) {
+            revoke(refreshToken, access.getSubject(), false);
+        }
+    }
+
+    /** Revokes any token of the caller's own, or anyone's when the caller is an admin. */
+    public void revoke(String token, String callerName, boolean callerIsAdmin) {
+        Claims claims = parseOrReject(token);
+        if (!callerIsAdmin && !callerName.equals(claims.getSubject())) {
+            throw new AccessDeniedException("Only admins can revoke other users' tokens.");
+        }
+        tokenRevocationService.revoke(claims.getId(), claims.getExpiration());
+    }
+
+    private AuthTokens issueTokens(User user) {
+        return new AuthTokens(
+                jwtUtil.generateToken(user.getUsername(), user.getRole()),
+                jwtUtil.generateRefreshToken(user.getUsername(), user.getRole()),
+                jwtUtil.getAccessTokenSeconds());
+    }
+
+    private Claims parseOrReject(String token) {
+        if (token == null || token.isEmpty()) {
+            throw new InvalidTokenException("Token is missing.");
+        }
+        try {
+            return jwtUtil.parse(token);
+        } catch (JwtException | IllegalArgumentException e) {
+            throw new InvalidTokenException("Token is invalid or expired.");
+        }
     }
 }
 
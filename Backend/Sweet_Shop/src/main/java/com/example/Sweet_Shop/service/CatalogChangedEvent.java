@@ -0,0 +1,18 @@
+package com.example.Sweet_Shop.service;
+
+/**
+ * Published by CatalogVersion whenever the catalog changes, so anything holding sweet data can
+ * drop it. sweetId is null when every sweet may have changed. remote is true when the change
+ * was made on another node and arrived through the cluster invalidation bus. propagate is false
+ * for changes the other nodes make on their own (and for remote ones, which they already know).
+ */
+public record CatalogChangedEvent(Long sweetId, long version, boolean remote, boolean propagate) {
+
+    public CatalogChangedEvent(Long sweetId, long version, boolean remote) {
+        this(sweetId, version, remote, !remote);
+    }
+
+    public boolean affectsAll() {
+        return sweetId == null;
+    }
+}
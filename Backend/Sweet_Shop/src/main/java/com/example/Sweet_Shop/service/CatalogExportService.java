@@ -0,0 +1,79 @@
+package com.example.Sweet_Shop.service;
+
+import com.example.Sweet_Shop.utilis.Money;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+
+/**
+ * Full catalog export as one JSON array (same fields as SweetView), written to the response
+ * row by row while the result set is read. Nothing is materialized: no entities, no list, and
+ * the driver fetches fetch-size rows at a time, so memory stays flat however big the catalog is.
+ *
+ * Postgres only streams with a fetch size inside a transaction (otherwise it sends the whole
+ * result at once), so the query runs in a read-only transaction, which also lets it go to a
+ * replica.
+ */
+@Service
+public class CatalogExportService {
+
+    private static final String EXPORT_SQL = "SELECT id, name, category, price, quantity FROM sweets ORDER BY id";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate readOnlyTransaction;
+    private final PricingService pricingService;
+    private final ObjectMapper objectMapper;
+
+    @Autowired
+    public CatalogExportService(DataSource dataSource,
+                                PlatformTransactionManager transactionManager,
+                                PricingService pricingService,
+                                ObjectMapper objectMapper,
+                                @Value("${catalog.export.fetch-size:500}") int fetchSize) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(fetchSize);
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.pricingService = pricingService;
+        this.objectMapper = objectMapper;
+    }
+
+    /** Writes every sweet to out. Does not close out. */
+    public void exportCatalog(OutputStream out) throws IOException {
+        try (JsonGenerator json = objectMapper.getFactory().createGenerator(out)) {
+            json.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            json.writeStartArray();
+            readOnlyTransaction.executeWithoutResult(status -> jdbcTemplate.query(EXPORT_SQL, rs -> {
+                long id = rs.getLong(1);
+                String category = rs.getString(3);
+                double price = rs.getDouble(4);
+                try {
+                    json.writeStartObject();
+                    json.writeNumberField("id", id);
+                    json.writeStringField("name", rs.getString(2));
+                    json.writeStringField("category", category);
+                    json.writeNumberField("price", price);
+                    json.writeNumberField("effectivePrice", Money.fromCents(pricingService.effectiveCents(id, category, price)));
+                    json.writeNumberField("quantity", rs.getInt(5));
+                    json.writeEndObject();
+                } catch (IOException e) {
+                    // The client went away; stop reading rows
+                    throw new UncheckedIOException(e);
+                }
+            }));
+            json.writeEndArray();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.Sweet_Shop.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Monotonic version of the sweet catalog, used to build ETags without touching the database.
+ *
+ * Every write bumps the catalog version and records it as the version of the sweet it changed.
+ * Bumps must happen after the change is committed: a GET that reads the version first and the
+ * data second can then only ever label newer data with an older version (costing the client one
+ * extra download), never label old data with a new version (which would hide the change behind
+ * 304s). ETags also carry the process start time so a restarted node never reuses an old tag.
+ *
+ * The catalog tag is weak (W/"..."): the listing is served as JSON, CBOR or Smile and possibly
+ * gzipped, so the bytes differ per representation, and Tomcat refuses to compress a response that
+ * carries a strong tag. Weak tags work the same for If-None-Match on GETs.
+ *
+ * Each bump is announced as a CatalogChangedEvent; changes from other nodes come back in
+ * through applyRemoteChange / applyRemoteResync.
+ */
+@Service
+public class CatalogVersion {
+
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+    private final AtomicLong version = new AtomicLong();
+    private final ConcurrentHashMap<Long, Long> sweetVersions = new ConcurrentHashMap<>();
+    // Sweets without an entry of their own are at least this version (raised by bumpAll)
+    private volatile long floor;
+    private final ApplicationEventPublisher events;
+
+    @Autowired
+    public CatalogVersion(ApplicationEventPublisher events) {
+        this.events = events;
+    }
+
+    public long current() {
+        return version.get();
+    }
+
+    public long bump(Long sweetId) {
+        long next = record(sweetId);
+        events.publishEvent(new CatalogChangedEvent(sweetId, next, false));
+        return next;
+    }
+
+    /** For changes that may affect any sweet, e.g. a category-wide price change or a lost notification. */
+    public long bumpAll() {
+        long next = recordAll();
+        events.publishEvent(new CatalogChangedEvent(null, next, false));
+        return next;
+    }
+
+    /**
+     * Same as bumpAll, for a change every node makes by itself at the same moment (a promotion
+     * starting or ending), so the cluster is not told about it once per node.
+     */
+    public long bumpAllLocally() {
+        long next = recordAll();
+        events.publishEvent(new CatalogChangedEvent(null, next, false, false));
+        return next;
+    }
+
+    public void applyRemoteChange(Long sweetId) {
+        long next = record(sweetId);
+        events.publishEvent(new CatalogChangedEvent(sweetId, next, true));
+    }
+
+    public void applyRemoteResync() {
+        long next = recordAll();
+        events.publishEvent(new CatalogChangedEvent(null, next, true));
+    }
+
+    public long sweetVersion(Long sweetId) {
+        return Math.max(floor, sweetVersions.getOrDefault(sweetId, 0L));
+    }
+
+    // Search results only change when the catalog does, so listings and searches share this tag
+    public String catalogEtag() {
+        return "W/\"" + epoch + "-" + version.get() + "\"";
+    }
+
+    public String sweetEtag(Long sweetId) {
+        return "\"" + epoch + "-" + sweetId + "-" + sweetVersion(sweetId) + "\"";
+    }
+
+    private long record(Long sweetId) {
+        long next = version.incrementAndGet();
+        if (sweetId != null) {
+            sweetVersions.merge(sweetId, next, Math::max);
+        }
+        return next;
+    }
+
+    private long recordAll() {
+        long next = version.incrementAndGet();
+        floor = next;
+        sweetVersions.values().removeIf(v -> v <= next);
+        return next;
+    }
+}
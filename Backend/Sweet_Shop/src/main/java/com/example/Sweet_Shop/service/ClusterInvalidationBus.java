@@ -0,0 +1,282 @@
+package com.example.Sweet_Shop.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCallback;
+import org.springframework.stereotype.Service;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps the in-process catalog state (CatalogVersion and everything listening to its events)
+ * coherent across several application nodes using PostgreSQL LISTEN/NOTIFY.
+ *
+ * Local changes are queued and flushed every few milliseconds as one NOTIFY per batch, in the
+ * form "node|seq|id.version,id.version,..." ("*" instead of an id means everything changed).
+ * Each node numbers its messages, so a receiver that sees a sequence jump knows it missed
+ * something and falls back to a full resync (every cached sweet is treated as changed). The
+ * same happens whenever the listening connection has to be re-established, since NOTIFYs sent
+ * while nobody is listening are gone, and after a batch that could not be published, which
+ * goes out as "*" with the next one.
+ *
+ * A peer not heard from for a while is forgotten (nodes get a new id on every start, so the map
+ * would otherwise grow with every restart in the cluster); its next message just starts over as
+ * the baseline. A failure while applying a batch never stops the listener: it is logged and
+ * everything is resynced instead, and a resync that fails is retried until one succeeds.
+ */
+@Service
+@ConditionalOnProperty(name = "cluster.invalidation.enabled", havingValue = "true")
+public class ClusterInvalidationBus {
+
+    private static final Logger log = LoggerFactory.getLogger(ClusterInvalidationBus.class);
+
+    // Postgres rejects NOTIFY payloads of 8000 bytes or more
+    private static final int MAX_PAYLOAD = 7_000;
+    private static final long RECONNECT_DELAY_MILLIS = 2_000;
+    private static final long PEER_IDLE_MILLIS = TimeUnit.MINUTES.toMillis(10);
+
+    private record PeerState(long sequence, long lastSeenMillis) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final DataSourceProperties dataSourceProperties;
+    private final CatalogVersion catalogVersion;
+    private final EntityCacheService entityCache;
+    private final String channel;
+    private final long flushIntervalMillis;
+
+    private final String nodeId = UUID.randomUUID().toString().substring(0, 8);
+    private final AtomicLong sequence = new AtomicLong();
+    private final ConcurrentLinkedQueue<String> pending = new ConcurrentLinkedQueue<>();
+    private final Map<String, PeerState> peers = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "cluster-invalidation-flush");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final Thread listener = new Thread(this::listen, "cluster-invalidation-listen");
+
+    private final AtomicLong messagesSent = new AtomicLong();
+    private final AtomicLong messagesReceived = new AtomicLong();
+    private final AtomicLong resyncs = new AtomicLong();
+    private final AtomicLong applyFailures = new AtomicLong();
+    private volatile boolean running = true;
+    // Only touched by the listener thread
+    private boolean resyncPending;
+    private long lastPruneMillis;
+
+    @Autowired
+    public ClusterInvalidationBus(JdbcTemplate jdbcTemplate,
+                                  DataSourceProperties dataSourceProperties,
+                                  CatalogVersion catalogVersion,
+                                  EntityCacheService entityCache,
+                                  @Value("${cluster.invalidation.channel:sweet_changes}") String channel,
+                                  @Value("${cluster.invalidation.flush-interval-ms:20}") long flushIntervalMillis) {
+        if (!channel.matches("[a-z_][a-z0-9_]*")) {
+            throw new IllegalArgumentException("Invalid notification channel name: " + channel);
+        }
+        this.jdbcTemplate = jdbcTemplate;
+        this.dataSourceProperties = dataSourceProperties;
+        this.catalogVersion = catalogVersion;
+        this.entityCache = entityCache;
+        this.channel = channel;
+        this.flushIntervalMillis = flushIntervalMillis;
+    }
+
+    @PostConstruct
+    public void start() {
+        listener.setDaemon(true);
+        listener.start();
+        flusher.scheduleWithFixedDelay(this::flush, flushIntervalMillis, flushIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        flusher.shutdown();
+        flush();
+        listener.interrupt();
+    }
+
+    // CatalogVersion only bumps after a commit, so everything that reaches here is durable
+    @EventListener
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        if (!event.propagate()) {
+            return; // Came from a peer, don't echo it back, or every peer makes it anyway
+        }
+        pending.add(event.affectsAll() ? "*" : event.sweetId() + "." + event.version());
+    }
+
+    public Map<String, Object> getStats() {
+        return Map.of(
+                "nodeId", nodeId,
+                "messagesSent", messagesSent.get(),
+                "messagesReceived", messagesReceived.get(),
+                "resyncs", resyncs.get(),
+                "applyFailures", applyFailures.get(),
+                "knownPeers", peers.size());
+    }
+
+    private void flush() {
+        try {
+            StringBuilder items = new StringBuilder();
+            String item;
+            while ((item = pending.poll()) != null) {
+                if (items.length() + item.length() + 1 > MAX_PAYLOAD) {
+                    send(items.toString());
+                    items.setLength(0);
+                }
+                if (!items.isEmpty()) {
+                    items.append(',');
+                }
+                items.append(item);
+            }
+            if (!items.isEmpty()) {
+                send(items.toString());
+            }
+        } catch (RuntimeException e) {
+            // The batch is lost, so the next one tells the peers to resync. They would also see
+            // the gap in the sequence, unless they have forgotten this node in the meantime.
+            pending.add("*");
+            log.warn("Could not publish catalog changes, peers will resync", e);
+        }
+    }
+
+    private void send(String items) {
+        String payload = nodeId + "|" + sequence.incrementAndGet() + "|" + items;
+        jdbcTemplate.execute("SELECT pg_notify(?, ?)", (PreparedStatementCallback<Boolean>) ps -> {
+            ps.setString(1, channel);
+            ps.setString(2, payload);
+            return ps.execute();
+        });
+        messagesSent.incrementAndGet();
+    }
+
+    // Uses its own connection rather than one from the pool: it is held for the life of the node
+    private void listen() {
+        while (running) {
+            try (Connection connection = DriverManager.getConnection(dataSourceProperties.determineUrl(),
+                    dataSourceProperties.determineUsername(), dataSourceProperties.determinePassword())) {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + channel);
+                }
+                // Whatever was published while we were not listening is gone, and with it any
+                // point in comparing the peers' next sequence numbers with what we saw before
+                peers.clear();
+                resyncPending = true;
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                while (running) {
+                    if (resyncPending) {
+                        resyncPending = !resync();
+                    }
+                    PGNotification[] notifications = pgConnection.getNotifications(500);
+                    if (notifications != null && notifications.length > 0) {
+                        try {
+                            apply(notifications);
+                        } catch (RuntimeException e) {
+                            // Some of the batch may have been applied; resync rather than guess
+                            applyFailures.incrementAndGet();
+                            log.error("Could not apply {} catalog notifications, resyncing", notifications.length, e);
+                            resyncPending = true;
+                        }
+                    }
+                    prunePeers();
+                }
+            } catch (SQLException e) {
+                if (!running) {
+                    return;
+                }
+                log.warn("Cluster invalidation listener disconnected, reconnecting in {} ms", RECONNECT_DELAY_MILLIS, e);
+                try {
+                    Thread.sleep(RECONNECT_DELAY_MILLIS);
+                } catch (InterruptedException interrupted) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private void apply(PGNotification[] notifications) {
+        Set<Long> changed = new HashSet<>();
+        boolean needsResync = false;
+        long now = System.currentTimeMillis();
+        for (PGNotification notification : notifications) {
+            String[] parts = notification.getParameter().split("\\|", 3);
+            if (parts.length != 3 || parts[0].equals(nodeId)) {
+                continue;
+            }
+            messagesReceived.incrementAndGet();
+            try {
+                long seq = Long.parseLong(parts[1]);
+                PeerState previous = peers.put(parts[0], new PeerState(seq, now));
+                if (previous != null && seq != previous.sequence() + 1) {
+                    needsResync = true;
+                }
+                for (String item : parts[2].split(",")) {
+                    if (item.equals("*")) {
+                        needsResync = true;
+                    } else {
+                        int dot = item.indexOf('.');
+                        changed.add(Long.parseLong(dot < 0 ? item : item.substring(0, dot)));
+                    }
+                }
+            } catch (NumberFormatException e) {
+                // No telling what it was meant to invalidate
+                log.warn("Malformed catalog notification from {}: {}", parts[0], notification.getParameter());
+                needsResync = true;
+            }
+        }
+        if (needsResync) {
+            resyncPending = true;
+        } else if (!changed.isEmpty()) {
+            // Cached rows go first, so nobody reads the old row under the new version
+            entityCache.evictSweets(changed);
+            changed.forEach(catalogVersion::applyRemoteChange);
+        }
+    }
+
+    // Returns false if it failed; the listener then tries again on its next round
+    private boolean resync() {
+        try {
+            resyncs.incrementAndGet();
+            entityCache.evictAllSweets();
+            catalogVersion.applyRemoteResync();
+            return true;
+        } catch (RuntimeException e) {
+            log.error("Catalog resync failed, retrying", e);
+            return false;
+        }
+    }
+
+    private void prunePeers() {
+        long now = System.currentTimeMillis();
+        if (now - lastPruneMillis < PEER_IDLE_MILLIS / 10) {
+            return;
+        }
+        lastPruneMillis = now;
+        peers.values().removeIf(peer -> now - peer.lastSeenMillis() > PEER_IDLE_MILLIS);
+    }
+}
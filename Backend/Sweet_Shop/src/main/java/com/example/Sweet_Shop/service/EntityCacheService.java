@@ -0,0 +1,71 @@
+package com.example.Sweet_Shop.service;
+
+import com.example.Sweet_Shop.model.Sweet;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Keeps the Hibernate second-level cache in step with writes it cannot see, and reports how
+ * well it is doing.
+ *
+ * Local writes need nothing from here: Hibernate updates or evicts the cached sweet (and drops
+ * cached query results for the table) while the transaction commits, before CatalogVersion is
+ * bumped. Writes on other nodes only reach us through the cluster invalidation bus, which has to
+ * evict here before it bumps the version, for the same reason: a GET that sees the new version
+ * must not be served the old row from the cache.
+ */
+@Service
+public class EntityCacheService {
+
+    private final Cache cache;
+    private final Statistics statistics;
+
+    @Autowired
+    public EntityCacheService(EntityManagerFactory entityManagerFactory) {
+        SessionFactory sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+        this.cache = sessionFactory.getCache();
+        this.statistics = sessionFactory.getStatistics();
+    }
+
+    /** Evicts the given sweets and every cached query result (they may include those sweets). */
+    public void evictSweets(Collection<Long> sweetIds) {
+        sweetIds.forEach(id -> cache.evictEntityData(Sweet.class, id));
+        cache.evictQueryRegions();
+    }
+
+    public void evictAllSweets() {
+        cache.evictEntityData(Sweet.class);
+        cache.evictQueryRegions();
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("sweets", regionStats("sweets"));
+        stats.put("users", regionStats("users"));
+        stats.put("queryCache", Map.of(
+                "hits", statistics.getQueryCacheHitCount(),
+                "misses", statistics.getQueryCacheMissCount(),
+                "puts", statistics.getQueryCachePutCount()));
+        // Every statement Hibernate sent to the database since startup
+        stats.put("statementsExecuted", statistics.getPrepareStatementCount());
+        return stats;
+    }
+
+    private Map<String, Object> regionStats(String regionName) {
+        CacheRegionStatistics region = statistics.getDomainDataRegionStatistics(regionName);
+        return Map.of(
+                "hits", region.getHitCount(),
+                "misses", region.getMissCount(),
+                "puts", region.getPutCount(),
+                "entries", region.getElementCountInMemory());
+    }
+}
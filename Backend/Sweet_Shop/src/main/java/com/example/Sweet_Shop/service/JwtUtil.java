@@ -1,6 +1,7 @@
 package com.example.Sweet_Shop.service;
 
 
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.io.Decoders;
@@ -14,6 +15,7 @@ import java.security.Key;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.UUID;
 
 @Service
 public class JwtUtil {
@@ -22,7 +24,20 @@ public class JwtUtil {
     @Value("${jwt.secret}")
     private String secret;
 
+    // Access tokens are short-lived and checked against the revocation filter on every request;
+    // refresh tokens live longer and are only accepted by /api/auth/refresh, once each
+    public static final String ACCESS = "access";
+    public static final String REFRESH = "refresh";
+
+    @Value("${jwt.access-token-minutes:15}")
+    private long accessTokenMinutes;
+
+    @Value("${jwt.refresh-token-days:7}")
+    private long refreshTokenDays;
+
     private Key key;
+    // Thread-safe, so it is built once instead of for every request
+    private JwtParser parser;
 
     // 2. This method runs once after the bean is created
     @PostConstruct
@@ -30,23 +45,55 @@ public class JwtUtil {
         // Decode the Base64 secret to a Key object
         byte[] keyBytes = Decoders.BASE64.decode(this.secret);
         this.key = Keys.hmacShaKeyFor(keyBytes);
+        this.parser = Jwts.parserBuilder().setSigningKey(key).build();
     }
 
     public String generateToken(String username) {
         Map<String, Object> claims = new HashMap<>();
-        return createToken(claims, username);
+        return createToken(claims, username, ACCESS, accessTokenMinutes * 60_000);
+    }
+
+    public String generateRefreshToken(String username, String role) {
+        Map<String, Object> claims = new HashMap<>();
+        claims.put("role", role);
+        return createToken(claims, username, REFRESH, refreshTokenDays * 24 * 60 * 60_000);
+    }
+
+    public long getAccessTokenSeconds() {
+        return accessTokenMinutes * 60;
     }
 
-    private String createToken(Map<String, Object> claims, String subject) {
+    private String createToken(Map<String, Object> claims, String subject, String type, long lifetimeMillis) {
+        long now = System.currentTimeMillis();
+        claims.put("typ", type);
         return Jwts.builder()
                 .setClaims(claims)
+                .setId(UUID.randomUUID().toString()) // jti, what revocation is keyed by
                 .setSubject(subject)
-                .setIssuedAt(new Date(System.currentTimeMillis()))
-                .setExpiration(new Date(System.currentTimeMillis() + 1000 * 60 * 60 * 10)) // 10 hours
+                .setIssuedAt(new Date(now))
+                .setExpiration(new Date(now + lifetimeMillis))
                 .signWith(key, SignatureAlgorithm.HS256) // 3. Use the initialized key
                 .compact();
     }
 
+    /**
+     * Verifies the signature and expiry and returns the claims, in one parse. Throws a
+     * JwtException if the token is invalid or expired.
+     */
+    public Claims parse(String token) {
+        return parser.parseClaimsJws(token).getBody();
+    }
+
+    // Tokens issued before there were token types count as access tokens
+    public static boolean isAccessToken(Claims claims) {
+        Object type = claims.get("typ");
+        return type == null || ACCESS.equals(type);
+    }
+
+    public static boolean isRefreshToken(Claims claims) {
+        return REFRESH.equals(claims.get("typ"));
+    }
+
     // New methods for validation:
 
     public String extractUsername(String token) {
@@ -63,7 +110,7 @@ public class JwtUtil {
     }
 
     private Claims extractAllClaims(String token) {
-        return Jwts.parserBuilder().setSigningKey(key).build().parseClaimsJws(token).getBody();
+        return parse(token);
     }
 
     private Boolean isTokenExpired(String token) {
@@ -78,7 +125,7 @@ public class JwtUtil {
     public String generateToken(String username, String role) { // <-- Add role parameter
         Map<String, Object> claims = new HashMap<>();
         claims.put("role", role); // <-- Add the role as a "claim"
-        return createToken(claims, username);
+        return createToken(claims, username, ACCESS, accessTokenMinutes * 60_000);
     }
     public String extractRole(String token) {
         final Claims claims = extractAllClaims(token);
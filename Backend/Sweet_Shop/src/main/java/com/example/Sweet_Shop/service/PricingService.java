@@ -0,0 +1,314 @@
+package com.example.Sweet_Shop.service;
+
+import com.example.Sweet_Shop.dto.PriceFilter;
+import com.example.Sweet_Shop.exception.InvalidPromotionException;
+import com.example.Sweet_Shop.model.PromotionRule;
+import com.example.Sweet_Shop.model.PromotionType;
+import com.example.Sweet_Shop.model.Sweet;
+import com.example.Sweet_Shop.repository.PromotionRuleRepository;
+import com.example.Sweet_Shop.utilis.Money;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Effective prices: Sweet.price adjusted by whatever promotion rules are active right now.
+ *
+ * Rules are never evaluated per request. Whenever the set of active rules can change (a rule is
+ * added or removed, or one starts or ends) the active rules are folded into one Adjustment per
+ * sweet and one per category, and that snapshot is swapped in. Pricing a sweet is then two map
+ * lookups and a little long arithmetic on cents. A single scheduler thread sleeps until the next
+ * rule boundary and rebuilds the snapshot then; when it changes, the catalog version is bumped so
+ * cached responses and ETags pick up the new prices. Price searches use the same snapshot to
+ * turn a range of effective prices into ranges of stored prices the database can look up in its
+ * price index (see priceFilter). Every node reaches the same boundary on its
+ * own, so those bumps stay local; only a rule being added or removed is sent to the other nodes.
+ * Time comes from the Clock bean if there is one (tests move it), otherwise the system clock.
+ *
+ * How rules combine: a FIXED_PRICE rule replaces the base price (a sweet's own rule beats its
+ * category's, and the most recently started one wins). Then the single best discount applies,
+ * the larger of the biggest PERCENT_OFF and the biggest AMOUNT_OFF; discounts do not stack.
+ * Prices never go below zero.
+ */
+@Service
+public class PricingService {
+
+    private static final Logger log = LoggerFactory.getLogger(PricingService.class);
+
+    // Longest the scheduler sleeps, so clock jumps and missed wake-ups correct themselves
+    private static final Duration MAX_SLEEP = Duration.ofMinutes(10);
+    // Ten billion: above any real price, and small enough that percentOff can't overflow
+    private static final long MAX_SEARCHED_CENTS = 1_000_000_000_000L;
+    // Stored prices are doubles; widen each bound a little so rounding never loses a row
+    private static final double PRICE_SLACK = 1e-9;
+
+    /** Everything the active rules say about one sweet or category. */
+    record Adjustment(Long fixedPriceCents, Instant fixedSince, long percentOffBasisPoints, long amountOffCents) {
+        static final Adjustment NONE = new Adjustment(null, null, 0, 0);
+
+        Adjustment with(PromotionRule rule) {
+            // Percentages have two decimals too, so "cents" of a percentage are basis points
+            long amount = Money.toCents(rule.getAmount());
+            return switch (rule.getType()) {
+                case PERCENT_OFF -> new Adjustment(fixedPriceCents, fixedSince,
+                        Math.max(percentOffBasisPoints, amount), amountOffCents);
+                case AMOUNT_OFF -> new Adjustment(fixedPriceCents, fixedSince,
+                        percentOffBasisPoints, Math.max(amountOffCents, amount));
+                case FIXED_PRICE -> fixedSince != null && fixedSince.isAfter(rule.getStartsAt())
+                        ? this
+                        : new Adjustment(amount, rule.getStartsAt(), percentOffBasisPoints, amountOffCents);
+            };
+        }
+    }
+
+    private record Snapshot(Map<Long, Adjustment> bySweet, Map<String, Adjustment> byCategory, int activeRules) {
+        static final Snapshot EMPTY = new Snapshot(Map.of(), Map.of(), 0);
+    }
+
+    private final PromotionRuleRepository ruleRepository;
+    private final CatalogVersion catalogVersion;
+    private final Clock clock;
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "pricing-scheduler");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private volatile Snapshot snapshot = Snapshot.EMPTY;
+    private volatile List<PromotionRule> rules = List.of();
+    private ScheduledFuture<?> nextRebuild;
+
+    @Autowired
+    public PricingService(PromotionRuleRepository ruleRepository, CatalogVersion catalogVersion,
+                          ObjectProvider<Clock> clock) {
+        this.ruleRepository = ruleRepository;
+        this.catalogVersion = catalogVersion;
+        this.clock = clock.getIfAvailable(Clock::systemUTC);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        reload(false);
+    }
+
+    // Rules created or deleted on another node only reach us as a catalog-wide change
+    @EventListener
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        if (event.remote() && event.affectsAll()) {
+            reload(false); // The node that changed the rules has told everyone already
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    /** The price to charge right now, in cents. */
+    public long effectiveCents(Sweet sweet) {
+        return effectiveCents(sweet.getId(), sweet.getCategory(), sweet.getPrice());
+    }
+
+    /** Same as effectiveCents(Sweet), from the columns alone (for projections and JDBC rows). */
+    public long effectiveCents(Long sweetId, String sweetCategory, double price) {
+        Snapshot current = snapshot;
+        return apply(current.bySweet().getOrDefault(sweetId, Adjustment.NONE),
+                current.byCategory().getOrDefault(sweetCategory, Adjustment.NONE),
+                Money.toCents(price));
+    }
+
+    /**
+     * The stored prices that have an effective price within [minCents, maxCents] right now, for
+     * price searches (see PriceFilter). A higher stored price never gives a lower effective price,
+     * so for sweets that are priced alike the range maps back to one range of stored prices.
+     */
+    public PriceFilter priceFilter(long minCents, long maxCents) {
+        Snapshot current = snapshot;
+        Map<String, PriceFilter.Range> categories = new HashMap<>();
+        current.byCategory().forEach((category, adjustment) -> {
+            PriceFilter.Range range = storedPriceRange(adjustment, minCents, maxCents);
+            if (range != null) {
+                categories.put(category, range);
+            }
+        });
+        return new PriceFilter(storedPriceRange(Adjustment.NONE, minCents, maxCents),
+                current.byCategory().keySet(), Map.copyOf(categories), current.bySweet().keySet());
+    }
+
+    /** Fills in Sweet.effectivePrice and returns the same sweet. */
+    public Sweet price(Sweet sweet) {
+        sweet.setEffectivePrice(Money.fromCents(effectiveCents(sweet)));
+        return sweet;
+    }
+
+    public List<PromotionRule> getRules() {
+        return ruleRepository.findAll();
+    }
+
+    public PromotionRule createRule(PromotionRule rule) {
+        validate(rule);
+        PromotionRule saved = ruleRepository.save(rule);
+        reload();
+        return saved;
+    }
+
+    public boolean deleteRule(Long id) {
+        if (!ruleRepository.existsById(id)) {
+            return false;
+        }
+        ruleRepository.deleteById(id);
+        reload();
+        return true;
+    }
+
+    public Map<String, Object> getStats() {
+        Snapshot current = snapshot;
+        return Map.of(
+                "rules", rules.size(),
+                "activeRules", current.activeRules(),
+                "sweetsWithRules", current.bySweet().size(),
+                "categoriesWithRules", current.byCategory().size());
+    }
+
+    /** Re-reads the rules and rebuilds the snapshot now; a price change is sent to the other nodes. */
+    public void reload() {
+        reload(true);
+    }
+
+    /** Rebuilds the snapshot for the current time from the rules already loaded, as at a rule boundary. */
+    public void refresh() {
+        rebuild(false);
+    }
+
+    private synchronized void reload(boolean propagate) {
+        rules = List.copyOf(ruleRepository.findAll());
+        rebuild(propagate);
+    }
+
+    private synchronized void rebuild(boolean propagate) {
+        Instant now = clock.instant();
+        Map<Long, Adjustment> bySweet = new HashMap<>();
+        Map<String, Adjustment> byCategory = new HashMap<>();
+        int active = 0;
+        Instant nextBoundary = now.plus(MAX_SLEEP);
+        for (PromotionRule rule : rules) {
+            if (rule.isActiveAt(now)) {
+                active++;
+                if (rule.getSweetId() != null) {
+                    bySweet.merge(rule.getSweetId(), Adjustment.NONE.with(rule), (a, b) -> a.with(rule));
+                } else {
+                    byCategory.merge(rule.getCategory(), Adjustment.NONE.with(rule), (a, b) -> a.with(rule));
+                }
+            }
+            if (rule.getStartsAt().isAfter(now) && rule.getStartsAt().isBefore(nextBoundary)) {
+                nextBoundary = rule.getStartsAt();
+            }
+            if (rule.getEndsAt() != null && rule.getEndsAt().isAfter(now) && rule.getEndsAt().isBefore(nextBoundary)) {
+                nextBoundary = rule.getEndsAt();
+            }
+        }
+
+        Snapshot previous = snapshot;
+        Snapshot next = new Snapshot(Map.copyOf(bySweet), Map.copyOf(byCategory), active);
+        snapshot = next;
+        // Prices are visible before the version moves, so a new ETag never labels old prices
+        if (!next.bySweet().equals(previous.bySweet()) || !next.byCategory().equals(previous.byCategory())) {
+            if (propagate) {
+                catalogVersion.bumpAll();
+            } else {
+                catalogVersion.bumpAllLocally();
+            }
+        }
+
+        if (nextRebuild != null) {
+            nextRebuild.cancel(false);
+        }
+        if (!scheduler.isShutdown()) {
+            long delayMillis = Math.max(1, Duration.between(now, nextBoundary).toMillis());
+            nextRebuild = scheduler.schedule(this::rebuildSafely, delayMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void rebuildSafely() {
+        try {
+            rebuild(false);
+        } catch (RuntimeException e) {
+            log.error("Could not rebuild prices", e);
+        }
+    }
+
+    private static long apply(Adjustment own, Adjustment category, long storedCents) {
+        long base = own.fixedPriceCents() != null ? own.fixedPriceCents()
+                : category.fixedPriceCents() != null ? category.fixedPriceCents()
+                : storedCents;
+        long percent = Math.min(10_000, Math.max(own.percentOffBasisPoints(), category.percentOffBasisPoints()));
+        long amount = Math.max(own.amountOffCents(), category.amountOffCents());
+        long cents = Math.min(Money.percentOff(base, percent), base - amount);
+        return Math.max(0, cents);
+    }
+
+    // Stored prices a category's adjustment turns into [minCents, maxCents], or null if there are none
+    private static PriceFilter.Range storedPriceRange(Adjustment adjustment, long minCents, long maxCents) {
+        if (adjustment.fixedPriceCents() != null) {
+            long cents = apply(Adjustment.NONE, adjustment, 0); // The stored price doesn't matter
+            return cents >= minCents && cents <= maxCents ? PriceFilter.Range.ANY : null;
+        }
+        long low = minCents <= 0 ? 0 : firstStoredCentsReaching(adjustment, minCents);
+        long high = maxCents >= MAX_SEARCHED_CENTS ? MAX_SEARCHED_CENTS
+                : firstStoredCentsReaching(adjustment, maxCents + 1) - 1;
+        if (low > high) {
+            return null;
+        }
+        // toCents rounds half up, so cent c covers stored prices from c - 0.5 up to c + 0.5 cents
+        return new PriceFilter.Range(
+                low == 0 ? null : (low - 0.5) / 100 - PRICE_SLACK,
+                high >= MAX_SEARCHED_CENTS ? null : (high + 0.5) / 100 + PRICE_SLACK);
+    }
+
+    // Smallest stored price whose effective price is at least target; MAX_SEARCHED_CENTS + 1 if none is
+    private static long firstStoredCentsReaching(Adjustment adjustment, long target) {
+        long low = 0;
+        long high = MAX_SEARCHED_CENTS + 1;
+        while (low < high) {
+            long middle = (low + high) >>> 1;
+            if (apply(Adjustment.NONE, adjustment, middle) >= target) {
+                high = middle;
+            } else {
+                low = middle + 1;
+            }
+        }
+        return low;
+    }
+
+    private static void validate(PromotionRule rule) {
+        if ((rule.getSweetId() == null) == (rule.getCategory() == null || rule.getCategory().isEmpty())) {
+            throw new InvalidPromotionException("A promotion applies to either one sweet or one category.");
+        }
+        if (rule.getEndsAt() != null && !rule.getEndsAt().isAfter(rule.getStartsAt())) {
+            throw new InvalidPromotionException("A promotion must end after it starts.");
+        }
+        if (rule.getType() == PromotionType.PERCENT_OFF && rule.getAmount().compareTo(BigDecimal.valueOf(100)) > 0) {
+            throw new InvalidPromotionException("A percentage discount cannot exceed 100.");
+        }
+        if (rule.getAmount().scale() > 2) {
+            throw new InvalidPromotionException("Amounts have at most two decimal places.");
+        }
+    }
+}
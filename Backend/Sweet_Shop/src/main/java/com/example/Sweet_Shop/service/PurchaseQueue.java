@@ -0,0 +1,267 @@
+package com.example.Sweet_Shop.service;
+
+import com.example.Sweet_Shop.exception.InvalidPurchaseException;
+import com.example.Sweet_Shop.model.Sweet;
+import com.example.Sweet_Shop.repository.SweetRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Group commit for purchases (purchase.mode=queued), for when one sweet gets so many purchases
+ * that the per-request transactions spend their time queueing on its row lock.
+ *
+ * Each sweet gets a lane: a lock-free FIFO of waiting purchases plus a flag saying whether a
+ * writer is on it. The caller that finds the lane idle hands it to the writer pool; that writer
+ * then takes up to max-batch purchases at a time and settles them in one transaction (lock the
+ * row, one UPDATE), so a busy sweet costs one round of row locking per batch instead of one per
+ * purchase. Stock goes to the batch in arrival order: if 5 are left and 8 are waiting, the first 5
+ * succeed and the other 3 are out of stock. Only one writer ever works a lane, so batches of the
+ * same sweet never contend with each other, while different sweets are drained in parallel.
+ *
+ * A lane is dropped from the map as soon as its writer finds it empty, so only sweets with
+ * purchases in flight have one (ids that turn out not to exist included). A purchase that
+ * raced the removal and landed on the dropped lane is still drained by it; at worst two writers
+ * briefly work the same sweet, which the row lock keeps correct.
+ *
+ * A caller waits at most max-wait-ms for a writer to pick its purchase up. If none has by then,
+ * the purchase is withdrawn (it will never be settled) and the caller gets a 503; once a writer
+ * has taken it, the caller waits for that batch, whose transaction is bounded by
+ * transaction-timeout-seconds.
+ */
+@Service
+@ConditionalOnProperty(name = "purchase.mode", havingValue = "queued")
+public class PurchaseQueue {
+
+    private static final Logger log = LoggerFactory.getLogger(PurchaseQueue.class);
+
+    // Batches a writer settles for one lane before giving the thread to other lanes
+    private static final int BATCHES_PER_TURN = 8;
+
+    // claimed is set by whichever comes first: the writer taking it into a batch, or the caller giving up
+    private record Pending(CompletableFuture<Sweet> result, AtomicBoolean claimed) {
+        Pending() {
+            this(new CompletableFuture<>(), new AtomicBoolean());
+        }
+    }
+
+    private static final class Lane {
+        final Long sweetId;
+        final ConcurrentLinkedQueue<Pending> waiting = new ConcurrentLinkedQueue<>();
+        final AtomicBoolean scheduled = new AtomicBoolean();
+
+        Lane(Long sweetId) {
+            this.sweetId = sweetId;
+        }
+    }
+
+    private final SweetRepository sweetRepository;
+    private final CatalogVersion catalogVersion;
+    private final PricingService pricingService;
+    private final TransactionTemplate transactionTemplate;
+    private final int maxBatch;
+    private final long maxWaitMillis;
+    private final ExecutorService writers;
+    private final ConcurrentHashMap<Long, Lane> lanes = new ConcurrentHashMap<>();
+
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong purchases = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicInteger largestBatch = new AtomicInteger();
+    private final AtomicLong timedOut = new AtomicLong();
+
+    @Autowired
+    public PurchaseQueue(SweetRepository sweetRepository,
+                         CatalogVersion catalogVersion,
+                         PricingService pricingService,
+                         PlatformTransactionManager transactionManager,
+                         @Value("${purchase.queue.max-batch:256}") int maxBatch,
+                         @Value("${purchase.queue.writer-threads:4}") int writerThreads,
+                         @Value("${purchase.queue.max-wait-ms:5000}") long maxWaitMillis,
+                         @Value("${purchase.queue.transaction-timeout-seconds:10}") int transactionTimeoutSeconds) {
+        this.sweetRepository = sweetRepository;
+        this.catalogVersion = catalogVersion;
+        this.pricingService = pricingService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setTimeout(transactionTimeoutSeconds);
+        this.maxBatch = maxBatch;
+        this.maxWaitMillis = maxWaitMillis;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.writers = Executors.newFixedThreadPool(writerThreads, r -> {
+            Thread thread = new Thread(r, "purchase-writer-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Buys one unit and blocks until the batch it landed in has committed.
+     * Fails the same way SweetService.purchaseSweet does, or with a 503 if no writer got to it
+     * within max-wait-ms (in which case nothing was bought).
+     */
+    public Sweet purchase(Long id) {
+        Pending pending = enqueue(id);
+        try {
+            try {
+                return pending.result().get(maxWaitMillis, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                if (pending.claimed().compareAndSet(false, true)) {
+                    timedOut.incrementAndGet();
+                    throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Too many purchases waiting, try again");
+                }
+                // Already in a batch: its outcome is on the way
+                return pending.result().join();
+            }
+        } catch (ExecutionException | CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            if (pending.claimed().compareAndSet(false, true)) {
+                throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Purchase interrupted");
+            }
+            return pending.result().join();
+        }
+    }
+
+    public CompletableFuture<Sweet> submit(Long id) {
+        return enqueue(id).result();
+    }
+
+    public Map<String, Object> getStats() {
+        long batchCount = batches.get();
+        return Map.of(
+                "requests", requests.get(),
+                "purchases", purchases.get(),
+                "batches", batchCount,
+                "averageBatch", batchCount == 0 ? 0.0 : (double) requests.get() / batchCount,
+                "largestBatch", largestBatch.get(),
+                "timedOut", timedOut.get(),
+                "activeLanes", lanes.size());
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        writers.shutdown();
+        writers.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    private Pending enqueue(Long id) {
+        Pending pending = new Pending();
+        Lane lane = lanes.computeIfAbsent(id, Lane::new);
+        lane.waiting.add(pending);
+        schedule(lane);
+        return pending;
+    }
+
+    private void schedule(Lane lane) {
+        if (lane.scheduled.compareAndSet(false, true)) {
+            writers.execute(() -> drain(lane));
+        }
+    }
+
+    private void drain(Lane lane) {
+        try {
+            for (int turn = 0; turn < BATCHES_PER_TURN; turn++) {
+                List<CompletableFuture<Sweet>> batch = new ArrayList<>();
+                Pending next;
+                while (batch.size() < maxBatch && (next = lane.waiting.poll()) != null) {
+                    if (next.claimed().compareAndSet(false, true)) {
+                        batch.add(next.result());
+                    } // else its caller gave up waiting
+                }
+                if (batch.isEmpty() && lane.waiting.isEmpty()) {
+                    // Idle (or the sweet does not exist and every waiter has been told): let it go.
+                    // A purchase added from here on is caught by the check below.
+                    lanes.remove(lane.sweetId, lane);
+                    break;
+                }
+                if (!batch.isEmpty()) {
+                    settle(lane.sweetId, batch);
+                }
+            }
+        } finally {
+            lane.scheduled.set(false);
+        }
+        // A purchase that arrived after the last poll saw the flag still set and left it to us
+        if (!lane.waiting.isEmpty()) {
+            schedule(lane);
+        }
+    }
+
+    private void settle(Long id, List<CompletableFuture<Sweet>> batch) {
+        Sweet before;
+        int granted;
+        try {
+            Sweet[] locked = new Sweet[1];
+            granted = transactionTemplate.execute(status -> {
+                Sweet sweet = sweetRepository.findByIdForUpdate(id).orElse(null);
+                if (sweet == null) {
+                    return -1;
+                }
+                locked[0] = new Sweet(sweet.getName(), sweet.getCategory(), sweet.getPrice(), sweet.getQuantity());
+                int take = Math.min(sweet.getQuantity(), batch.size());
+                if (take > 0) {
+                    sweet.setQuantity(sweet.getQuantity() - take); // The batch's one UPDATE, at commit
+                }
+                return take;
+            });
+            before = locked[0];
+        } catch (RuntimeException e) {
+            log.error("Purchase batch of {} for sweet {} failed", batch.size(), id, e);
+            batch.forEach(future -> future.completeExceptionally(e));
+            return;
+        }
+
+        if (granted < 0) {
+            InvalidPurchaseException notFound = new InvalidPurchaseException("Sweet not found with id: " + id);
+            batch.forEach(future -> future.completeExceptionally(notFound));
+            return;
+        }
+        if (granted > 0) {
+            catalogVersion.bump(id);
+        }
+        batches.incrementAndGet();
+        requests.addAndGet(batch.size());
+        purchases.addAndGet(granted);
+        largestBatch.accumulateAndGet(batch.size(), Math::max);
+
+        // Each buyer sees the stock as it was right after their own unit, as if served one by one
+        for (int i = 0; i < batch.size(); i++) {
+            if (i < granted) {
+                Sweet after = new Sweet(before.getName(), before.getCategory(), before.getPrice(),
+                        before.getQuantity() - i - 1);
+                after.setId(id);
+                batch.get(i).complete(pricingService.price(after));
+            } else {
+                batch.get(i).completeExceptionally(new InvalidPurchaseException("Sweet is out of stock."));
+            }
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.Sweet_Shop.service;
+
+import com.example.Sweet_Shop.config.RateLimitProperties;
+import com.example.Sweet_Shop.utilis.TokenBucket;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Keeps one token bucket per (client, route) pair. A client is either a JWT subject or an IP
+ * address, so the map is bounded: once it reaches rate-limit.max-buckets, buckets that have
+ * refilled completely are evicted first (that loses nothing), and if that is not enough
+ * arbitrary entries are dropped, in whatever order the map iterates them. A dropped client just
+ * starts again with a full bucket.
+ */
+@Service
+public class RateLimiter {
+
+    private final RateLimitProperties properties;
+    private final ConcurrentHashMap<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+    private final AtomicBoolean evicting = new AtomicBoolean();
+
+    @Autowired
+    public RateLimiter(RateLimitProperties properties) {
+        this.properties = properties;
+    }
+
+    /**
+     * @return 0 if the request may proceed, otherwise the nanoseconds the client has to wait
+     */
+    public long tryAcquire(String clientKey, String role, String route) {
+        RateLimitProperties.Limit limit = properties.limitFor(role, route);
+        if (limit == null) {
+            return 0; // No limit configured for this role/route
+        }
+        long now = System.nanoTime();
+        String key = clientKey + '|' + route;
+        TokenBucket bucket = buckets.get(key);
+        if (bucket == null) {
+            if (buckets.size() >= properties.getMaxBuckets()) {
+                evict(now);
+            }
+            bucket = buckets.computeIfAbsent(key,
+                    k -> new TokenBucket(limit.getCapacity(), limit.getRefillPerSecond(), now));
+        }
+        return bucket.tryAcquire(now);
+    }
+
+    public int size() {
+        return buckets.size();
+    }
+
+    private void evict(long now) {
+        // Only one thread sweeps at a time; the others just carry on.
+        if (!evicting.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            buckets.values().removeIf(bucket -> bucket.isFull(now));
+            int excess = buckets.size() - properties.getMaxBuckets() * 9 / 10;
+            Iterator<String> it = buckets.keySet().iterator();
+            while (excess-- > 0 && it.hasNext()) {
+                it.next();
+                it.remove();
+            }
+        } finally {
+            evicting.set(false);
+        }
+    }
+}
@@ -0,0 +1,272 @@
+package com.example.Sweet_Shop.service;
+
+import com.example.Sweet_Shop.config.ReplicaRoutingDataSource;
+import com.example.Sweet_Shop.repository.SweetRepository;
+import com.example.Sweet_Shop.utilis.CoPurchaseIndex;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Clock;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * "Frequently bought together" suggestions, fed by every completed purchase.
+ *
+ * Purchases arrive one sweet at a time, so a basket is everything one user bought within the
+ * basket window: each purchase is paired with the other sweets already in that user's basket and
+ * the pairs go straight into the CoPurchaseIndex, so suggestions are current as soon as the
+ * purchase is. The index lives in memory and is written to a snapshot file every few minutes
+ * (and on shutdown), then read back on startup; purchases since the last snapshot are lost if
+ * the process dies. snapshot.path should point at storage that outlives the process (blank turns
+ * snapshots off). Basket windows are timed with the Clock bean if there is one (tests move it),
+ * otherwise the system clock. Every node learns from the purchases it served, which evens out across nodes
+ * behind a load balancer.
+ *
+ * Deleted sweets are dropped on every node, not just the one that served the DELETE: a delete
+ * reaches each node as a CatalogChangedEvent for that sweet, and a node that has the sweet in its
+ * index checks whether it still exists. Deletes a node never heard about (it was down, or missed a
+ * bus message) are caught on startup and on every maintenance run by comparing the index with
+ * the ids in the catalog.
+ */
+@Service
+public class RecommendationService {
+
+    private static final Logger log = LoggerFactory.getLogger(RecommendationService.class);
+
+    // Oldest items are dropped beyond this, so one very long session can't make a basket O(n^2)
+    private static final int MAX_BASKET = 50;
+
+    /** One user's recent purchases, oldest first. */
+    private static final class Basket {
+        private final long[] sweetIds = new long[MAX_BASKET];
+        private final long[] boughtAt = new long[MAX_BASKET];
+        private int size;
+
+        /** Adds the sweet and returns the sweets it should be paired with. */
+        synchronized long[] add(long sweetId, long nowMillis, long windowMillis) {
+            dropOlderThan(nowMillis - windowMillis);
+            for (int i = 0; i < size; i++) {
+                if (sweetIds[i] == sweetId) {
+                    boughtAt[i] = nowMillis; // Bought again: same basket, nothing new to pair
+                    return new long[0];
+                }
+            }
+            long[] partners = Arrays.copyOf(sweetIds, size);
+            if (size == MAX_BASKET) {
+                System.arraycopy(sweetIds, 1, sweetIds, 0, size - 1);
+                System.arraycopy(boughtAt, 1, boughtAt, 0, size - 1);
+                size--;
+            }
+            sweetIds[size] = sweetId;
+            boughtAt[size++] = nowMillis;
+            return partners;
+        }
+
+        synchronized boolean isIdleSince(long cutoffMillis) {
+            return size == 0 || boughtAt[size - 1] < cutoffMillis;
+        }
+
+        private void dropOlderThan(long cutoffMillis) {
+            int keep = 0;
+            for (int i = 0; i < size; i++) {
+                if (boughtAt[i] >= cutoffMillis) {
+                    sweetIds[keep] = sweetIds[i];
+                    boughtAt[keep++] = boughtAt[i];
+                }
+            }
+            size = keep;
+        }
+    }
+
+    private final CoPurchaseIndex index;
+    private final SweetRepository sweetRepository;
+    private final int topK;
+    private final long basketWindowMillis;
+    private final Clock clock;
+    // Null when snapshots are off
+    private final Path snapshotPath;
+    private final long snapshotIntervalMinutes;
+    private final Map<String, Basket> baskets = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "recommendation-snapshot");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final AtomicLong purchasesRecorded = new AtomicLong();
+    private volatile long purchasesAtLastSnapshot;
+    // Removals change the snapshot too (the removed ids are in it) without recording a purchase
+    private volatile boolean removedSinceSnapshot;
+    private volatile Instant lastSnapshotAt;
+
+    @Autowired
+    public RecommendationService(@Value("${recommendations.top-k:20}") int topK,
+                                 @Value("${recommendations.basket-window-minutes:30}") long basketWindowMinutes,
+                                 @Value("${recommendations.snapshot.path:}") String snapshotPath,
+                                 @Value("${recommendations.snapshot.interval-minutes:5}") long snapshotIntervalMinutes,
+                                 SweetRepository sweetRepository,
+                                 ObjectProvider<Clock> clock) {
+        this.index = new CoPurchaseIndex(topK);
+        this.sweetRepository = sweetRepository;
+        this.topK = topK;
+        this.basketWindowMillis = TimeUnit.MINUTES.toMillis(basketWindowMinutes);
+        this.clock = clock.getIfAvailable(Clock::systemUTC);
+        this.snapshotPath = snapshotPath.isBlank() ? null : Path.of(snapshotPath);
+        this.snapshotIntervalMinutes = snapshotIntervalMinutes;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        loadSnapshot();
+        forgetDeletedSweets();
+        scheduler.scheduleWithFixedDelay(this::maintain, snapshotIntervalMinutes, snapshotIntervalMinutes, TimeUnit.MINUTES);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+        if (purchasesRecorded.get() != purchasesAtLastSnapshot || removedSinceSnapshot) {
+            writeSnapshot();
+        }
+    }
+
+    /** Records a completed purchase; call after it has committed. */
+    public void recordPurchase(String username, long sweetId) {
+        long[] partners = baskets.computeIfAbsent(username, name -> new Basket())
+                .add(sweetId, clock.millis(), basketWindowMillis);
+        for (long partner : partners) {
+            index.addPair(sweetId, partner);
+        }
+        purchasesRecorded.incrementAndGet();
+    }
+
+    public List<CoPurchaseIndex.Recommendation> recommendationsFor(long sweetId, int limit) {
+        return index.recommendations(sweetId, Math.min(limit, topK));
+    }
+
+    // Deletes arrive here on every node, local ones after commit and remote ones from the bus.
+    // Only sweets this node has pairs for are looked up, so purchases and edits of other sweets cost nothing.
+    @EventListener
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        if (event.affectsAll() || !index.contains(event.sweetId())) {
+            return;
+        }
+        // On the primary: a replica may not have seen the delete yet
+        if (!ReplicaRoutingDataSource.onPrimary(() -> sweetRepository.existsById(event.sweetId()))) {
+            forget(event.sweetId());
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("sweets", index.sweetCount());
+        stats.put("pairs", index.pairCount() / 2);
+        stats.put("openBaskets", baskets.size());
+        stats.put("purchasesRecorded", purchasesRecorded.get());
+        stats.put("lastSnapshotAt", lastSnapshotAt == null ? "never" : lastSnapshotAt.toString());
+        return stats;
+    }
+
+    private void maintain() {
+        try {
+            long cutoff = clock.millis() - basketWindowMillis;
+            baskets.values().removeIf(basket -> basket.isIdleSince(cutoff));
+            forgetDeletedSweets();
+            if (purchasesRecorded.get() != purchasesAtLastSnapshot || removedSinceSnapshot) {
+                writeSnapshot();
+            }
+        } catch (RuntimeException e) {
+            log.error("Recommendation maintenance failed", e);
+        }
+    }
+
+    // The index ids are read first: each was bought, so existed, before the catalog is read, and
+    // ids are never reused, so one missing from the catalog was deleted
+    private void forgetDeletedSweets() {
+        long[] indexed = index.sweetIds();
+        if (indexed.length == 0) {
+            return;
+        }
+        try {
+            Set<Long> existing = Set.copyOf(ReplicaRoutingDataSource.onPrimary(sweetRepository::findAllIds));
+            for (long sweetId : indexed) {
+                if (!existing.contains(sweetId)) {
+                    forget(sweetId);
+                }
+            }
+        } catch (RuntimeException e) {
+            log.warn("Could not check recommendations against the catalog", e);
+        }
+    }
+
+    private void forget(long sweetId) {
+        index.remove(sweetId);
+        removedSinceSnapshot = true;
+    }
+
+    private void loadSnapshot() {
+        if (snapshotPath == null || !Files.exists(snapshotPath)) {
+            return;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(snapshotPath)))) {
+            index.readFrom(in);
+        } catch (IOException e) {
+            log.warn("Could not read recommendation snapshot {}, starting empty", snapshotPath, e);
+        }
+    }
+
+    // Written next to the real file and renamed over it, so a crash mid-write never leaves a torn snapshot
+    private synchronized void writeSnapshot() {
+        if (snapshotPath == null) {
+            return;
+        }
+        long recorded = purchasesRecorded.get();
+        boolean removals = removedSinceSnapshot;
+        removedSinceSnapshot = false; // Before writing, so a removal during the write marks it again
+        try {
+            Path directory = snapshotPath.toAbsolutePath().getParent();
+            Files.createDirectories(directory);
+            Path temp = Files.createTempFile(directory, "co-purchase", ".tmp");
+            try {
+                try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                    index.writeTo(out);
+                }
+                Files.move(temp, snapshotPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(temp); // Only still there if the write or the rename failed
+            }
+            purchasesAtLastSnapshot = recorded;
+            lastSnapshotAt = Instant.now();
+        } catch (IOException e) {
+            if (removals) {
+                removedSinceSnapshot = true;
+            }
+            log.warn("Could not write recommendation snapshot {}", snapshotPath, e);
+        }
+    }
+}
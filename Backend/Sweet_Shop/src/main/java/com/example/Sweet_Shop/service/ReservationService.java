@@ -0,0 +1,213 @@
+package com.example.Sweet_Shop.service;
+
+import com.example.Sweet_Shop.exception.InvalidPurchaseException;
+import com.example.Sweet_Shop.model.Reservation;
+import com.example.Sweet_Shop.model.Sweet;
+import com.example.Sweet_Shop.repository.ReservationRepository;
+import com.example.Sweet_Shop.repository.SweetRepository;
+import com.example.Sweet_Shop.utilis.AfterCommit;
+import com.example.Sweet_Shop.utilis.Money;
+import com.example.Sweet_Shop.utilis.TimingWheel;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cart holds. Reserving takes the quantity off Sweet.quantity straight away and records a
+ * Reservation row; checkout just deletes the row (the stock is already gone), while cancel and
+ * expiry delete it and put the stock back. Expiry is driven by an in-memory timing wheel, which
+ * is rebuilt from the reservations table on startup so no hold is lost across restarts.
+ */
+@Service
+public class ReservationService {
+
+    private static final Logger log = LoggerFactory.getLogger(ReservationService.class);
+
+    private static final Duration RETRY_DELAY = Duration.ofSeconds(30);
+
+    private record Hold(Long reservationId, Long sweetId, int quantity) {
+    }
+
+    private final ReservationRepository reservationRepository;
+    private final SweetRepository sweetRepository;
+    private final CatalogVersion catalogVersion;
+    private final PricingService pricingService;
+    private final AuditTrailService auditTrailService;
+    private final RecommendationService recommendationService;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration defaultHold;
+    private final Duration maxHold;
+    private final TimingWheel<Hold> wheel;
+    // Lets checkout and cancel take the hold off the wheel instead of waiting for it to fire
+    private final ConcurrentHashMap<Long, TimingWheel.Timeout<Hold>> timeouts = new ConcurrentHashMap<>();
+
+    @Autowired
+    public ReservationService(ReservationRepository reservationRepository,
+                              SweetRepository sweetRepository,
+                              CatalogVersion catalogVersion,
+                              PricingService pricingService,
+                              AuditTrailService auditTrailService,
+                              RecommendationService recommendationService,
+                              PlatformTransactionManager transactionManager,
+                              @Value("${reservations.default-hold-minutes:15}") long defaultHoldMinutes,
+                              @Value("${reservations.max-hold-minutes:60}") long maxHoldMinutes,
+                              @Value("${reservations.tick-ms:100}") long tickMillis,
+                              @Value("${reservations.wheel-size:1024}") int wheelSize) {
+        this.reservationRepository = reservationRepository;
+        this.sweetRepository = sweetRepository;
+        this.catalogVersion = catalogVersion;
+        this.pricingService = pricingService;
+        this.auditTrailService = auditTrailService;
+        this.recommendationService = recommendationService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.defaultHold = Duration.ofMinutes(defaultHoldMinutes);
+        this.maxHold = Duration.ofMinutes(maxHoldMinutes);
+        this.wheel = new TimingWheel<>("reservation-expiry", tickMillis, TimeUnit.MILLISECONDS, wheelSize, this::expire);
+    }
+
+    @Transactional
+    public Reservation reserve(Long sweetId, int quantity, Duration holdFor, String username) {
+        if (quantity <= 0) {
+            throw new InvalidPurchaseException("Quantity must be positive.");
+        }
+        Duration hold = holdFor == null ? defaultHold : holdFor;
+        if (hold.isNegative() || hold.isZero()) {
+            throw new InvalidPurchaseException("Hold duration must be positive.");
+        }
+        if (hold.compareTo(maxHold) > 0) {
+            hold = maxHold;
+        }
+
+        if (sweetRepository.takeStock(sweetId, quantity) == 0) {
+            if (!sweetRepository.existsById(sweetId)) {
+                throw new InvalidPurchaseException("Sweet not found with id: " + sweetId);
+            }
+            throw new InvalidPurchaseException("Sweet is out of stock.");
+        }
+        Reservation reservation = reservationRepository.save(
+                new Reservation(sweetId, username, quantity, Instant.now().plus(hold)));
+        AfterCommit.run(() -> {
+            catalogVersion.bump(sweetId);
+            schedule(reservation);
+        });
+        return reservation;
+    }
+
+    /**
+     * Completes the purchase. Returns the sweet as it is now, or null if it was deleted while held
+     * (the purchase still stands: the stock was taken when reserving).
+     */
+    @Transactional
+    public Sweet checkout(Long reservationId, String username) {
+        Reservation reservation = findOwned(reservationId, username);
+        if (reservation.getExpiresAt().isBefore(Instant.now())) {
+            // The wheel is about to give the stock back; don't race it.
+            throw new InvalidPurchaseException("Reservation has expired.");
+        }
+        if (reservationRepository.deleteHold(reservationId) == 0) {
+            throw new InvalidPurchaseException("Reservation not found with id: " + reservationId);
+        }
+        Sweet sweet = sweetRepository.findById(reservation.getSweetId()).map(pricingService::price).orElse(null);
+        // Paid at the price on checkout, which is when the purchase goes into the user's history
+        Long unitPriceCents = sweet == null ? null : Money.toCents(sweet.getEffectivePrice());
+        AfterCommit.run(() -> {
+            cancelTimeout(reservationId);
+            auditTrailService.recordPurchase(username, reservation.getSweetId(), null, reservation.getQuantity(), unitPriceCents);
+            recommendationService.recordPurchase(username, reservation.getSweetId());
+        });
+        return sweet;
+    }
+
+    @Transactional
+    public void cancel(Long reservationId, String username) {
+        Reservation reservation = findOwned(reservationId, username);
+        if (reservationRepository.deleteHold(reservationId) == 0) {
+            throw new InvalidPurchaseException("Reservation not found with id: " + reservationId);
+        }
+        sweetRepository.returnStock(reservation.getSweetId(), reservation.getQuantity());
+        AfterCommit.run(() -> {
+            catalogVersion.bump(reservation.getSweetId());
+            cancelTimeout(reservationId);
+        });
+    }
+
+    public long activeHolds() {
+        return wheel.pendingCount();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void restoreHolds() {
+        long lastId = 0;
+        Slice<Reservation> page;
+        do {
+            page = reservationRepository.findByIdGreaterThanOrderByIdAsc(lastId, PageRequest.of(0, 10_000));
+            for (Reservation reservation : page) {
+                schedule(reservation);
+                lastId = reservation.getId();
+            }
+        } while (page.hasNext());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        wheel.close();
+    }
+
+    private Reservation findOwned(Long reservationId, String username) {
+        return reservationRepository.findById(reservationId)
+                .filter(reservation -> reservation.getUsername().equals(username))
+                .orElseThrow(() -> new InvalidPurchaseException("Reservation not found with id: " + reservationId));
+    }
+
+    private void schedule(Reservation reservation) {
+        long delayMillis = Duration.between(Instant.now(), reservation.getExpiresAt()).toMillis();
+        Hold hold = new Hold(reservation.getId(), reservation.getSweetId(), reservation.getQuantity());
+        timeouts.put(hold.reservationId(), wheel.schedule(hold, delayMillis, TimeUnit.MILLISECONDS));
+    }
+
+    private void cancelTimeout(Long reservationId) {
+        TimingWheel.Timeout<Hold> timeout = timeouts.remove(reservationId);
+        if (timeout != null) {
+            timeout.cancel();
+        }
+    }
+
+    // Runs on the wheel's worker thread with every hold that expired in the last tick
+    private void expire(List<Hold> holds) {
+        for (Hold hold : holds) {
+            timeouts.remove(hold.reservationId());
+            try {
+                Boolean released = transactionTemplate.execute(status -> {
+                    // Only give the stock back if checkout/cancel did not get there first
+                    if (reservationRepository.deleteHold(hold.reservationId()) == 1) {
+                        sweetRepository.returnStock(hold.sweetId(), hold.quantity());
+                        return true;
+                    }
+                    return false;
+                });
+                if (Boolean.TRUE.equals(released)) {
+                    catalogVersion.bump(hold.sweetId());
+                }
+            } catch (RuntimeException e) {
+                log.warn("Could not release reservation {}, retrying in {}", hold.reservationId(), RETRY_DELAY, e);
+                timeouts.put(hold.reservationId(), wheel.schedule(hold, RETRY_DELAY.toMillis(), TimeUnit.MILLISECONDS));
+            }
+        }
+    }
+}
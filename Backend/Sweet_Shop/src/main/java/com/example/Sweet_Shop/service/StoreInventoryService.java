@@ -0,0 +1,141 @@
+package com.example.Sweet_Shop.service;
+
+import com.example.Sweet_Shop.exception.InvalidPurchaseException;
+import com.example.Sweet_Shop.model.Store;
+import com.example.Sweet_Shop.repository.StoreRepository;
+import com.example.Sweet_Shop.repository.StoreStockRepository;
+import com.example.Sweet_Shop.repository.SweetRepository;
+import com.example.Sweet_Shop.utilis.AfterCommit;
+import com.example.Sweet_Shop.utilis.StoreStockIndex;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Stock per store. Purchases and restocks are scoped to one store and only ever touch that
+ * store's store_stock row, so stores never contend with each other (or with Sweet.quantity,
+ * which remains the central stock used by the existing purchase and reservation endpoints).
+ *
+ * Availability across stores and the nearest-store lookup are answered from a StoreStockIndex
+ * that is loaded once on startup and then kept current by applying each committed change as a
+ * delta. Changes made on other nodes arrive as remote CatalogChangedEvents (the stock writes here
+ * bump the catalog version like every other stock change) and reload that sweet's rows.
+ */
+@Service
+public class StoreInventoryService {
+
+    private final StoreRepository storeRepository;
+    private final StoreStockRepository storeStockRepository;
+    private final SweetRepository sweetRepository;
+    private final CatalogVersion catalogVersion;
+    private final PricingService pricingService;
+    private final StoreStockIndex index = new StoreStockIndex();
+
+    @Autowired
+    public StoreInventoryService(StoreRepository storeRepository,
+                                 StoreStockRepository storeStockRepository,
+                                 SweetRepository sweetRepository,
+                                 CatalogVersion catalogVersion,
+                                 PricingService pricingService) {
+        this.storeRepository = storeRepository;
+        this.storeStockRepository = storeStockRepository;
+        this.sweetRepository = sweetRepository;
+        this.catalogVersion = catalogVersion;
+        this.pricingService = pricingService;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadIndex() {
+        storeRepository.findAll().forEach(store -> index.putStore(store.getId(), store.getLatitude(), store.getLongitude()));
+        index.clearAll();
+        storeStockRepository.findAll().forEach(row -> index.set(row.getSweetId(), row.getStoreId(), row.getQuantity()));
+    }
+
+    @EventListener
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        if (!event.remote()) {
+            return; // Local changes were already applied as deltas
+        }
+        if (event.affectsAll()) {
+            loadIndex();
+        } else {
+            index.clear(event.sweetId());
+            storeStockRepository.findBySweetId(event.sweetId())
+                    .forEach(row -> index.set(row.getSweetId(), row.getStoreId(), row.getQuantity()));
+        }
+    }
+
+    public Store createStore(Store store) {
+        Store saved = storeRepository.save(store);
+        index.putStore(saved.getId(), saved.getLatitude(), saved.getLongitude());
+        // New stores are rare; a catalog-wide bump is the simplest way to make other nodes reload theirs
+        catalogVersion.bumpAll();
+        return saved;
+    }
+
+    public List<Store> getStores() {
+        return storeRepository.findAll();
+    }
+
+    // Returns the unit price charged, in cents
+    @Transactional
+    public long purchase(Long storeId, Long sweetId, int quantity) {
+        if (quantity <= 0) {
+            throw new InvalidPurchaseException("Quantity must be positive.");
+        }
+        StoreStockRepository.Taken taken = storeStockRepository.takeStock(storeId, sweetId, quantity).orElse(null);
+        if (taken == null) {
+            if (!storeRepository.existsById(storeId)) {
+                throw new InvalidPurchaseException("Store not found with id: " + storeId);
+            }
+            if (!sweetRepository.existsById(sweetId)) {
+                throw new InvalidPurchaseException("Sweet not found with id: " + sweetId);
+            }
+            throw new InvalidPurchaseException("Sweet is out of stock in this store.");
+        }
+        AfterCommit.run(() -> {
+            index.add(sweetId, storeId, -quantity);
+            catalogVersion.bump(sweetId);
+        });
+        // Stores sell at the catalog price
+        return pricingService.effectiveCents(sweetId, taken.getCategory(), taken.getPrice());
+    }
+
+    @Transactional
+    public void restock(Long storeId, Long sweetId, int quantity) {
+        if (quantity <= 0) {
+            throw new InvalidPurchaseException("Quantity must be positive.");
+        }
+        if (!storeRepository.existsById(storeId)) {
+            throw new InvalidPurchaseException("Store not found with id: " + storeId);
+        }
+        if (!sweetRepository.existsById(sweetId)) {
+            throw new InvalidPurchaseException("Sweet not found with id: " + sweetId);
+        }
+        storeStockRepository.addStock(storeId, sweetId, quantity);
+        AfterCommit.run(() -> {
+            index.add(sweetId, storeId, quantity);
+            catalogVersion.bump(sweetId);
+        });
+    }
+
+    /** Total across stores plus the per-store breakdown, from memory. */
+    public Map<String, Object> availability(Long sweetId) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("sweetId", sweetId);
+        result.put("total", index.total(sweetId));
+        result.put("stores", index.byStore(sweetId));
+        return result;
+    }
+
+    /** @return the closest store holding at least quantity units, or null if no store does */
+    public StoreStockIndex.Nearest nearestWithStock(Long sweetId, double latitude, double longitude, int quantity) {
+        return index.nearest(sweetId, latitude, longitude, quantity);
+    }
+}
@@ -1,107 +1,172 @@
 package com.example.Sweet_Shop.service;
 
 
+import com.example.Sweet_Shop.config.ReplicaRoutingDataSource;
+import com.example.Sweet_Shop.dto.PriceFilter;
+import com.example.Sweet_Shop.dto.SweetRow;
+import com.example.Sweet_Shop.dto.SweetView;
 import com.example.Sweet_Shop.exception.InvalidPurchaseException;
 import com.example.Sweet_Shop.model.Sweet;
 import com.example.Sweet_Shop.repository.SweetRepository;
-import jakarta.transaction.Transactional;
+import com.example.Sweet_Shop.utilis.AfterCommit;
+import com.example.Sweet_Shop.utilis.Money;
+import com.example.Sweet_Shop.utilis.SingleFlight;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
-import org.springframework.data.jpa.domain.Specification;
-import jakarta.persistence.criteria.Predicate;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @Service
 public class SweetService {
 
     private final SweetRepository sweetRepository;
+    private final CatalogVersion catalogVersion;
+    private final PricingService pricingService;
+    // Identical catalog queries that arrive together share one DB execution
+    private final SingleFlight<CatalogQuery, List<SweetView>> catalogQueries = new SingleFlight<>();
+
+    /**
+     * Normalized search parameters: the name match is case-insensitive and empty strings are
+     * ignored by the query, so "Ras", "ras" and "RAS" are the same query. The catalog version is
+     * part of the key so a request that arrives after a write never joins a query that started
+     * before it (and would hand back pre-write data under a post-write ETag).
+     */
+    private record CatalogQuery(boolean all, String name, String category, Double minPrice, Double maxPrice,
+                                long version) {
+        static CatalogQuery all(long version) {
+            return new CatalogQuery(true, null, null, null, null, version);
+        }
+
+        static CatalogQuery of(String name, String category, Double minPrice, Double maxPrice, long version) {
+            return new CatalogQuery(false,
+                    name == null || name.isEmpty() ? null : name.toLowerCase(),
+                    category == null || category.isEmpty() ? null : category,
+                    minPrice,
+                    maxPrice,
+                    version);
+        }
+    }
 
     @Autowired
-    public SweetService(SweetRepository sweetRepository) {
+    public SweetService(SweetRepository sweetRepository, CatalogVersion catalogVersion, PricingService pricingService) {
         this.sweetRepository = sweetRepository;
+        this.catalogVersion = catalogVersion;
+        this.pricingService = pricingService;
     }
 
     public Sweet addSweet(Sweet sweet) {
         // For now, we just save the sweet directly.
         // We will add validation in the refactor phase.
-        return sweetRepository.save(sweet);
+        Sweet saved = sweetRepository.save(sweet);
+        AfterCommit.run(() -> catalogVersion.bump(saved.getId()));
+        return pricingService.price(saved);
     }
-    public List<Sweet> getAllSweets() {
-        return sweetRepository.findAll();
+    // Catalog reads select the columns into SweetRows (see SweetCatalogRepository) instead of
+    // loading managed entities, in a read-only transaction. They are answered under the ETag of
+    // the version they were asked at, which only the primary is guaranteed to have reached, so
+    // they never go to a replica.
+    public List<SweetView> getAllSweets() {
+        CatalogQuery key = CatalogQuery.all(catalogVersion.current());
+        return catalogQueries.execute(key, () -> findSweets(key));
     }
+    public Optional<Sweet> getSweet(Long id) {
+        return ReplicaRoutingDataSource.onPrimary(() -> sweetRepository.findById(id)).map(pricingService::price);
+    }
+    @Transactional
     public Optional<Sweet> updateSweet(Long id, Sweet sweetDetails) {
-        return sweetRepository.findById(id)
+        Optional<Sweet> updated = sweetRepository.findById(id)
                 .map(existingSweet -> {
                     existingSweet.setName(sweetDetails.getName());
                     existingSweet.setCategory(sweetDetails.getCategory());
                     existingSweet.setPrice(sweetDetails.getPrice());
                     existingSweet.setQuantity(sweetDetails.getQuantity());
-                    return sweetRepository.save(existingSweet);
+                    return pricingService.price(sweetRepository.save(existingSweet));
                 });
+        updated.ifPresent(sweet -> AfterCommit.run(() -> catalogVersion.bump(id)));
+        return updated;
     }
     // --- NEW DELETE METHOD ---
+    @Transactional
     public boolean deleteSweet(Long id) {
         if (sweetRepository.existsById(id)) {
             sweetRepository.deleteById(id);
+            AfterCommit.run(() -> catalogVersion.bump(id));
             return true; // Return true if deletion was successful
         }
         return false; // Return false if the sweet did not exist
     }
     // --- NEW PURCHASE METHOD ---
+    @Transactional
     public Sweet purchaseSweet(Long id) {
-        // Find the sweet or throw an exception if it doesn't exist
-        Sweet sweet = sweetRepository.findById(id)
-                .orElseThrow(() -> new InvalidPurchaseException("Sweet not found with id: " + id));
-
-        // Check if the sweet is in stock
-        if (sweet.getQuantity() <= 0) {
+        // Take one unit with a single conditional UPDATE, so concurrent purchases and
+        // reservations can never oversell or overwrite each other's stock changes
+        if (sweetRepository.takeStock(id, 1) == 0) {
+            if (!sweetRepository.existsById(id)) {
+                throw new InvalidPurchaseException("Sweet not found with id: " + id);
+            }
             throw new InvalidPurchaseException("Sweet is out of stock.");
         }
-
-        // Decrement quantity and save
-        sweet.setQuantity(sweet.getQuantity() - 1);
-        return sweetRepository.save(sweet);
+        AfterCommit.run(() -> catalogVersion.bump(id));
+        // Charged at the effective price (promotions applied), looked up from the price index
+        return sweetRepository.findById(id)
+                .map(pricingService::price)
+                .orElseThrow(() -> new InvalidPurchaseException("Sweet not found with id: " + id));
     }
     // --- NEW RESTOCK METHOD ---
+    @Transactional
     public Sweet restockSweet(Long id, int quantityToAdd) {
-        Sweet sweet = sweetRepository.findById(id)
+        if (sweetRepository.returnStock(id, quantityToAdd) == 0) {
+            throw new RuntimeException("Sweet not found with id: " + id);
+        }
+        AfterCommit.run(() -> catalogVersion.bump(id));
+        return sweetRepository.findById(id)
+                .map(pricingService::price)
                 .orElseThrow(() -> new RuntimeException("Sweet not found with id: " + id));
-
-        sweet.setQuantity(sweet.getQuantity() + quantityToAdd);
-        return sweetRepository.save(sweet);
     }
-    public List<Sweet> searchSweets(String name, String category, Double minPrice, Double maxPrice) {
-        // Use a Specification to build a dynamic query based on the provided criteria
-        Specification<Sweet> spec = (root, query, criteriaBuilder) -> {
-            List<Predicate> predicates = new ArrayList<>();
+    /** @throws IllegalArgumentException if a price bound is NaN or infinite */
+    public List<SweetView> searchSweets(String name, String category, Double minPrice, Double maxPrice) {
+        if ((minPrice != null && !Double.isFinite(minPrice)) || (maxPrice != null && !Double.isFinite(maxPrice))) {
+            throw new IllegalArgumentException("Price bounds must be finite numbers.");
+        }
+        CatalogQuery key = CatalogQuery.of(name, category, minPrice, maxPrice, catalogVersion.current());
+        return catalogQueries.execute(key, () -> findSweets(key));
+    }
 
-            if (name != null && !name.isEmpty()) {
-                // Add a condition for a case-insensitive "contains" search on the name
-                predicates.add(criteriaBuilder.like(criteriaBuilder.lower(root.get("name")), "%" + name.toLowerCase() + "%"));
-            }
-            if (category != null && !category.isEmpty()) {
-                // Add a condition for an exact match on the category
-                predicates.add(criteriaBuilder.equal(root.get("category"), category));
-            }
-            if (minPrice != null) {
-                // Add a condition for the price being greater than or equal to minPrice
-                predicates.add(criteriaBuilder.greaterThanOrEqualTo(root.get("price"), minPrice));
-            }
-            if (maxPrice != null) {
-                // Add a condition for the price being less than or equal to maxPrice
-                predicates.add(criteriaBuilder.lessThanOrEqualTo(root.get("price"), maxPrice));
-            }
+    public Map<String, Object> getCatalogQueryStats() {
+        return Map.of(
+                "dbExecutions", catalogQueries.getExecutions(),
+                "collapsedRequests", catalogQueries.getCollapsed(),
+                "inFlight", catalogQueries.getInFlight());
+    }
 
-            // Combine all the individual conditions with an "AND"
-            return criteriaBuilder.and(predicates.toArray(new Predicate[0]));
-        };
+    private List<SweetView> findSweets(CatalogQuery key) {
+        return ReplicaRoutingDataSource.onPrimary(() -> matchSweets(key));
+    }
 
-        // Execute the dynamic query
-        return sweetRepository.findAll(spec);
+    private List<SweetView> matchSweets(CatalogQuery key) {
+        // Price bounds apply to the effective price. PricingService turns them into stored-price
+        // ranges for the query, so it can use the price index; the rows it returns are then
+        // checked here in exact cents, since those ranges are a little wider than the bounds
+        long minCents = key.minPrice() == null ? Long.MIN_VALUE : Money.toCents(key.minPrice());
+        long maxCents = key.maxPrice() == null ? Long.MAX_VALUE : Money.toCents(key.maxPrice());
+        if (minCents > maxCents) {
+            return List.of();
+        }
+        PriceFilter prices = key.minPrice() == null && key.maxPrice() == null
+                ? null : pricingService.priceFilter(minCents, maxCents);
+        List<SweetView> result = new ArrayList<>();
+        for (SweetRow row : sweetRepository.findRows(key.name(), key.category(), prices)) {
+            long cents = pricingService.effectiveCents(row.id(), row.category(), row.price());
+            if (cents >= minCents && cents <= maxCents) {
+                result.add(SweetView.of(row, cents));
+            }
+        }
+        return List.copyOf(result);
     }
 
 
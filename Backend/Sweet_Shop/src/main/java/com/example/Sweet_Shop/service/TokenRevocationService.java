@@ -0,0 +1,199 @@
+package com.example.Sweet_Shop.service;
+
+import com.example.Sweet_Shop.utilis.RevocationFilter;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Revoked token ids (jti), for logout, refresh token rotation and explicit revocation.
+ *
+ * The revoked_tokens table is the record; every node keeps a RevocationFilter built from it, so
+ * the check JwtRequestFilter makes on every request is a few bit probes in memory. Only when the
+ * filter says "maybe" is the table asked, and the answer is remembered either way: a revoked
+ * token that keeps being replayed, or a valid one that happens to collide in the filter, costs one
+ * query, not one per request. A remembered "not revoked" is dropped as soon as the id is revoked
+ * here or shows up in a poll, so it can't outlive the revocation by more than a poll interval.
+ * That includes a revocation landing between the table check and remembering its answer: if a
+ * poll started in the meantime, its removal may already have run, so the answer is dropped again.
+ *
+ * Revocations made on this node are in the filter immediately. Other nodes pick them up by
+ * polling the table every poll-ms for rows newer than the last one they saw. The poll reaches a
+ * little further back than that, because a row's revoked_at is set when its insert starts and can
+ * become visible slightly later; adding an id twice is harmless. Rows are deleted once the token
+ * they name has expired, since an expired token is rejected anyway.
+ */
+@Service
+public class TokenRevocationService {
+
+    private static final Logger log = LoggerFactory.getLogger(TokenRevocationService.class);
+
+    // How far each poll reaches back before the newest row already seen
+    private static final Duration POLL_OVERLAP = Duration.ofSeconds(10);
+    private static final Duration PURGE_INTERVAL = Duration.ofMinutes(10);
+    // At the configured false positive rate this takes millions of live tokens to fill
+    private static final int MAX_NOT_REVOKED = 100_000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final RevocationFilter filter;
+    private final long pollIntervalMillis;
+    private final Map<String, Long> confirmed = new ConcurrentHashMap<>();
+    // Filter false positives checked against the table, with the expiry of their token
+    private final Map<String, Long> notRevoked = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService poller = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "token-revocation-sync");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private volatile Instant newestSeen = Instant.EPOCH;
+    private volatile long lastPurgeMillis;
+    // Incremented as each poll starts, before it reads the table
+    private final AtomicLong pollsStarted = new AtomicLong();
+    private final AtomicLong revocations = new AtomicLong();
+    private final AtomicLong maybeRevoked = new AtomicLong();
+    private final AtomicLong falsePositives = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+
+    @Autowired
+    public TokenRevocationService(JdbcTemplate jdbcTemplate,
+                                  @Value("${jwt.refresh-token-days:7}") long refreshTokenDays,
+                                  @Value("${jwt.revocation.bucket-minutes:60}") long bucketMinutes,
+                                  @Value("${jwt.revocation.expected-per-bucket:10000}") int expectedPerBucket,
+                                  @Value("${jwt.revocation.false-positive-rate:0.001}") double falsePositiveRate,
+                                  @Value("${jwt.revocation.poll-ms:1000}") long pollIntervalMillis) {
+        this.jdbcTemplate = jdbcTemplate;
+        // Refresh tokens are the longest-lived tokens there are
+        this.filter = new RevocationFilter(TimeUnit.MINUTES.toMillis(bucketMinutes),
+                TimeUnit.DAYS.toMillis(refreshTokenDays), expectedPerBucket, falsePositiveRate);
+        this.pollIntervalMillis = pollIntervalMillis;
+    }
+
+    // Loaded before the web server starts taking requests, so no revoked token slips through on startup
+    @PostConstruct
+    public void start() {
+        poll();
+        poller.scheduleWithFixedDelay(this::pollSafely, pollIntervalMillis, pollIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        poller.shutdownNow();
+    }
+
+    /**
+     * Revokes a token until it expires.
+     *
+     * @return true if this call revoked it, false if it already was
+     */
+    public boolean revoke(String tokenId, Date expiresAt) {
+        if (tokenId == null || expiresAt == null || !expiresAt.after(new Date())) {
+            return false; // Tokens without an id can't be revoked, and expired ones don't need to be
+        }
+        int inserted = jdbcTemplate.update(
+                "INSERT INTO revoked_tokens (jti, expires_at) VALUES (?, ?) ON CONFLICT (jti) DO NOTHING",
+                tokenId, new Timestamp(expiresAt.getTime()));
+        filter.add(tokenId, expiresAt.getTime());
+        confirmed.put(tokenId, expiresAt.getTime());
+        notRevoked.remove(tokenId);
+        if (inserted > 0) {
+            revocations.incrementAndGet();
+        }
+        return inserted > 0;
+    }
+
+    /** Called for every authenticated request; in memory unless the filter says "maybe". */
+    public boolean isRevoked(String tokenId, Date expiresAt) {
+        if (tokenId == null || expiresAt == null) {
+            return false; // Issued before tokens had ids; they expire on their own
+        }
+        if (!filter.mightContain(tokenId, expiresAt.getTime())) {
+            return false;
+        }
+        maybeRevoked.incrementAndGet();
+        if (confirmed.containsKey(tokenId)) {
+            rejected.incrementAndGet();
+            return true;
+        }
+        if (notRevoked.containsKey(tokenId)) {
+            return false;
+        }
+        long pollsBeforeCheck = pollsStarted.get();
+        Boolean exists = jdbcTemplate.queryForObject(
+                "SELECT EXISTS (SELECT 1 FROM revoked_tokens WHERE jti = ?)", Boolean.class, tokenId);
+        if (Boolean.TRUE.equals(exists)) {
+            confirmed.put(tokenId, expiresAt.getTime());
+            rejected.incrementAndGet();
+            return true;
+        }
+        falsePositives.incrementAndGet();
+        if (notRevoked.size() < MAX_NOT_REVOKED) {
+            notRevoked.put(tokenId, expiresAt.getTime());
+            // A poll that started after the check may have found a revocation and tried to drop
+            // this entry before it was put; polls that start after this line will drop it themselves
+            if (pollsStarted.get() != pollsBeforeCheck) {
+                notRevoked.remove(tokenId);
+            }
+        }
+        return false;
+    }
+
+    public Map<String, Object> getStats() {
+        return Map.of(
+                "revokedHere", revocations.get(),
+                "filterEntries", filter.added(),
+                "filterBuckets", filter.bucketCount(),
+                "filterBytes", filter.bucketCount() * filter.bytesPerBucket(),
+                "maybeRevoked", maybeRevoked.get(),
+                "falsePositives", falsePositives.get(),
+                "falsePositivesRemembered", notRevoked.size(),
+                "rejected", rejected.get());
+    }
+
+    private void pollSafely() {
+        try {
+            poll();
+        } catch (RuntimeException e) {
+            log.warn("Could not sync revoked tokens", e);
+        }
+    }
+
+    private void poll() {
+        pollsStarted.incrementAndGet();
+        Timestamp since = Timestamp.from(newestSeen.minus(POLL_OVERLAP));
+        jdbcTemplate.query("SELECT jti, expires_at, revoked_at FROM revoked_tokens WHERE revoked_at > ? AND expires_at > now()",
+                rs -> {
+                    filter.add(rs.getString(1), rs.getTimestamp(2).getTime());
+                    notRevoked.remove(rs.getString(1));
+                    Instant revokedAt = rs.getTimestamp(3).toInstant();
+                    if (revokedAt.isAfter(newestSeen)) {
+                        newestSeen = revokedAt;
+                    }
+                }, since);
+
+        long now = System.currentTimeMillis();
+        filter.expire(now);
+        confirmed.values().removeIf(expiresAt -> expiresAt <= now);
+        notRevoked.values().removeIf(expiresAt -> expiresAt <= now);
+        if (now - lastPurgeMillis >= PURGE_INTERVAL.toMillis()) {
+            lastPurgeMillis = now;
+            jdbcTemplate.update("DELETE FROM revoked_tokens WHERE expires_at < now()");
+        }
+    }
+}
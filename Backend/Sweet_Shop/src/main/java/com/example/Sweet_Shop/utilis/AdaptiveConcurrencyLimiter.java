@@ -0,0 +1,185 @@
+package com.example.Sweet_Shop.utilis;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Concurrency limiter whose limit follows the observed latency (TCP Vegas style).
+ *
+ * The lowest round trip time seen is taken as the latency without any queueing. From that and a
+ * fresh sample the limiter estimates how many requests are queued downstream (usually waiting
+ * for a DB connection): limit * (1 - minRtt / rtt). A small queue means there is spare capacity
+ * and the limit grows; a large one means we are only adding latency and the limit shrinks.
+ * Every few hundred samples the minimum is replaced by the lowest sample of that window, so the
+ * limiter notices when the no-load latency itself changes; taking the window's lowest rather than
+ * the latest sample keeps a reset in the middle of a load spike from adopting a queued latency as
+ * the baseline.
+ *
+ * Callers that find the limit reached wait for at most the given time, and only if fewer than
+ * maxQueue callers are already waiting; everyone else is rejected straight away so they can be
+ * answered quickly instead of timing out later.
+ */
+public class AdaptiveConcurrencyLimiter {
+
+    private static final int MIN_RTT_RESET_SAMPLES = 500;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final int maxQueue;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition permitAvailable = lock.newCondition();
+
+    // All guarded by lock
+    private double limit;
+    private long minRttNanos;
+    private long windowMinRttNanos = Long.MAX_VALUE;
+    private int samplesSinceReset;
+    private int inFlight;
+    private int waiting;
+    private long admitted;
+    private long rejected;
+
+    public AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit, int maxQueue) {
+        if (minLimit < 1 || initialLimit < minLimit || maxLimit < initialLimit || maxQueue < 0) {
+            throw new IllegalArgumentException("Require 1 <= minLimit <= initialLimit <= maxLimit and maxQueue >= 0");
+        }
+        this.limit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.maxQueue = maxQueue;
+    }
+
+    /**
+     * Takes a permit, waiting up to maxWait if the limit is currently reached.
+     *
+     * @return false if the caller should be shed
+     */
+    public boolean tryAcquire(long maxWait, TimeUnit unit) throws InterruptedException {
+        lock.lock();
+        try {
+            if (inFlight < (int) limit) {
+                inFlight++;
+                admitted++;
+                return true;
+            }
+            long remaining = unit.toNanos(maxWait);
+            if (remaining <= 0 || waiting >= maxQueue) {
+                rejected++;
+                return false;
+            }
+            waiting++;
+            try {
+                while (inFlight >= (int) limit) {
+                    if (remaining <= 0) {
+                        rejected++;
+                        return false;
+                    }
+                    remaining = permitAvailable.awaitNanos(remaining);
+                }
+                inFlight++;
+                admitted++;
+                return true;
+            } finally {
+                waiting--;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns a permit taken by {@link #tryAcquire}.
+     *
+     * @param rttNanos how long the guarded work took
+     * @param dropped  true if the work failed in a way that suggests overload (timeouts, 5xx)
+     */
+    public void release(long rttNanos, boolean dropped) {
+        lock.lock();
+        try {
+            int inFlightAtEnd = inFlight;
+            inFlight--;
+            double oldLimit = limit;
+            if (dropped) {
+                limit = Math.max(minLimit, limit * 0.9);
+            } else if (rttNanos > 0) {
+                update(rttNanos, inFlightAtEnd);
+            }
+            if (limit > oldLimit) {
+                permitAvailable.signalAll();
+            } else {
+                permitAvailable.signal();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void update(long rttNanos, int inFlightAtEnd) {
+        if (minRttNanos == 0 || rttNanos < minRttNanos) {
+            minRttNanos = rttNanos;
+        }
+        windowMinRttNanos = Math.min(windowMinRttNanos, rttNanos);
+        if (++samplesSinceReset >= MIN_RTT_RESET_SAMPLES) {
+            minRttNanos = windowMinRttNanos;
+            windowMinRttNanos = Long.MAX_VALUE;
+            samplesSinceReset = 0;
+        }
+        double log = Math.max(1.0, Math.log10(limit));
+        double queued = limit * (1 - (double) minRttNanos / rttNanos);
+        if (queued <= 3 * log) {
+            // Nothing to learn about spare capacity if we were nowhere near the limit
+            if (inFlightAtEnd * 2 >= limit) {
+                limit = Math.min(maxLimit, limit + log);
+            }
+        } else if (queued >= 6 * log) {
+            limit = Math.max(minLimit, limit - log);
+        }
+    }
+
+    public int getLimit() {
+        lock.lock();
+        try {
+            return (int) limit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getMinRttNanos() {
+        lock.lock();
+        try {
+            return minRttNanos;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getInFlight() {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getAdmitted() {
+        lock.lock();
+        try {
+            return admitted;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getRejected() {
+        lock.lock();
+        try {
+            return rejected;
+        } finally {
+            lock.unlock();
+        }
+    }
+}
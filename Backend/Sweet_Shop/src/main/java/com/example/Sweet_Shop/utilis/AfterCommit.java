@@ -0,0 +1,27 @@
+package com.example.Sweet_Shop.utilis;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+public final class AfterCommit {
+
+    private AfterCommit() {
+    }
+
+    /**
+     * Runs the action once the current transaction has committed (and never if it rolls back),
+     * or right away when there is no transaction, e.g. after a repository call that committed on its own.
+     */
+    public static void run(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
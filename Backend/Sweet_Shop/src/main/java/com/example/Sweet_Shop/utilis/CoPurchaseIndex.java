@@ -0,0 +1,382 @@
+package com.example.Sweet_Shop.utilis;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * "Frequently bought together": how often each pair of sweets ended up in the same basket, kept
+ * up to date one basket at a time, plus the top K partners of every sweet ready to serve.
+ *
+ * The count matrix is sparse, one row per sweet: an open-addressing hash table from partner id
+ * to count in two primitive arrays (no boxing, no entry objects), so a row costs about 12 bytes
+ * per partner. Next to it each row keeps a min-heap of its K best partners. Counts only ever go
+ * up by one, so a partner outside the heap can only overtake the weakest one in it, and keeping
+ * the heap exact is one comparison with the root plus a sift: recording a basket of n sweets is
+ * O(n^2 log K), and reading the top K is a copy and a sort of K entries, no scan of the row.
+ *
+ * Each row has its own lock and a basket update takes one row lock at a time, never two, so
+ * concurrent purchases of unrelated sweets do not contend and cannot deadlock. Removing a sweet
+ * is the one exception: it waits for the pairs being added to finish and holds new ones off while
+ * it cleans up, and the id is remembered (in snapshots too) so a later pair naming it, from a
+ * basket still holding the deleted sweet, is ignored instead of bringing it back.
+ */
+public final class CoPurchaseIndex {
+
+    private static final int SNAPSHOT_MAGIC = 0x53435032; // "SCP2": SCP1 followed by the removed ids
+    private static final int SNAPSHOT_MAGIC_V1 = 0x53435031; // "SCP1": the count matrix only
+
+    /** A partner sweet and how many baskets it shared with the sweet asked about. */
+    public record Recommendation(long sweetId, long count) {
+    }
+
+    private static final class Row {
+        private static final long EMPTY = Long.MIN_VALUE;
+
+        // Partner id -> count, linear probing; EMPTY marks free slots
+        private long[] keys;
+        private int[] counts;
+        private int size;
+
+        // Min-heap of the best partners, ordered by count and then by id so ties are settled the
+        // same way whatever order the counts arrived in (K is small, so finding an id is a short scan)
+        private final long[] heapIds;
+        private final int[] heapCounts;
+        private int heapSize;
+
+        Row(int topK) {
+            keys = new long[8];
+            Arrays.fill(keys, EMPTY);
+            counts = new int[8];
+            heapIds = new long[topK];
+            heapCounts = new int[topK];
+        }
+
+        synchronized void increment(long partner, int by) {
+            int slot = slotOf(partner);
+            if (keys[slot] == EMPTY) {
+                keys[slot] = partner;
+                size++;
+            }
+            counts[slot] += by;
+            offer(partner, counts[slot]);
+            if (size * 4 >= keys.length * 3) {
+                rehash(keys.length * 2);
+            }
+        }
+
+        synchronized void remove(long partner) {
+            int slot = slotOf(partner);
+            if (keys[slot] == EMPTY) {
+                return;
+            }
+            // Backward-shift deletion keeps probe chains intact without tombstones
+            int mask = keys.length - 1;
+            int hole = slot;
+            int next = (hole + 1) & mask;
+            while (keys[next] != EMPTY) {
+                int home = home(keys[next], mask);
+                if (((next - home) & mask) >= ((next - hole) & mask)) {
+                    keys[hole] = keys[next];
+                    counts[hole] = counts[next];
+                    hole = next;
+                }
+                next = (next + 1) & mask;
+            }
+            keys[hole] = EMPTY;
+            counts[hole] = 0;
+            size--;
+            for (int i = 0; i < heapSize; i++) {
+                if (heapIds[i] == partner) {
+                    rebuildHeap();
+                    return;
+                }
+            }
+        }
+
+        synchronized List<Recommendation> top(int limit) {
+            Integer[] order = new Integer[heapSize];
+            for (int i = 0; i < heapSize; i++) {
+                order[i] = i;
+            }
+            // Highest count first, lower id first on ties so the answer is stable
+            Arrays.sort(order, (a, b) -> heapCounts[a] != heapCounts[b]
+                    ? Integer.compare(heapCounts[b], heapCounts[a])
+                    : Long.compare(heapIds[a], heapIds[b]));
+            List<Recommendation> result = new ArrayList<>(Math.min(limit, heapSize));
+            for (int i = 0; i < Math.min(limit, heapSize); i++) {
+                result.add(new Recommendation(heapIds[order[i]], heapCounts[order[i]]));
+            }
+            return result;
+        }
+
+        synchronized int size() {
+            return size;
+        }
+
+        synchronized void write(long sweetId, DataOutputStream out) throws IOException {
+            out.writeLong(sweetId);
+            out.writeInt(size);
+            for (int slot = 0; slot < keys.length; slot++) {
+                if (keys[slot] != EMPTY) {
+                    out.writeLong(keys[slot]);
+                    out.writeInt(counts[slot]);
+                }
+            }
+        }
+
+        private void offer(long partner, int count) {
+            for (int i = 0; i < heapSize; i++) {
+                if (heapIds[i] == partner) {
+                    heapCounts[i] = count;
+                    siftDown(i); // Its count went up, so it can only move away from the root
+                    return;
+                }
+            }
+            offerNew(partner, count);
+        }
+
+        private void rebuildHeap() {
+            heapSize = 0;
+            for (int slot = 0; slot < keys.length; slot++) {
+                if (keys[slot] != EMPTY) {
+                    offerNew(keys[slot], counts[slot]);
+                }
+            }
+        }
+
+        // For ids known not to be in the heap yet
+        private void offerNew(long partner, int count) {
+            if (heapSize < heapIds.length) {
+                heapIds[heapSize] = partner;
+                heapCounts[heapSize] = count;
+                siftUp(heapSize++);
+            } else if (isWorse(heapCounts[0], heapIds[0], count, partner)) {
+                heapIds[0] = partner;
+                heapCounts[0] = count;
+                siftDown(0);
+            }
+        }
+
+        private void siftUp(int i) {
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (!isWorse(heapCounts[i], heapIds[i], heapCounts[parent], heapIds[parent])) {
+                    return;
+                }
+                swap(i, parent);
+                i = parent;
+            }
+        }
+
+        private void siftDown(int i) {
+            for (;;) {
+                int smallest = i;
+                int left = 2 * i + 1;
+                int right = left + 1;
+                if (left < heapSize && isWorse(heapCounts[left], heapIds[left], heapCounts[smallest], heapIds[smallest])) {
+                    smallest = left;
+                }
+                if (right < heapSize && isWorse(heapCounts[right], heapIds[right], heapCounts[smallest], heapIds[smallest])) {
+                    smallest = right;
+                }
+                if (smallest == i) {
+                    return;
+                }
+                swap(i, smallest);
+                i = smallest;
+            }
+        }
+
+        // Fewer shared baskets is worse; on a tie the higher id is, matching the order top() returns
+        private static boolean isWorse(int countA, long idA, int countB, long idB) {
+            return countA != countB ? countA < countB : idA > idB;
+        }
+
+        private void swap(int a, int b) {
+            long id = heapIds[a];
+            heapIds[a] = heapIds[b];
+            heapIds[b] = id;
+            int count = heapCounts[a];
+            heapCounts[a] = heapCounts[b];
+            heapCounts[b] = count;
+        }
+
+        private int slotOf(long key) {
+            int mask = keys.length - 1;
+            int slot = home(key, mask);
+            while (keys[slot] != EMPTY && keys[slot] != key) {
+                slot = (slot + 1) & mask;
+            }
+            return slot;
+        }
+
+        private void rehash(int capacity) {
+            long[] oldKeys = keys;
+            int[] oldCounts = counts;
+            keys = new long[capacity];
+            Arrays.fill(keys, EMPTY);
+            counts = new int[capacity];
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != EMPTY) {
+                    int slot = slotOf(oldKeys[i]);
+                    keys[slot] = oldKeys[i];
+                    counts[slot] = oldCounts[i];
+                }
+            }
+        }
+
+        private static int home(long key, int mask) {
+            long h = key * 0x9E3779B97F4A7C15L;
+            return (int) (h ^ (h >>> 32)) & mask;
+        }
+    }
+
+    private final int topK;
+    private final ConcurrentHashMap<Long, Row> rows = new ConcurrentHashMap<>();
+    private final Set<Long> removed = ConcurrentHashMap.newKeySet();
+    // Shared by addPair, exclusive to remove
+    private final ReentrantReadWriteLock removal = new ReentrantReadWriteLock();
+
+    public CoPurchaseIndex(int topK) {
+        if (topK < 1) {
+            throw new IllegalArgumentException("topK must be >= 1");
+        }
+        this.topK = topK;
+    }
+
+    /** Counts every pair of distinct sweets in the basket once. */
+    public void addBasket(long[] sweetIds, int length) {
+        for (int i = 0; i < length; i++) {
+            for (int j = i + 1; j < length; j++) {
+                if (sweetIds[i] != sweetIds[j]) {
+                    addPair(sweetIds[i], sweetIds[j]);
+                }
+            }
+        }
+    }
+
+    /** One more basket containing both sweets. */
+    public void addPair(long a, long b) {
+        Lock lock = removal.readLock();
+        lock.lock();
+        try {
+            if (removed.contains(a) || removed.contains(b)) {
+                return;
+            }
+            row(a).increment(b, 1);
+            row(b).increment(a, 1);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public List<Recommendation> recommendations(long sweetId, int limit) {
+        Row row = rows.get(sweetId);
+        return row == null || limit <= 0 ? List.of() : row.top(limit);
+    }
+
+    /** Forgets a sweet for good, e.g. after it was deleted; pairs naming it are ignored from now on. */
+    public void remove(long sweetId) {
+        Lock lock = removal.writeLock();
+        lock.lock();
+        try {
+            removed.add(sweetId);
+            Row row = rows.remove(sweetId);
+            if (row == null) {
+                return;
+            }
+            // Partners are symmetric, so the removed row names every row that mentions the sweet
+            long[] partners;
+            synchronized (row) {
+                partners = Arrays.stream(row.keys).filter(key -> key != Row.EMPTY).toArray();
+            }
+            for (long partner : partners) {
+                Row partnerRow = rows.get(partner);
+                if (partnerRow != null) {
+                    partnerRow.remove(sweetId);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public boolean contains(long sweetId) {
+        return rows.containsKey(sweetId);
+    }
+
+    /** Every sweet that has at least one partner right now. */
+    public long[] sweetIds() {
+        return rows.keySet().stream().mapToLong(Long::longValue).toArray();
+    }
+
+    public int sweetCount() {
+        return rows.size();
+    }
+
+    /** Non-zero entries of the count matrix (each pair counted from both sides). */
+    public long pairCount() {
+        long total = 0;
+        for (Row row : rows.values()) {
+            total += row.size();
+        }
+        return total;
+    }
+
+    /**
+     * Writes the count matrix and the removed ids; the heaps are rebuilt from the counts on load.
+     * Baskets keep being recorded while this runs, so each row is as of the moment it was written.
+     */
+    public void writeTo(DataOutputStream out) throws IOException {
+        List<Map.Entry<Long, Row>> snapshot = new ArrayList<>(rows.entrySet());
+        out.writeInt(SNAPSHOT_MAGIC);
+        out.writeInt(snapshot.size());
+        for (Map.Entry<Long, Row> entry : snapshot) {
+            entry.getValue().write(entry.getKey(), out);
+        }
+        List<Long> removedIds = new ArrayList<>(removed);
+        out.writeInt(removedIds.size());
+        for (long sweetId : removedIds) {
+            out.writeLong(sweetId);
+        }
+    }
+
+    /** Adds the counts of a snapshot written by writeTo to this index, and removes what it removed. */
+    public void readFrom(DataInputStream in) throws IOException {
+        int magic = in.readInt();
+        if (magic != SNAPSHOT_MAGIC && magic != SNAPSHOT_MAGIC_V1) {
+            throw new IOException("Not a co-purchase snapshot");
+        }
+        int rowCount = in.readInt();
+        for (int r = 0; r < rowCount; r++) {
+            long sweetId = in.readLong();
+            int size = in.readInt();
+            Row row = row(sweetId);
+            for (int i = 0; i < size; i++) {
+                long partner = in.readLong();
+                int count = in.readInt();
+                row.increment(partner, count);
+            }
+        }
+        if (magic == SNAPSHOT_MAGIC) {
+            // After the counts: a row written just before a removal may still name the sweet
+            int removedCount = in.readInt();
+            for (int i = 0; i < removedCount; i++) {
+                remove(in.readLong());
+            }
+        }
+    }
+
+    private Row row(long sweetId) {
+        return rows.computeIfAbsent(sweetId, id -> new Row(topK));
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.Sweet_Shop.utilis;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Money as a long number of cents. Prices are still stored and sent as decimals, but anything
+ * that compares or computes prices works in cents so there is no floating-point drift.
+ */
+public final class Money {
+
+    private Money() {
+    }
+
+    public static long toCents(double amount) {
+        // BigDecimal.valueOf goes through the shortest decimal form, so 2.675 is 267.5 cents, not 267.4999...
+        return toCents(BigDecimal.valueOf(amount));
+    }
+
+    public static long toCents(BigDecimal amount) {
+        return amount.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    public static BigDecimal fromCents(long cents) {
+        return BigDecimal.valueOf(cents, 2);
+    }
+
+    /** cents reduced by basisPoints / 100 percent, rounded half up to the cent. */
+    public static long percentOff(long cents, long basisPoints) {
+        long remaining = 10_000 - basisPoints;
+        return (cents * remaining + 5_000) / 10_000;
+    }
+}
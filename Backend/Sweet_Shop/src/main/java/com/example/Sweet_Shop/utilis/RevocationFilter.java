@@ -0,0 +1,156 @@
+package com.example.Sweet_Shop.utilis;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Compact set of revoked token ids: Bloom filters bucketed by the token's expiry time.
+ *
+ * A token is filed under the bucket its expiry falls in, and a request already knows the expiry
+ * of the token it carries, so a check looks at exactly one bucket: hash the id once, probe k bits,
+ * no locks and no allocation. A "no" is certain; a "maybe" has to be confirmed elsewhere (false
+ * positives happen at roughly the configured rate once a bucket holds its expected count).
+ *
+ * Revoked tokens only matter until they expire, and a bucket only holds tokens that expire within
+ * its time range, so a whole bucket is dropped once its range has passed. The buckets live in a
+ * ring with one slot per bucket width of the longest token lifetime, so memory is bounded no
+ * matter how long the process runs, and buckets are only allocated once something is revoked.
+ */
+public final class RevocationFilter {
+
+    private static final class Bucket {
+        final long number;
+        final AtomicLongArray words;
+
+        Bucket(long number, int words) {
+            this.number = number;
+            this.words = new AtomicLongArray(words);
+        }
+    }
+
+    private final long bucketMillis;
+    private final int bitMask;
+    private final int hashes;
+    private final AtomicReferenceArray<Bucket> ring;
+    private final AtomicLong added = new AtomicLong();
+
+    /**
+     * @param bucketMillis      width of the expiry range covered by one bucket
+     * @param maxLifetimeMillis longest lifetime of any token that can be revoked
+     * @param expectedPerBucket revocations per bucket the false positive rate is sized for
+     * @param falsePositiveRate target false positive rate at that count, e.g. 0.001
+     */
+    public RevocationFilter(long bucketMillis, long maxLifetimeMillis, int expectedPerBucket, double falsePositiveRate) {
+        if (bucketMillis <= 0 || maxLifetimeMillis <= 0 || expectedPerBucket < 1
+                || falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException("Invalid revocation filter sizing");
+        }
+        // Optimal Bloom filter size and hash count, with the size rounded up to a power of two so
+        // a probe is a mask instead of a modulo
+        double ln2 = Math.log(2);
+        long optimalBits = (long) Math.ceil(-expectedPerBucket * Math.log(falsePositiveRate) / (ln2 * ln2));
+        int bits = (int) Math.min(1L << 30, Math.max(64, Long.highestOneBit(optimalBits - 1) << 1));
+        this.bitMask = bits - 1;
+        this.hashes = (int) Math.max(1, Math.min(16, Math.round((double) optimalBits / expectedPerBucket * ln2)));
+        this.bucketMillis = bucketMillis;
+        // Live tokens expire within [now, now + maxLifetime], which spans this many buckets
+        this.ring = new AtomicReferenceArray<>((int) (maxLifetimeMillis / bucketMillis) + 2);
+    }
+
+    public void add(String tokenId, long expiresAtMillis) {
+        long number = Math.floorDiv(expiresAtMillis, bucketMillis);
+        int slot = (int) Math.floorMod(number, (long) ring.length());
+        Bucket bucket;
+        for (;;) {
+            bucket = ring.get(slot);
+            if (bucket != null && bucket.number == number) {
+                break;
+            }
+            if (bucket != null && bucket.number > number) {
+                return; // Expired longer ago than the ring reaches back, nothing to remember
+            }
+            // Empty, or holding a bucket whose tokens have all expired
+            Bucket fresh = new Bucket(number, (bitMask + 1) >>> 6);
+            if (ring.compareAndSet(slot, bucket, fresh)) {
+                bucket = fresh;
+                break;
+            }
+        }
+
+        long h1 = hash(tokenId);
+        long h2 = mix(h1 ^ 0x9E3779B97F4A7C15L) | 1;
+        for (int i = 0; i < hashes; i++) {
+            int bit = (int) (h1 + i * h2) & bitMask;
+            long mask = 1L << bit;
+            bucket.words.getAndAccumulate(bit >>> 6, mask, (word, m) -> word | m);
+        }
+        added.incrementAndGet();
+    }
+
+    /** @return false if the token was certainly not revoked, true if it may have been */
+    public boolean mightContain(String tokenId, long expiresAtMillis) {
+        long number = Math.floorDiv(expiresAtMillis, bucketMillis);
+        Bucket bucket = ring.get((int) Math.floorMod(number, (long) ring.length()));
+        if (bucket == null || bucket.number != number) {
+            return false;
+        }
+        long h1 = hash(tokenId);
+        long h2 = mix(h1 ^ 0x9E3779B97F4A7C15L) | 1;
+        for (int i = 0; i < hashes; i++) {
+            int bit = (int) (h1 + i * h2) & bitMask;
+            if ((bucket.words.get(bit >>> 6) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** Frees the buckets whose tokens have all expired by nowMillis. */
+    public void expire(long nowMillis) {
+        long current = Math.floorDiv(nowMillis, bucketMillis);
+        for (int slot = 0; slot < ring.length(); slot++) {
+            Bucket bucket = ring.get(slot);
+            if (bucket != null && bucket.number < current) {
+                ring.compareAndSet(slot, bucket, null);
+            }
+        }
+    }
+
+    public int bucketCount() {
+        int count = 0;
+        for (int slot = 0; slot < ring.length(); slot++) {
+            if (ring.get(slot) != null) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    public long bytesPerBucket() {
+        return (bitMask + 1L) / 8;
+    }
+
+    public long added() {
+        return added.get();
+    }
+
+    // FNV-1a over the characters, then a finalizer so every output bit depends on every input bit
+    private static long hash(String value) {
+        long h = 0xCBF29CE484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            h ^= value.charAt(i);
+            h *= 0x100000001B3L;
+        }
+        return mix(h);
+    }
+
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.Sweet_Shop.utilis;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Collapses concurrent calls for the same key into one execution (like Go's singleflight).
+ * The first caller for a key runs the loader; anyone asking for the same key while it is
+ * running waits for that result instead of starting their own. Nothing is cached: once the
+ * execution finishes the next caller starts a fresh one.
+ */
+public final class SingleFlight<K, V> {
+
+    private final ConcurrentHashMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final LongAdder executions = new LongAdder();
+    private final LongAdder collapsed = new LongAdder();
+
+    public V execute(K key, Supplier<V> loader) {
+        CompletableFuture<V> mine = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, mine);
+        if (existing != null) {
+            collapsed.increment();
+            try {
+                return existing.join();
+            } catch (CompletionException e) {
+                // Rethrow the leader's exception as-is so callers see the same error it did
+                if (e.getCause() instanceof RuntimeException cause) {
+                    throw cause;
+                }
+                if (e.getCause() instanceof Error cause) {
+                    throw cause;
+                }
+                throw e;
+            }
+        }
+
+        executions.increment();
+        try {
+            V value = loader.get();
+            mine.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    /** Number of times a loader actually ran. */
+    public long getExecutions() {
+        return executions.sum();
+    }
+
+    /** Number of callers that shared another caller's execution instead of running their own. */
+    public long getCollapsed() {
+        return collapsed.sum();
+    }
+
+    public int getInFlight() {
+        return inFlight.size();
+    }
+}
@@ -0,0 +1,189 @@
+package com.example.Sweet_Shop.utilis;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory view of stock per (sweet, store): the total across all stores and the nearest store
+ * that can fill an order, both without touching the database.
+ *
+ * Stores get a dense slot number when registered and each sweet keeps an int[] of quantities by
+ * slot plus a running total, so an update is O(1) and the total is free. Store locations are kept
+ * as unit vectors on the sphere in flat arrays: the nearest store is the one with the largest dot
+ * product with the query point, which turns the search into a tight multiply-add loop over the
+ * stores (no trigonometry per store). That is linear in the number of stores, which stays well
+ * under a microsecond for the hundreds of shops and warehouses this is meant for.
+ */
+public final class StoreStockIndex {
+
+    private static final double EARTH_RADIUS_KM = 6371.0;
+
+    /** Result of a nearest-store lookup. */
+    public record Nearest(long storeId, int quantity, double distanceKm) {
+    }
+
+    // Registered stores, copy-on-write: lookups read one consistent snapshot without locking
+    private record Stores(long[] ids, double[] x, double[] y, double[] z, Map<Long, Integer> slots) {
+        static final Stores EMPTY = new Stores(new long[0], new double[0], new double[0], new double[0], Map.of());
+    }
+
+    private static final class SweetStock {
+        private int[] quantities = new int[0];
+        private long total;
+
+        synchronized void add(int slot, int delta) {
+            grow(slot);
+            quantities[slot] += delta;
+            total += delta;
+        }
+
+        synchronized void set(int slot, int quantity) {
+            grow(slot);
+            total += quantity - quantities[slot];
+            quantities[slot] = quantity;
+        }
+
+        synchronized long total() {
+            return total;
+        }
+
+        synchronized int quantity(int slot) {
+            return slot < quantities.length ? quantities[slot] : 0;
+        }
+
+        synchronized int[] snapshot() {
+            return quantities.clone();
+        }
+
+        synchronized int nearest(Stores stores, double qx, double qy, double qz, int minQuantity) {
+            int best = -1;
+            double bestDot = -2;
+            int n = Math.min(quantities.length, stores.ids().length);
+            double[] x = stores.x();
+            double[] y = stores.y();
+            double[] z = stores.z();
+            for (int slot = 0; slot < n; slot++) {
+                if (quantities[slot] >= minQuantity) {
+                    double dot = x[slot] * qx + y[slot] * qy + z[slot] * qz;
+                    if (dot > bestDot) {
+                        bestDot = dot;
+                        best = slot;
+                    }
+                }
+            }
+            return best;
+        }
+
+        private void grow(int slot) {
+            if (slot >= quantities.length) {
+                quantities = Arrays.copyOf(quantities, Math.max(slot + 1, quantities.length * 2));
+            }
+        }
+    }
+
+    private volatile Stores stores = Stores.EMPTY;
+    private final ConcurrentHashMap<Long, SweetStock> sweets = new ConcurrentHashMap<>();
+
+    /** Registers a store, or moves it if it is already known. */
+    public synchronized void putStore(long storeId, double latitude, double longitude) {
+        Stores current = stores;
+        Integer existing = current.slots().get(storeId);
+        int slot = existing != null ? existing : current.ids().length;
+        int size = Math.max(current.ids().length, slot + 1);
+        long[] ids = Arrays.copyOf(current.ids(), size);
+        double[] x = Arrays.copyOf(current.x(), size);
+        double[] y = Arrays.copyOf(current.y(), size);
+        double[] z = Arrays.copyOf(current.z(), size);
+        double lat = Math.toRadians(latitude);
+        double lon = Math.toRadians(longitude);
+        ids[slot] = storeId;
+        x[slot] = Math.cos(lat) * Math.cos(lon);
+        y[slot] = Math.cos(lat) * Math.sin(lon);
+        z[slot] = Math.sin(lat);
+        Map<Long, Integer> slots = new ConcurrentHashMap<>(current.slots());
+        slots.put(storeId, slot);
+        stores = new Stores(ids, x, y, z, slots);
+    }
+
+    public int storeCount() {
+        return stores.ids().length;
+    }
+
+    /** Applies a committed stock change. Unknown stores are ignored. */
+    public void add(long sweetId, long storeId, int delta) {
+        Integer slot = stores.slots().get(storeId);
+        if (slot != null) {
+            sweets.computeIfAbsent(sweetId, id -> new SweetStock()).add(slot, delta);
+        }
+    }
+
+    /** Overwrites the quantity, for loading from the database. Unknown stores are ignored. */
+    public void set(long sweetId, long storeId, int quantity) {
+        Integer slot = stores.slots().get(storeId);
+        if (slot != null) {
+            sweets.computeIfAbsent(sweetId, id -> new SweetStock()).set(slot, quantity);
+        }
+    }
+
+    /** Forgets everything known about one sweet's stock, before reloading it. */
+    public void clear(long sweetId) {
+        sweets.remove(sweetId);
+    }
+
+    public void clearAll() {
+        sweets.clear();
+    }
+
+    public long total(long sweetId) {
+        SweetStock stock = sweets.get(sweetId);
+        return stock == null ? 0 : stock.total();
+    }
+
+    public int quantity(long sweetId, long storeId) {
+        SweetStock stock = sweets.get(sweetId);
+        Integer slot = stores.slots().get(storeId);
+        return stock == null || slot == null ? 0 : stock.quantity(slot);
+    }
+
+    /** Store id to quantity, for stores that have any stock of the sweet. */
+    public Map<Long, Integer> byStore(long sweetId) {
+        Map<Long, Integer> result = new LinkedHashMap<>();
+        SweetStock stock = sweets.get(sweetId);
+        if (stock == null) {
+            return result;
+        }
+        Stores current = stores;
+        int[] quantities = stock.snapshot();
+        for (int slot = 0; slot < Math.min(quantities.length, current.ids().length); slot++) {
+            if (quantities[slot] > 0) {
+                result.put(current.ids()[slot], quantities[slot]);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return the closest store holding at least minQuantity of the sweet, or null if none does
+     */
+    public Nearest nearest(long sweetId, double latitude, double longitude, int minQuantity) {
+        SweetStock stock = sweets.get(sweetId);
+        if (stock == null) {
+            return null;
+        }
+        Stores current = stores;
+        double lat = Math.toRadians(latitude);
+        double lon = Math.toRadians(longitude);
+        double qx = Math.cos(lat) * Math.cos(lon);
+        double qy = Math.cos(lat) * Math.sin(lon);
+        double qz = Math.sin(lat);
+        int slot = stock.nearest(current, qx, qy, qz, Math.max(1, minQuantity));
+        if (slot < 0) {
+            return null;
+        }
+        double dot = current.x()[slot] * qx + current.y()[slot] * qy + current.z()[slot] * qz;
+        double distance = EARTH_RADIUS_KM * Math.acos(Math.max(-1, Math.min(1, dot)));
+        return new Nearest(current.ids()[slot], stock.quantity(slot), distance);
+    }
+}
@@ -0,0 +1,254 @@
+package com.example.Sweet_Shop.utilis;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hashed timing wheel (Varghese &amp; Lauck), the same design as Netty's HashedWheelTimer.
+ *
+ * Time is cut into ticks and the wheel has one bucket per tick, wrapping around. A timeout is
+ * hashed into the bucket of its deadline tick and remembers how many full rotations are left,
+ * so scheduling and cancelling are O(1) no matter how many timeouts are pending. Callers never
+ * touch the buckets: new and cancelled timeouts go through lock-free queues that a single worker
+ * thread drains once per tick, and everything that expired in a tick is handed to the handler
+ * as one batch on that worker thread.
+ */
+public final class TimingWheel<T> implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(TimingWheel.class);
+
+    @FunctionalInterface
+    public interface ExpiryHandler<T> {
+        void expired(List<T> items);
+    }
+
+    private static final int MAX_TRANSFERS_PER_TICK = 100_000;
+
+    private final long tickNanos;
+    private final int mask;
+    private final Bucket<T>[] buckets;
+    private final ExpiryHandler<T> handler;
+    private final Queue<Timeout<T>> additions = new ConcurrentLinkedQueue<>();
+    private final Queue<Timeout<T>> cancellations = new ConcurrentLinkedQueue<>();
+    private final AtomicLong pending = new AtomicLong();
+    private final Thread worker;
+    private final long startNanos;
+    private volatile boolean running = true;
+    private long tick;
+
+    @SuppressWarnings("unchecked")
+    public TimingWheel(String name, long tickDuration, TimeUnit unit, int wheelSize, ExpiryHandler<T> handler) {
+        if (wheelSize < 1 || Integer.bitCount(wheelSize) != 1) {
+            throw new IllegalArgumentException("wheelSize must be a power of two");
+        }
+        this.tickNanos = Math.max(1, unit.toNanos(tickDuration));
+        this.mask = wheelSize - 1;
+        this.buckets = new Bucket[wheelSize];
+        for (int i = 0; i < wheelSize; i++) {
+            buckets[i] = new Bucket<>();
+        }
+        this.handler = handler;
+        this.startNanos = System.nanoTime();
+        this.worker = new Thread(this::run, name);
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    public Timeout<T> schedule(T item, long delay, TimeUnit unit) {
+        if (!running) {
+            throw new IllegalStateException("Timing wheel has been stopped");
+        }
+        long deadline = System.nanoTime() + unit.toNanos(Math.max(0, delay)) - startNanos;
+        Timeout<T> timeout = new Timeout<>(this, item, deadline);
+        pending.incrementAndGet();
+        additions.add(timeout);
+        return timeout;
+    }
+
+    /** Number of timeouts that have neither expired nor been cancelled. */
+    public long pendingCount() {
+        return pending.get();
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        worker.interrupt();
+        try {
+            worker.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void run() {
+        while (running) {
+            if (!waitForNextTick()) {
+                break;
+            }
+            removeCancelled();
+            transferAdditions();
+            List<T> expired = buckets[(int) (tick & mask)].expire();
+            tick++;
+            if (!expired.isEmpty()) {
+                pending.addAndGet(-expired.size());
+                try {
+                    handler.expired(expired);
+                } catch (RuntimeException e) {
+                    // A failing handler must not kill the wheel; the items are simply lost to it.
+                    log.error("Timing wheel {} handler failed, {} items dropped", worker.getName(), expired.size(), e);
+                }
+            }
+        }
+    }
+
+    private boolean waitForNextTick() {
+        long deadline = (tick + 1) * tickNanos;
+        for (;;) {
+            long sleepNanos = deadline - (System.nanoTime() - startNanos);
+            if (sleepNanos <= 0) {
+                return true;
+            }
+            try {
+                TimeUnit.NANOSECONDS.sleep(sleepNanos);
+            } catch (InterruptedException e) {
+                if (!running) {
+                    return false;
+                }
+            }
+        }
+    }
+
+    private void transferAdditions() {
+        for (int i = 0; i < MAX_TRANSFERS_PER_TICK; i++) {
+            Timeout<T> timeout = additions.poll();
+            if (timeout == null) {
+                return;
+            }
+            if (timeout.state.get() != Timeout.WAITING) {
+                continue; // Cancelled before it even reached the wheel
+            }
+            long deadlineTick = timeout.deadline / tickNanos;
+            timeout.remainingRounds = (deadlineTick - tick) / buckets.length;
+            // Deadlines already in the past go into the current bucket and expire right away
+            long targetTick = Math.max(deadlineTick, tick);
+            buckets[(int) (targetTick & mask)].add(timeout);
+        }
+    }
+
+    private void removeCancelled() {
+        Timeout<T> timeout;
+        while ((timeout = cancellations.poll()) != null) {
+            if (timeout.bucket != null) {
+                timeout.bucket.remove(timeout);
+            }
+        }
+    }
+
+    /** Handle to a scheduled item. */
+    public static final class Timeout<T> {
+        private static final int WAITING = 0;
+        private static final int CANCELLED = 1;
+        private static final int EXPIRED = 2;
+
+        private final TimingWheel<T> wheel;
+        private final T item;
+        private final long deadline;
+        private final AtomicInteger state = new AtomicInteger(WAITING);
+
+        // Only touched by the worker thread
+        private long remainingRounds;
+        private Bucket<T> bucket;
+        private Timeout<T> prev;
+        private Timeout<T> next;
+
+        private Timeout(TimingWheel<T> wheel, T item, long deadline) {
+            this.wheel = wheel;
+            this.item = item;
+            this.deadline = deadline;
+        }
+
+        public T item() {
+            return item;
+        }
+
+        /**
+         * @return true if this call prevented the expiry, false if it had already expired or been cancelled
+         */
+        public boolean cancel() {
+            if (!state.compareAndSet(WAITING, CANCELLED)) {
+                return false;
+            }
+            wheel.pending.decrementAndGet();
+            wheel.cancellations.add(this);
+            return true;
+        }
+
+        public boolean isExpired() {
+            return state.get() == EXPIRED;
+        }
+    }
+
+    private static final class Bucket<T> {
+        private Timeout<T> head;
+        private Timeout<T> tail;
+
+        void add(Timeout<T> timeout) {
+            timeout.bucket = this;
+            if (head == null) {
+                head = tail = timeout;
+            } else {
+                tail.next = timeout;
+                timeout.prev = tail;
+                tail = timeout;
+            }
+        }
+
+        void remove(Timeout<T> timeout) {
+            Timeout<T> next = timeout.next;
+            if (timeout.prev != null) {
+                timeout.prev.next = next;
+            }
+            if (next != null) {
+                next.prev = timeout.prev;
+            }
+            if (timeout == head) {
+                head = next;
+            }
+            if (timeout == tail) {
+                tail = timeout.prev;
+            }
+            timeout.prev = null;
+            timeout.next = null;
+            timeout.bucket = null;
+        }
+
+        List<T> expire() {
+            List<T> expired = new ArrayList<>();
+            Timeout<T> timeout = head;
+            while (timeout != null) {
+                Timeout<T> next = timeout.next;
+                if (timeout.remainingRounds <= 0) {
+                    remove(timeout);
+                    if (timeout.state.compareAndSet(Timeout.WAITING, Timeout.EXPIRED)) {
+                        expired.add(timeout.item);
+                    }
+                } else if (timeout.state.get() == Timeout.CANCELLED) {
+                    remove(timeout);
+                } else {
+                    timeout.remainingRounds--;
+                }
+                timeout = next;
+            }
+            return expired;
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.Sweet_Shop.utilis;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free token bucket.
+ *
+ * Instead of storing a token count plus a refill timestamp (two fields that would need a lock
+ * to update together) the bucket stores a single "theoretical arrival time": the instant at
+ * which the bucket would be completely full again. Taking a token pushes that instant forward
+ * by one refill interval, and a request is allowed as long as the instant stays within
+ * capacity * interval of now. This is the same behaviour as a classic token bucket, but every
+ * acquire is a single CAS on one long.
+ */
+public final class TokenBucket {
+
+    private final long nanosPerToken;
+    private final long burstNanos;
+    private final AtomicLong fullAt;
+
+    public TokenBucket(long capacity, double refillPerSecond, long nowNanos) {
+        if (capacity < 1 || refillPerSecond <= 0) {
+            throw new IllegalArgumentException("capacity must be >= 1 and refillPerSecond > 0");
+        }
+        this.nanosPerToken = Math.max(1L, (long) (1_000_000_000L / refillPerSecond));
+        this.burstNanos = capacity * nanosPerToken;
+        this.fullAt = new AtomicLong(nowNanos);
+    }
+
+    /**
+     * Tries to take one token.
+     *
+     * @return 0 if the token was taken, otherwise the number of nanoseconds until one is available
+     */
+    public long tryAcquire(long nowNanos) {
+        for (;;) {
+            long current = fullAt.get();
+            long next = (current - nowNanos > 0 ? current : nowNanos) + nanosPerToken;
+            long debt = next - nowNanos;
+            if (debt > burstNanos) {
+                return debt - burstNanos;
+            }
+            if (fullAt.compareAndSet(current, next)) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * A bucket that has refilled completely is indistinguishable from a brand new one,
+     * so it can be dropped from any map without changing behaviour.
+     */
+    public boolean isFull(long nowNanos) {
+        return fullAt.get() - nowNanos <= 0;
+    }
+}
@@ -0,0 +1,66 @@
+-- The schema as Hibernate's ddl-auto=update and schema.sql left it, so existing databases can be
+-- baselined at version 1 (spring.flyway.baseline-on-migrate) and new ones get the same tables.
+
+CREATE TABLE IF NOT EXISTS users (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    username VARCHAR(255),
+    password VARCHAR(255),
+    email VARCHAR(255),
+    role VARCHAR(255)
+);
+
+CREATE TABLE IF NOT EXISTS sweets (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    name VARCHAR(255),
+    category VARCHAR(255),
+    price DOUBLE PRECISION NOT NULL,
+    quantity INTEGER NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS reservations (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    sweet_id BIGINT NOT NULL,
+    username VARCHAR(255) NOT NULL,
+    quantity INTEGER NOT NULL,
+    expires_at TIMESTAMP(6) WITH TIME ZONE NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_reservations_username ON reservations (username);
+
+CREATE TABLE IF NOT EXISTS stores (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    name VARCHAR(255),
+    latitude DOUBLE PRECISION NOT NULL,
+    longitude DOUBLE PRECISION NOT NULL
+);
+
+-- Per-store stock, hash-partitioned by store so stores never share rows, locks or index pages
+CREATE TABLE IF NOT EXISTS store_stock (
+    store_id BIGINT NOT NULL,
+    sweet_id BIGINT NOT NULL,
+    quantity INTEGER NOT NULL CHECK (quantity >= 0),
+    PRIMARY KEY (store_id, sweet_id)
+) PARTITION BY HASH (store_id);
+
+CREATE TABLE IF NOT EXISTS store_stock_p0 PARTITION OF store_stock FOR VALUES WITH (MODULUS 8, REMAINDER 0);
+CREATE TABLE IF NOT EXISTS store_stock_p1 PARTITION OF store_stock FOR VALUES WITH (MODULUS 8, REMAINDER 1);
+CREATE TABLE IF NOT EXISTS store_stock_p2 PARTITION OF store_stock FOR VALUES WITH (MODULUS 8, REMAINDER 2);
+CREATE TABLE IF NOT EXISTS store_stock_p3 PARTITION OF store_stock FOR VALUES WITH (MODULUS 8, REMAINDER 3);
+CREATE TABLE IF NOT EXISTS store_stock_p4 PARTITION OF store_stock FOR VALUES WITH (MODULUS 8, REMAINDER 4);
+CREATE TABLE IF NOT EXISTS store_stock_p5 PARTITION OF store_stock FOR VALUES WITH (MODULUS 8, REMAINDER 5);
+CREATE TABLE IF NOT EXISTS store_stock_p6 PARTITION OF store_stock FOR VALUES WITH (MODULUS 8, REMAINDER 6);
+CREATE TABLE IF NOT EXISTS store_stock_p7 PARTITION OF store_stock FOR VALUES WITH (MODULUS 8, REMAINDER 7);
+
+-- Reloading one sweet's availability reads across all stores
+CREATE INDEX IF NOT EXISTS idx_store_stock_sweet ON store_stock (sweet_id);
+
+CREATE TABLE IF NOT EXISTS promotion_rules (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    name VARCHAR(255),
+    sweet_id BIGINT,
+    category VARCHAR(255),
+    type VARCHAR(255) CHECK (type IN ('PERCENT_OFF', 'AMOUNT_OFF', 'FIXED_PRICE')),
+    amount NUMERIC(12, 2),
+    starts_at TIMESTAMP(6) WITH TIME ZONE,
+    ends_at TIMESTAMP(6) WITH TIME ZONE
+);
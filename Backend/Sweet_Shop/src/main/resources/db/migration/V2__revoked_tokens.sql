@@ -0,0 +1,11 @@
+-- Revoked token ids (jti), kept until the token they name expires (see TokenRevocationService)
+CREATE TABLE revoked_tokens (
+    jti VARCHAR(64) PRIMARY KEY,
+    expires_at TIMESTAMP(6) WITH TIME ZONE NOT NULL,
+    revoked_at TIMESTAMP(6) WITH TIME ZONE NOT NULL DEFAULT now()
+);
+
+-- Other nodes poll for rows newer than the last one they saw
+CREATE INDEX idx_revoked_tokens_revoked_at ON revoked_tokens (revoked_at);
+-- Expired rows are purged in bulk
+CREATE INDEX idx_revoked_tokens_expires_at ON revoked_tokens (expires_at);
@@ -0,0 +1,40 @@
+-- Append-only audit trail: purchases (the per-user purchase history) and admin restocks and deletes.
+-- Range-partitioned by month on the event time, so retention drops whole partitions instead of
+-- deleting rows, and inserts only ever touch the current month's table and indexes. Partitions are
+-- created ahead of time and dropped after audit.retention-months by AuditRetentionService; there is
+-- no default partition, so an event outside every partition fails its batch instead of landing in
+-- a table that would block creating the partition it belongs in.
+CREATE SEQUENCE audit_events_id_seq;
+
+CREATE TABLE audit_events (
+    id BIGINT NOT NULL DEFAULT nextval('audit_events_id_seq'),
+    occurred_at TIMESTAMP(6) WITH TIME ZONE NOT NULL,
+    actor VARCHAR(255) NOT NULL,
+    action VARCHAR(16) NOT NULL CHECK (action IN ('PURCHASE', 'RESTOCK', 'DELETE')),
+    sweet_id BIGINT NOT NULL,
+    store_id BIGINT,
+    quantity INTEGER NOT NULL,
+    unit_price_cents BIGINT
+) PARTITION BY RANGE (occurred_at);
+
+ALTER SEQUENCE audit_events_id_seq OWNED BY audit_events.id;
+
+-- Keyset pagination of one user's purchases (/api/users/me/purchases), scanned backwards for newest first
+CREATE INDEX idx_audit_events_purchases ON audit_events (actor, occurred_at, id) WHERE action = 'PURCHASE';
+
+-- This month and the next two, so the table takes writes before the application first runs maintenance
+DO $$
+DECLARE
+    month_start DATE := date_trunc('month', now() AT TIME ZONE 'UTC')::date;
+    from_date DATE;
+BEGIN
+    FOR i IN 0..2 LOOP
+        from_date := (month_start + make_interval(months => i))::date;
+        EXECUTE format(
+            'CREATE TABLE IF NOT EXISTS %I PARTITION OF audit_events FOR VALUES FROM (%L) TO (%L)',
+            'audit_events_' || to_char(from_date, '"y"YYYY"m"MM'),
+            from_date || ' 00:00:00+00',
+            (from_date + interval '1 month')::date || ' 00:00:00+00');
+    END LOOP;
+END
+$$;
@@ -0,0 +1,10 @@
+-- Indexes for catalog search (SweetCatalogRepositoryImpl.findRows); QueryPlanTests fails if the
+-- search or purchase queries go back to sequential scans of sweets.
+
+-- Exact category match
+CREATE INDEX IF NOT EXISTS idx_sweets_category ON sweets (category);
+
+-- Name search is lower(name) LIKE '%term%'; the leading wildcard rules out a b-tree, a trigram
+-- index answers it. pg_trgm is a trusted extension, so the database owner can install it.
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+CREATE INDEX IF NOT EXISTS idx_sweets_name_trgm ON sweets USING gin (lower(name) gin_trgm_ops);
@@ -0,0 +1,3 @@
+-- Price search (SweetCatalogRepositoryImpl.findRows with a PriceFilter) turns effective-price
+-- bounds into ranges on the stored price; QueryPlanTests checks that they are answered by this index.
+CREATE INDEX IF NOT EXISTS idx_sweets_price ON sweets (price);
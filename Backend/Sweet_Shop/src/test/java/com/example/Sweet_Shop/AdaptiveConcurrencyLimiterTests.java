@@ -0,0 +1,82 @@
+package com.example.Sweet_Shop;
+
+import com.example.Sweet_Shop.utilis.AdaptiveConcurrencyLimiter;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The limiter's reaction to latency samples, fed in directly: no threads, sleeps or clocks, so
+ * the outcome is the same on any machine. Goodput under overload, limiter on against off, is
+ * measured end to end by benchmark/AdmissionGoodputBenchmark.
+ */
+public class AdaptiveConcurrencyLimiterTests {
+
+    private static final long MILLI = TimeUnit.MILLISECONDS.toNanos(1);
+
+    @Test
+    void whenLatencyStaysAtBaselineNearTheLimit_thenLimitGrows() throws Exception {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(10, 1, 100, 0);
+        for (int i = 0; i < 10; i++) {
+            assertTrue(limiter.tryAcquire(0, TimeUnit.MILLISECONDS));
+        }
+        for (int i = 0; i < 10; i++) {
+            limiter.release(MILLI, false);
+        }
+        assertTrue(limiter.getLimit() > 10, "limit was " + limiter.getLimit());
+    }
+
+    @Test
+    void whenLatencyRisesFarAboveBaseline_thenLimitShrinksButNotBelowMinimum() throws Exception {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(50, 2, 100, 0);
+        sample(limiter, MILLI);
+        for (int i = 0; i < 200; i++) {
+            sample(limiter, 10 * MILLI); // Nine tenths of every request is queueing
+        }
+        assertTrue(limiter.getLimit() < 50, "limit was " + limiter.getLimit());
+        assertTrue(limiter.getLimit() >= 2);
+    }
+
+    @Test
+    void whenWorkIsDropped_thenLimitBacksOffMultiplicatively() throws Exception {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(20, 1, 100, 0);
+        assertTrue(limiter.tryAcquire(0, TimeUnit.MILLISECONDS));
+        limiter.release(MILLI, true);
+        assertEquals(18, limiter.getLimit());
+    }
+
+    @Test
+    void whenLimitReachedAndNoQueue_thenCallersAreRejectedAtOnce() throws Exception {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(1, 1, 1, 0);
+        assertTrue(limiter.tryAcquire(0, TimeUnit.MILLISECONDS));
+        assertFalse(limiter.tryAcquire(1, TimeUnit.SECONDS));
+        assertEquals(1, limiter.getRejected());
+
+        limiter.release(MILLI, false);
+        assertTrue(limiter.tryAcquire(0, TimeUnit.MILLISECONDS));
+        assertEquals(2, limiter.getAdmitted());
+    }
+
+    @Test
+    void whenMinimumIsReset_thenItIsReseededFromTheWindowsLowestSample() throws Exception {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(10, 1, 100, 0);
+        // First window of 500 samples: the baseline is 1 ms
+        for (int i = 0; i < 500; i++) {
+            sample(limiter, MILLI);
+        }
+        assertEquals(MILLI, limiter.getMinRttNanos());
+
+        // Second window under load: 5 ms, with a single 2 ms sample early on, ending on a 5 ms one
+        for (int i = 0; i < 500; i++) {
+            sample(limiter, i == 10 ? 2 * MILLI : 5 * MILLI);
+        }
+        assertEquals(2 * MILLI, limiter.getMinRttNanos());
+    }
+
+    private static void sample(AdaptiveConcurrencyLimiter limiter, long rttNanos) throws InterruptedException {
+        assertTrue(limiter.tryAcquire(0, TimeUnit.MILLISECONDS));
+        limiter.release(rttNanos, false);
+    }
+}
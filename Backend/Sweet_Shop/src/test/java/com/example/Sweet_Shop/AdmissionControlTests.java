@@ -0,0 +1,65 @@
+package com.example.Sweet_Shop;
+
+import com.example.Sweet_Shop.service.JwtUtil;
+import com.example.Sweet_Shop.utilis.AdaptiveConcurrencyLimiter;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// A write limit of one with no queue, so holding the single permit here makes every write shed
+@SpringBootTest(properties = {
+        "rate-limit.enabled=false",
+        "admission.initial-limit=1",
+        "admission.min-limit=1",
+        "admission.max-limit=1",
+        "admission.max-queue=0",
+        "admission.max-wait-ms=0"})
+@AutoConfigureMockMvc
+@Transactional
+public class AdmissionControlTests {
+
+    private static final String SWEET_JSON = "{\"name\":\"Peda\", \"category\":\"Milk\", \"price\":1.50, \"quantity\":10}";
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private AdaptiveConcurrencyLimiter writeLimiter;
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    @Test
+    void whenWriteLimitIsReached_thenWritesGet503AndReadsStillPass() throws Exception {
+        String token = jwtUtil.generateToken("admissionuser", "ROLE_USER");
+        assertTrue(writeLimiter.tryAcquire(0, TimeUnit.MILLISECONDS));
+        try {
+            mockMvc.perform(post("/api/sweets")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(SWEET_JSON)
+                            .header("Authorization", "Bearer " + token))
+                    .andExpect(status().isServiceUnavailable())
+                    .andExpect(header().string("Retry-After", "1"));
+            mockMvc.perform(get("/api/sweets").header("Authorization", "Bearer " + token))
+                    .andExpect(status().isOk());
+        } finally {
+            writeLimiter.release(0, false);
+        }
+
+        mockMvc.perform(post("/api/sweets")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(SWEET_JSON)
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(status().isCreated());
+    }
+}
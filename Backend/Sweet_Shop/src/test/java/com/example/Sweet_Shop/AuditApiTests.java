@@ -0,0 +1,139 @@
+package com.example.Sweet_Shop;
+
+import com.example.Sweet_Shop.model.Store;
+import com.example.Sweet_Shop.model.Sweet;
+import com.example.Sweet_Shop.repository.StoreRepository;
+import com.example.Sweet_Shop.repository.SweetRepository;
+import com.example.Sweet_Shop.service.JwtUtil;
+import com.example.Sweet_Shop.service.StoreInventoryService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.jupiter.api.Assertions.fail;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Not @Transactional: purchases are audited by a writer thread that commits on its own
+@SpringBootTest(properties = {"rate-limit.enabled=false", "audit.linger-ms=20"})
+@AutoConfigureMockMvc
+public class AuditApiTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private SweetRepository sweetRepository;
+    @Autowired
+    private StoreRepository storeRepository;
+    @Autowired
+    private StoreInventoryService storeInventoryService;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    private final String username = "auditor-" + UUID.randomUUID();
+    private Sweet sweet;
+    private Store store;
+
+    @BeforeEach
+    void setUp() {
+        sweet = sweetRepository.save(new Sweet("Sandesh", "Audited", 2.5, 10));
+        store = storeInventoryService.createStore(new Store("Kolkata", 22.57, 88.36));
+        storeInventoryService.restock(store.getId(), sweet.getId(), 5);
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("delete from store_stock where sweet_id = ?", sweet.getId());
+        sweetRepository.deleteById(sweet.getId());
+        storeRepository.deleteById(store.getId());
+    }
+
+    private String userToken() {
+        return "Bearer " + jwtUtil.generateToken(username, "ROLE_USER");
+    }
+
+    @Test
+    void whenPurchasedFromCatalogAndStore_thenBothAppearInMyHistoryWithTheirPrice() throws Exception {
+        mockMvc.perform(post("/api/sweets/" + sweet.getId() + "/purchase").header("Authorization", userToken()))
+                .andExpect(status().isOk());
+        mockMvc.perform(post("/api/stores/" + store.getId() + "/sweets/" + sweet.getId() + "/purchase?quantity=2")
+                        .header("Authorization", userToken()))
+                .andExpect(status().isOk());
+        awaitHistorySize(2);
+
+        mockMvc.perform(get("/api/users/me/purchases").header("Authorization", userToken()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.purchases", hasSize(2)))
+                .andExpect(jsonPath("$.purchases[0].storeId", is(store.getId().intValue())))
+                .andExpect(jsonPath("$.purchases[0].quantity", is(2)))
+                .andExpect(jsonPath("$.purchases[0].unitPrice", is(2.5)))
+                .andExpect(jsonPath("$.purchases[1].storeId", nullValue()))
+                .andExpect(jsonPath("$.purchases[1].quantity", is(1)))
+                .andExpect(jsonPath("$.purchases[1].unitPrice", is(2.5)))
+                .andExpect(jsonPath("$.nextCursor", nullValue()));
+    }
+
+    @Test
+    void whenHistoryIsPaged_thenTheCursorLeadsToTheOlderPurchases() throws Exception {
+        mockMvc.perform(post("/api/sweets/" + sweet.getId() + "/purchase").header("Authorization", userToken()))
+                .andExpect(status().isOk());
+        mockMvc.perform(post("/api/stores/" + store.getId() + "/sweets/" + sweet.getId() + "/purchase")
+                        .header("Authorization", userToken()))
+                .andExpect(status().isOk());
+        awaitHistorySize(2);
+
+        String body = mockMvc.perform(get("/api/users/me/purchases?limit=1").header("Authorization", userToken()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.purchases", hasSize(1)))
+                .andExpect(jsonPath("$.nextCursor", notNullValue()))
+                .andReturn().getResponse().getContentAsString();
+        String cursor = (String) objectMapper.readValue(body, Map.class).get("nextCursor");
+
+        mockMvc.perform(get("/api/users/me/purchases").param("limit", "1").param("before", cursor)
+                        .header("Authorization", userToken()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.purchases", hasSize(1)))
+                .andExpect(jsonPath("$.purchases[0].storeId", nullValue()))
+                .andExpect(jsonPath("$.nextCursor", nullValue()));
+    }
+
+    @Test
+    void whenCursorIsGarbageOrCallerAnonymous_thenRejected() throws Exception {
+        mockMvc.perform(get("/api/users/me/purchases?before=garbage").header("Authorization", userToken()))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/users/me/purchases"))
+                .andExpect(status().isUnauthorized());
+    }
+
+    private void awaitHistorySize(int size) throws Exception {
+        for (int attempt = 0; attempt < 100; attempt++) {
+            String body = mockMvc.perform(get("/api/users/me/purchases").header("Authorization", userToken()))
+                    .andReturn().getResponse().getContentAsString();
+            if (((List<?>) objectMapper.readValue(body, Map.class).get("purchases")).size() >= size) {
+                return;
+            }
+            Thread.sleep(50);
+        }
+        fail("Audit events were not written within 5 seconds");
+    }
+}
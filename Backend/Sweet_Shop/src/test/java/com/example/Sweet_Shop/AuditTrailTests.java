@@ -0,0 +1,112 @@
+package com.example.Sweet_Shop;
+
+import com.example.Sweet_Shop.dto.PurchaseHistoryPage;
+import com.example.Sweet_Shop.dto.PurchaseRecord;
+import com.example.Sweet_Shop.service.AuditRetentionService;
+import com.example.Sweet_Shop.service.AuditTrailService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Not @Transactional: the audit writer inserts on its own thread and commits on its own
+@SpringBootTest(properties = {"rate-limit.enabled=false", "audit.linger-ms=20"})
+public class AuditTrailTests {
+
+    @Autowired
+    private AuditTrailService auditTrailService;
+    @Autowired
+    private AuditRetentionService auditRetentionService;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void whenPurchasesRecorded_thenHistoryPagesNewestFirstWithoutGapsOrRepeats() throws Exception {
+        String username = "audit-" + UUID.randomUUID();
+        for (int i = 1; i <= 7; i++) {
+            auditTrailService.recordPurchase(username, i, null, 1, 100L * i);
+        }
+        auditTrailService.recordRestock(username, 1, null, 50); // Not a purchase, never in the history
+        awaitHistorySize(username, 7);
+
+        List<PurchaseRecord> seen = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            PurchaseHistoryPage page = auditTrailService.purchaseHistory(username, cursor, 3);
+            seen.addAll(page.purchases());
+            cursor = page.nextCursor();
+            pages++;
+        } while (cursor != null);
+
+        assertEquals(3, pages);
+        assertEquals(List.of(7L, 6L, 5L, 4L, 3L, 2L, 1L), seen.stream().map(PurchaseRecord::sweetId).toList());
+        assertEquals(0, new BigDecimal("7.00").compareTo(seen.get(0).unitPrice()));
+        assertTrue(auditTrailService.purchaseHistory("nobody-" + UUID.randomUUID(), null, 3).purchases().isEmpty());
+    }
+
+    @Test
+    void whenCursorIsNotOneWeIssued_thenRejected() {
+        assertThrows(IllegalArgumentException.class, () -> auditTrailService.purchaseHistory("someone", "garbage", 10));
+    }
+
+    @Test
+    void whenMaintenanceRuns_thenPartitionsExistAheadAndExpiredOnesAreDropped() {
+        YearMonth current = YearMonth.now(ZoneOffset.UTC);
+        DateTimeFormatter suffix = DateTimeFormatter.ofPattern("'y'yyyy'm'MM");
+        // A partition from long before the retention period, as if the application had been down since
+        String expired = "audit_events_" + current.minusYears(5).format(suffix);
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + expired + " PARTITION OF audit_events FOR VALUES FROM ('"
+                + current.minusYears(5).atDay(1) + " 00:00:00+00') TO ('"
+                + current.minusYears(5).plusMonths(1).atDay(1) + " 00:00:00+00')");
+
+        auditRetentionService.maintain();
+
+        for (int i = 0; i <= 2; i++) {
+            assertTrue(tableExists("audit_events_" + current.plusMonths(i).format(suffix)));
+        }
+        assertFalse(tableExists(expired));
+    }
+
+    @Test
+    void whenAnEarlierRunDetachedButDidNotDrop_thenTheDetachedTableIsDropped() {
+        DateTimeFormatter suffix = DateTimeFormatter.ofPattern("'y'yyyy'm'MM");
+        YearMonth month = YearMonth.now(ZoneOffset.UTC).minusYears(6);
+        String detached = "audit_events_" + month.format(suffix);
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + detached + " PARTITION OF audit_events FOR VALUES FROM ('"
+                + month.atDay(1) + " 00:00:00+00') TO ('" + month.plusMonths(1).atDay(1) + " 00:00:00+00')");
+        jdbcTemplate.execute("ALTER TABLE audit_events DETACH PARTITION " + detached);
+        // A table that merely looks similar is left alone
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS audit_events_yearly (id BIGINT)");
+
+        auditRetentionService.maintain();
+
+        assertFalse(tableExists(detached));
+        assertTrue(tableExists("audit_events_yearly"));
+        jdbcTemplate.execute("DROP TABLE audit_events_yearly");
+    }
+
+    private boolean tableExists(String name) {
+        return jdbcTemplate.queryForObject("SELECT to_regclass(?) IS NOT NULL", Boolean.class, name);
+    }
+
+    private void awaitHistorySize(String username, int size) throws InterruptedException {
+        for (int attempt = 0; attempt < 100; attempt++) {
+            if (auditTrailService.purchaseHistory(username, null, size + 1).purchases().size() >= size) {
+                return;
+            }
+            Thread.sleep(50);
+        }
+        fail("Audit events were not written within 5 seconds");
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.Sweet_Shop;
+
+import com.example.Sweet_Shop.model.Sweet;
+import com.example.Sweet_Shop.repository.SweetRepository;
+import com.example.Sweet_Shop.service.CatalogVersion;
+import com.example.Sweet_Shop.service.ClusterInvalidationBus;
+import com.example.Sweet_Shop.service.SweetService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Two application nodes against the same Postgres: a write on one must change the ETags on the other.
+ */
+public class ClusterInvalidationTests {
+
+    private ConfigurableApplicationContext nodeA;
+    private ConfigurableApplicationContext nodeB;
+
+    @BeforeEach
+    void startNodes() {
+        nodeA = startNode();
+        nodeB = startNode();
+    }
+
+    @AfterEach
+    void stopNodes() {
+        if (nodeA != null) {
+            nodeA.close();
+        }
+        if (nodeB != null) {
+            nodeB.close();
+        }
+    }
+
+    private static ConfigurableApplicationContext startNode() {
+        return new SpringApplicationBuilder(SweetShopApplication.class)
+                .properties("server.port=0", "cluster.invalidation.enabled=true",
+                        "cluster.invalidation.channel=sweet_changes_test")
+                .run();
+    }
+
+    @Test
+    void whenSweetPurchasedOnOneNode_thenOtherNodeSeesNewVersion() throws Exception {
+        Sweet sweet = nodeA.getBean(SweetRepository.class).save(new Sweet("Peda", "North Indian", 1.0, 5));
+        try {
+            // The listener resyncs once when it connects; wait for that so it can't be mistaken for our change
+            ClusterInvalidationBus busOnB = nodeB.getBean(ClusterInvalidationBus.class);
+            long connectDeadline = System.currentTimeMillis() + 5_000;
+            while ((long) busOnB.getStats().get("resyncs") == 0 && System.currentTimeMillis() < connectDeadline) {
+                Thread.sleep(20);
+            }
+            CatalogVersion versionOnB = nodeB.getBean(CatalogVersion.class);
+            String sweetEtagBefore = versionOnB.sweetEtag(sweet.getId());
+            String catalogEtagBefore = versionOnB.catalogEtag();
+
+            nodeA.getBean(SweetService.class).purchaseSweet(sweet.getId());
+
+            long deadline = System.currentTimeMillis() + 5_000;
+            while (versionOnB.sweetEtag(sweet.getId()).equals(sweetEtagBefore) && System.currentTimeMillis() < deadline) {
+                Thread.sleep(20);
+            }
+            assertNotEquals(sweetEtagBefore, versionOnB.sweetEtag(sweet.getId()));
+            assertNotEquals(catalogEtagBefore, versionOnB.catalogEtag());
+            assertTrue((long) nodeB.getBean(ClusterInvalidationBus.class).getStats().get("messagesReceived") > 0);
+        } finally {
+            nodeA.getBean(SweetRepository.class).deleteById(sweet.getId());
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.Sweet_Shop;
+
+import com.example.Sweet_Shop.model.Sweet;
+import com.example.Sweet_Shop.model.User;
+import com.example.Sweet_Shop.repository.SweetRepository;
+import com.example.Sweet_Shop.repository.UserRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.Map;
+
+import static org.hamcrest.Matchers.is;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Not @Transactional: ETags only move once a write has committed, which a rolled-back test never does
+@SpringBootTest(properties = "rate-limit.enabled=false")
+@AutoConfigureMockMvc
+public class ConditionalGetTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private SweetRepository sweetRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    private User user;
+    private Sweet sweet;
+    private String token;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        user = userRepository.save(new User("etaguser", passwordEncoder.encode("password123"), "etag@example.com", "ROLE_USER"));
+        sweet = sweetRepository.save(new Sweet("Kaju Katli", "North Indian", 7.50, 10));
+        String body = mockMvc.perform(post("/api/auth/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"username\":\"etaguser\", \"password\":\"password123\"}"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        token = (String) objectMapper.readValue(body, Map.class).get("token");
+    }
+
+    @AfterEach
+    void tearDown() {
+        sweetRepository.deleteById(sweet.getId());
+        userRepository.deleteById(user.getId());
+    }
+
+    @Test
+    void whenSweetPurchasedAfterEtagIssued_thenGetSweetReturnsFreshCopy() throws Exception {
+        String etag = mockMvc.perform(get("/api/sweets/" + sweet.getId())
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+
+        mockMvc.perform(post("/api/sweets/" + sweet.getId() + "/purchase")
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/api/sweets/" + sweet.getId())
+                        .header("Authorization", "Bearer " + token)
+                        .header("If-None-Match", etag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.quantity", is(9)));
+    }
+}
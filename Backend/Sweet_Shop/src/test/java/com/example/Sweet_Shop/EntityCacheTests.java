@@ -0,0 +1,81 @@
+package com.example.Sweet_Shop;
+
+import com.example.Sweet_Shop.model.Sweet;
+import com.example.Sweet_Shop.repository.SweetRepository;
+import com.example.Sweet_Shop.service.EntityCacheService;
+import com.example.Sweet_Shop.service.SweetService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// Not @Transactional: the second-level cache is only filled and invalidated by committed transactions
+@SpringBootTest
+public class EntityCacheTests {
+
+    @Autowired
+    private SweetService sweetService;
+    @Autowired
+    private SweetRepository sweetRepository;
+    @Autowired
+    private EntityCacheService entityCacheService;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+    private Sweet sweet;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        sweet = sweetRepository.save(new Sweet("Peda", "North Indian", 3.0, 10));
+    }
+
+    @AfterEach
+    void tearDown() {
+        sweetRepository.deleteById(sweet.getId());
+    }
+
+    @Test
+    void whenSweetLoadedTwice_thenSecondLoadSkipsTheDatabase() {
+        sweetService.getSweet(sweet.getId());
+        long statementsBefore = statistics.getPrepareStatementCount();
+
+        Sweet cached = sweetService.getSweet(sweet.getId()).orElseThrow();
+
+        assertEquals(statementsBefore, statistics.getPrepareStatementCount());
+        assertEquals(10, cached.getQuantity());
+    }
+
+    @Test
+    void whenStockChanges_thenCachedSweetIsNotServed() {
+        sweetService.getSweet(sweet.getId());
+
+        sweetService.purchaseSweet(sweet.getId());
+
+        assertEquals(9, sweetService.getSweet(sweet.getId()).orElseThrow().getQuantity());
+    }
+
+    @Test
+    void whenAnotherNodeChangesStock_thenEvictionMakesTheChangeVisible() {
+        sweetService.getSweet(sweet.getId());
+        // Behind Hibernate's back, the way a write on another node looks from here
+        jdbcTemplate.update("update sweets set quantity = 3 where id = ?", sweet.getId());
+        assertEquals(10, sweetService.getSweet(sweet.getId()).orElseThrow().getQuantity());
+
+        entityCacheService.evictSweets(List.of(sweet.getId()));
+
+        assertEquals(3, sweetService.getSweet(sweet.getId()).orElseThrow().getQuantity());
+    }
+}
@@ -0,0 +1,131 @@
+package com.example.Sweet_Shop;
+
+import com.example.Sweet_Shop.dto.SweetView;
+import com.example.Sweet_Shop.exception.InvalidPromotionException;
+import com.example.Sweet_Shop.model.PromotionRule;
+import com.example.Sweet_Shop.model.PromotionType;
+import com.example.Sweet_Shop.model.Sweet;
+import com.example.Sweet_Shop.repository.SweetRepository;
+import com.example.Sweet_Shop.service.CatalogVersion;
+import com.example.Sweet_Shop.service.PricingService;
+import com.example.Sweet_Shop.service.SweetService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Not @Transactional: rules are read back from the database when the price index is rebuilt
+@SpringBootTest
+public class PricingTests {
+
+    // Pricing reads the time from this clock, so promotion windows open and close when a test says
+    @TestConfiguration
+    static class ClockConfig {
+        @Bean
+        TestClock testClock() {
+            return new TestClock();
+        }
+    }
+
+    @Autowired
+    private PricingService pricingService;
+    @Autowired
+    private SweetService sweetService;
+    @Autowired
+    private SweetRepository sweetRepository;
+    @Autowired
+    private CatalogVersion catalogVersion;
+    @Autowired
+    private TestClock clock;
+
+    private final List<Long> createdRules = new ArrayList<>();
+    private String category;
+    private Sweet sweet;
+
+    @BeforeEach
+    void setUp() {
+        category = "Pricing " + System.nanoTime();
+        sweet = sweetRepository.save(new Sweet("Soan Papdi", category, 10.00, 50));
+    }
+
+    @AfterEach
+    void tearDown() {
+        createdRules.forEach(pricingService::deleteRule);
+        sweetRepository.deleteById(sweet.getId());
+    }
+
+    private void addRule(Long sweetId, String category, PromotionType type, String amount, Instant start, Instant end) {
+        PromotionRule rule = pricingService.createRule(
+                new PromotionRule("test", sweetId, category, type, new BigDecimal(amount), start, end));
+        createdRules.add(rule.getId());
+    }
+
+    private BigDecimal effectivePrice() {
+        return sweetService.getSweet(sweet.getId()).orElseThrow().getEffectivePrice();
+    }
+
+    @Test
+    void whenBothCategoryAndSweetDiscountsApply_thenOnlyTheBestOneCounts() {
+        Instant now = clock.instant();
+        addRule(null, category, PromotionType.PERCENT_OFF, "20", now.minusSeconds(60), null);
+        assertEquals(new BigDecimal("8.00"), effectivePrice());
+
+        addRule(sweet.getId(), null, PromotionType.AMOUNT_OFF, "3.00", now.minusSeconds(60), now.plusSeconds(3600));
+        assertEquals(new BigDecimal("7.00"), effectivePrice());
+    }
+
+    @Test
+    void whenSearchingByPrice_thenBoundsApplyToTheEffectivePrice() {
+        addRule(null, category, PromotionType.FIXED_PRICE, "4.50", clock.instant().minusSeconds(60), null);
+
+        assertTrue(sweetService.searchSweets(null, category, 5.0, null).isEmpty());
+        List<SweetView> cheap = sweetService.searchSweets(null, category, null, 4.5);
+        assertEquals(1, cheap.size());
+        assertEquals(new BigDecimal("4.50"), cheap.get(0).effectivePrice());
+    }
+
+    @Test
+    void whenPromotionWindowOpensAndCloses_thenPriceAndCatalogVersionFollow() {
+        Instant start = clock.instant().plus(Duration.ofHours(1));
+        addRule(sweet.getId(), null, PromotionType.PERCENT_OFF, "50", start, start.plus(Duration.ofHours(2)));
+        long versionBefore = catalogVersion.current();
+        assertEquals(new BigDecimal("10.00"), effectivePrice());
+
+        // What the scheduler does when it wakes at each boundary
+        clock.advance(Duration.ofHours(1));
+        pricingService.refresh();
+        assertEquals(new BigDecimal("5.00"), effectivePrice());
+        assertTrue(catalogVersion.current() > versionBefore);
+
+        clock.advance(Duration.ofHours(2));
+        pricingService.refresh();
+        assertEquals(new BigDecimal("10.00"), effectivePrice());
+    }
+
+    @Test
+    void whenPriceBoundIsNotFinite_thenSearchIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> sweetService.searchSweets(null, category, Double.NaN, null));
+        assertThrows(IllegalArgumentException.class,
+                () -> sweetService.searchSweets(null, category, null, Double.POSITIVE_INFINITY));
+    }
+
+    @Test
+    void whenRuleTargetsNeitherOrBoth_thenItIsRejected() {
+        Instant now = clock.instant();
+        assertThrows(InvalidPromotionException.class, () -> pricingService.createRule(
+                new PromotionRule("bad", null, null, PromotionType.AMOUNT_OFF, BigDecimal.ONE, now, null)));
+        assertThrows(InvalidPromotionException.class, () -> pricingService.createRule(
+                new PromotionRule("bad", sweet.getId(), category, PromotionType.AMOUNT_OFF, BigDecimal.ONE, now, null)));
+    }
+}
@@ -0,0 +1,117 @@
+package com.example.Sweet_Shop;
+
+import com.example.Sweet_Shop.exception.InvalidPurchaseException;
+import com.example.Sweet_Shop.model.Sweet;
+import com.example.Sweet_Shop.repository.SweetRepository;
+import com.example.Sweet_Shop.service.PurchaseQueue;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Not @Transactional: batches are committed on the queue's own writer threads
+@SpringBootTest(properties = "purchase.mode=queued")
+public class PurchaseQueueTests {
+
+    @Autowired
+    private PurchaseQueue purchaseQueue;
+    @Autowired
+    private SweetRepository sweetRepository;
+
+    private final List<Long> createdSweets = new ArrayList<>();
+
+    @AfterEach
+    void cleanUp() {
+        sweetRepository.deleteAllById(createdSweets);
+    }
+
+    private Sweet createSweet(int quantity) {
+        Sweet sweet = sweetRepository.save(new Sweet("Jalebi", "North Indian", 1.0, quantity));
+        createdSweets.add(sweet.getId());
+        return sweet;
+    }
+
+    @Test
+    void whenManyBuyersRaceForLastUnits_thenExactlyTheStockIsSold() throws Exception {
+        Sweet sweet = createSweet(25);
+        int buyers = 100;
+        ExecutorService pool = Executors.newFixedThreadPool(buyers);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger bought = new AtomicInteger();
+        AtomicInteger outOfStock = new AtomicInteger();
+        for (int i = 0; i < buyers; i++) {
+            pool.execute(() -> {
+                try {
+                    start.await();
+                    purchaseQueue.purchase(sweet.getId());
+                    bought.incrementAndGet();
+                } catch (InvalidPurchaseException e) {
+                    outOfStock.incrementAndGet();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+        }
+        start.countDown();
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(30, TimeUnit.SECONDS));
+
+        assertEquals(25, bought.get());
+        assertEquals(75, outOfStock.get());
+        assertEquals(0, sweetRepository.findById(sweet.getId()).orElseThrow().getQuantity());
+    }
+
+    @Test
+    void whenStockRunsOutMidBatch_thenEarliestBuyersGetIt() {
+        Sweet sweet = createSweet(3);
+        List<CompletableFuture<Sweet>> futures = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            futures.add(purchaseQueue.submit(sweet.getId()));
+        }
+
+        for (int i = 0; i < 3; i++) {
+            // Remaining stock counts down in submission order
+            assertEquals(2 - i, futures.get(i).join().getQuantity());
+        }
+        for (int i = 3; i < 6; i++) {
+            CompletionException e = assertThrows(CompletionException.class, futures.get(i)::join);
+            assertInstanceOf(InvalidPurchaseException.class, e.getCause());
+        }
+    }
+
+    @Test
+    void whenSweetDoesNotExist_thenPurchaseFailsAsNotFound() {
+        InvalidPurchaseException e = assertThrows(InvalidPurchaseException.class, () -> purchaseQueue.purchase(-1L));
+        assertTrue(e.getMessage().contains("not found"));
+    }
+
+    @Test
+    void whenPurchasesSettle_thenTheirLanesAreDropped() throws Exception {
+        Sweet sweet = createSweet(5);
+        purchaseQueue.purchase(sweet.getId());
+        assertThrows(InvalidPurchaseException.class, () -> purchaseQueue.purchase(-2L));
+
+        // The writer lets the lane go just after completing the batch
+        for (int attempt = 0; attempt < 100 && !activeLanes().equals(0); attempt++) {
+            Thread.sleep(10);
+        }
+        assertEquals(0, activeLanes());
+        assertEquals(3, purchaseQueue.purchase(sweet.getId()).getQuantity());
+    }
+
+    private Object activeLanes() {
+        return purchaseQueue.getStats().get("activeLanes");
+    }
+}
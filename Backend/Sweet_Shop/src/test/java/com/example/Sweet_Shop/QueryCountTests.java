@@ -0,0 +1,118 @@
+package com.example.Sweet_Shop;
+
+import com.example.Sweet_Shop.model.Sweet;
+import com.example.Sweet_Shop.repository.SweetRepository;
+import com.example.Sweet_Shop.service.JwtUtil;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.ResultMatcher;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * The exact number of SQL statements each catalog API call sends, so a change that adds an N+1
+ * or an extra round trip fails here instead of showing up in production. Caches are off, so the
+ * counts are what a call costs when nothing is cached, and the test isn't @Transactional, so each
+ * request runs in its own transaction with an empty persistence context, as in production.
+ * Authentication comes from the token's claims and costs no query.
+ */
+@SpringBootTest(properties = {
+        "rate-limit.enabled=false",
+        "spring.jpa.show-sql=false",
+        "spring.jpa.properties.hibernate.cache.use_second_level_cache=false",
+        "spring.jpa.properties.hibernate.cache.use_query_cache=false",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector=com.example.Sweet_Shop.SqlStatementCounter"})
+@AutoConfigureMockMvc
+public class QueryCountTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private SweetRepository sweetRepository;
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    private final List<Long> seeded = new ArrayList<>();
+    private String userToken;
+    private String adminToken;
+    private Long sweetId;
+
+    @BeforeEach
+    void setUp() {
+        userToken = jwtUtil.generateToken("countuser", "ROLE_USER");
+        adminToken = jwtUtil.generateToken("countadmin", "ROLE_ADMIN");
+        for (int i = 0; i < 5; i++) {
+            seeded.add(sweetRepository.save(new Sweet("Counted " + i, "QueryCount", 2.0 + i, 100)).getId());
+        }
+        sweetId = seeded.get(0);
+    }
+
+    @AfterEach
+    void tearDown() {
+        sweetRepository.deleteAllById(sweetRepository.findAllById(seeded).stream().map(Sweet::getId).toList());
+        seeded.clear();
+    }
+
+    @Test
+    void listingTheCatalogIsOneQueryWhateverItsSize() throws Exception {
+        assertStatements(1, get("/api/sweets").header("Authorization", "Bearer " + userToken), status().isOk());
+    }
+
+    @Test
+    void searchingIsOneQuery() throws Exception {
+        assertStatements(1, get("/api/sweets/search").param("category", "QueryCount").param("name", "counted")
+                .header("Authorization", "Bearer " + userToken), status().isOk());
+    }
+
+    @Test
+    void exportSendsNoHibernateQueries() throws Exception {
+        // Streamed over plain JDBC (CatalogExportService), so nothing through Hibernate at all
+        assertStatements(0, get("/api/sweets/export").header("Authorization", "Bearer " + userToken), status().isOk());
+    }
+
+    @Test
+    void gettingOneSweetIsOneQuery() throws Exception {
+        assertStatements(1, get("/api/sweets/" + sweetId).header("Authorization", "Bearer " + userToken), status().isOk());
+    }
+
+    @Test
+    void purchaseIsOneUpdateAndOneSelect() throws Exception {
+        // The conditional stock UPDATE, then reading the sweet back for the price charged
+        assertStatements(2, post("/api/sweets/" + sweetId + "/purchase").header("Authorization", "Bearer " + userToken),
+                status().isOk());
+    }
+
+    @Test
+    void restockIsOneUpdateAndOneSelect() throws Exception {
+        assertStatements(2, post("/api/sweets/" + sweetId + "/restock")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"quantity\":10}")
+                .header("Authorization", "Bearer " + adminToken), status().isOk());
+    }
+
+    @Test
+    void deleteIsExistenceCheckLoadAndDelete() throws Exception {
+        // existsById, then deleteById loads the entity before removing it
+        assertStatements(3, delete("/api/sweets/" + sweetId).header("Authorization", "Bearer " + adminToken),
+                status().isNoContent());
+    }
+
+    private void assertStatements(int expected, RequestBuilder request, ResultMatcher status) throws Exception {
+        SqlStatementCounter.start();
+        mockMvc.perform(request).andExpect(status);
+        assertEquals(expected, SqlStatementCounter.count(),
+                () -> "Statements sent:\n" + String.join("\n", SqlStatementCounter.statements()));
+    }
+}
@@ -0,0 +1,122 @@
+package com.example.Sweet_Shop;
+
+import com.example.Sweet_Shop.service.SweetService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * The plans Postgres picks for the search and purchase queries, on a sweets table big enough
+ * that a sequential scan is a real cost. Each test runs the service call to capture the SQL
+ * Hibernate actually generates (see SqlStatementCounter), then EXPLAINs that SQL with the same
+ * parameters and fails if any node is a Seq Scan on sweets. The seeded rows and the ANALYZE are
+ * rolled back with the test transaction.
+ */
+@SpringBootTest(properties = {
+        "rate-limit.enabled=false",
+        "spring.jpa.show-sql=false",
+        "spring.jpa.properties.hibernate.cache.use_second_level_cache=false",
+        "spring.jpa.properties.hibernate.cache.use_query_cache=false",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector=com.example.Sweet_Shop.SqlStatementCounter"})
+@Transactional
+public class QueryPlanTests {
+
+    private static final int SEEDED_SWEETS = 20_000;
+
+    @Autowired
+    private SweetService sweetService;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @BeforeEach
+    void seed() {
+        // 200 categories of 100 sweets each, every name unique
+        jdbcTemplate.update("INSERT INTO sweets (name, category, price, quantity) "
+                + "SELECT 'Plan sweet ' || g, 'Plan category ' || (g % 200), 1.5, 100 FROM generate_series(1, ?) g",
+                SEEDED_SWEETS);
+        jdbcTemplate.execute("ANALYZE sweets");
+    }
+
+    @Test
+    void searchByCategoryUsesAnIndex() throws Exception {
+        SqlStatementCounter.start();
+        assertEquals(100, sweetService.searchSweets(null, "Plan category 145", null, null).size());
+        assertNoSeqScanOnSweets(onlyStatement(), "Plan category 145");
+    }
+
+    @Test
+    void searchByNameUsesAnIndex() throws Exception {
+        SqlStatementCounter.start();
+        assertEquals(1, sweetService.searchSweets("sweet 12345", null, null, null).size());
+        assertNoSeqScanOnSweets(onlyStatement(), "%sweet 12345%");
+    }
+
+    @Test
+    void searchByNameAndCategoryUsesAnIndex() throws Exception {
+        SqlStatementCounter.start();
+        assertEquals(1, sweetService.searchSweets("sweet 12345", "Plan category 145", null, null).size());
+        assertNoSeqScanOnSweets(onlyStatement(), "%sweet 12345%", "Plan category 145");
+    }
+
+    @Test
+    void searchByPriceUsesAnIndex() throws Exception {
+        jdbcTemplate.update("INSERT INTO sweets (name, category, price, quantity) VALUES ('Plan truffle', 'Plan category 7', 9876.54, 1)");
+        SqlStatementCounter.start();
+        assertEquals(1, sweetService.searchSweets(null, null, 9876.54, 9876.54).size());
+        // Without promotions the bounds become price >= 9876.535 AND price <= 9876.545 (plus a hair)
+        assertNoSeqScanOnSweets(onlyStatement(), 9876.535, 9876.545);
+    }
+
+    @Test
+    void purchaseUsesThePrimaryKey() throws Exception {
+        Long id = jdbcTemplate.queryForObject("SELECT id FROM sweets WHERE name = 'Plan sweet 777'", Long.class);
+        SqlStatementCounter.start();
+        sweetService.purchaseSweet(id);
+
+        List<String> statements = SqlStatementCounter.statements();
+        assertEquals(2, statements.size(), () -> String.join("\n", statements));
+        // UPDATE ... SET quantity = quantity - :amount WHERE id = :id AND quantity >= :amount
+        assertNoSeqScanOnSweets(statements.get(0), 1, id, 1);
+        // Reading the sweet back by id
+        assertNoSeqScanOnSweets(statements.get(1), id);
+    }
+
+    private String onlyStatement() {
+        List<String> statements = SqlStatementCounter.statements();
+        assertEquals(1, statements.size(), () -> String.join("\n", statements));
+        return statements.get(0);
+    }
+
+    // EXPLAIN without ANALYZE, so UPDATEs are planned but not run
+    private void assertNoSeqScanOnSweets(String sql, Object... parameters) throws Exception {
+        String json = jdbcTemplate.queryForObject("EXPLAIN (FORMAT JSON) " + sql, String.class, parameters);
+        JsonNode plan = objectMapper.readTree(json).get(0).get("Plan");
+        List<String> seqScans = new ArrayList<>();
+        collectSeqScans(plan, seqScans);
+        if (seqScans.contains("sweets")) {
+            fail("Sequential scan of sweets for:\n" + sql + "\nPlan:\n" + plan.toPrettyString());
+        }
+    }
+
+    private static void collectSeqScans(JsonNode node, List<String> relations) {
+        if ("Seq Scan".equals(node.path("Node Type").asText())) {
+            relations.add(node.path("Relation Name").asText());
+        }
+        for (JsonNode child : node.path("Plans")) {
+            collectSeqScans(child, relations);
+        }
+    }
+}
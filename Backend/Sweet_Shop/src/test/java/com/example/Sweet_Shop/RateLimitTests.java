@@ -0,0 +1,43 @@
+package com.example.Sweet_Shop;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+        "rate-limit.limits.anonymous.login.capacity=2",
+        "rate-limit.limits.anonymous.login.refill-per-second=0.01"
+})
+@AutoConfigureMockMvc
+public class RateLimitTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void whenLoginAttemptsExceedBurst_thenReturns429WithRetryAfter() throws Exception {
+        String loginJson = "{\"username\":\"nobody\", \"password\":\"wrong\"}";
+        for (int i = 0; i < 2; i++) {
+            mockMvc.perform(post("/api/auth/login")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(loginJson))
+                    .andExpect(result -> {
+                        if (result.getResponse().getStatus() == 429) {
+                            throw new AssertionError("Request within the burst was rate limited");
+                        }
+                    });
+        }
+        mockMvc.perform(post("/api/auth/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(loginJson))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().exists("Retry-After"));
+    }
+}
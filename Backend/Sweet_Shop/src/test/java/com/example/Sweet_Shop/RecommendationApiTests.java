@@ -0,0 +1,119 @@
+package com.example.Sweet_Shop;
+
+import com.example.Sweet_Shop.model.Sweet;
+import com.example.Sweet_Shop.repository.SweetRepository;
+import com.example.Sweet_Shop.service.JwtUtil;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Not @Transactional: checkout records the purchase only once its transaction has committed
+@SpringBootTest(properties = {"rate-limit.enabled=false", "recommendations.snapshot.path="})
+@AutoConfigureMockMvc
+public class RecommendationApiTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private SweetRepository sweetRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    private final List<Long> createdSweets = new ArrayList<>();
+    private final String username = "recommender-" + UUID.randomUUID();
+
+    @AfterEach
+    void cleanUp() {
+        jdbcTemplate.update("delete from reservations where username = ?", username);
+        sweetRepository.deleteAllById(sweetRepository.findAllById(createdSweets).stream().map(Sweet::getId).toList());
+    }
+
+    private long createSweet(String name) {
+        Sweet sweet = sweetRepository.save(new Sweet(name, "Recommendations", 2.0, 10));
+        createdSweets.add(sweet.getId());
+        return sweet.getId();
+    }
+
+    private String userToken() {
+        return "Bearer " + jwtUtil.generateToken(username, "ROLE_USER");
+    }
+
+    private long reserve(long sweetId) throws Exception {
+        String body = mockMvc.perform(post("/api/sweets/" + sweetId + "/reserve")
+                        .header("Authorization", userToken())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"quantity\":1}"))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        return ((Number) objectMapper.readValue(body, Map.class).get("id")).longValue();
+    }
+
+    @Test
+    void whenBoughtDirectlyAndThroughCheckout_thenSweetsAreRecommendedTogether() throws Exception {
+        long gulabJamun = createSweet("Gulab Jamun");
+        long rasmalai = createSweet("Rasmalai");
+        long imarti = createSweet("Imarti");
+
+        mockMvc.perform(post("/api/sweets/" + gulabJamun + "/purchase").header("Authorization", userToken()))
+                .andExpect(status().isOk());
+        mockMvc.perform(post("/api/sweets/" + rasmalai + "/purchase").header("Authorization", userToken()))
+                .andExpect(status().isOk());
+        long reservationId = reserve(imarti);
+        mockMvc.perform(post("/api/reservations/" + reservationId + "/checkout").header("Authorization", userToken()))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/api/sweets/" + imarti + "/recommendations").header("Authorization", userToken()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[0].sweetId", is((int) gulabJamun)))
+                .andExpect(jsonPath("$[0].count", is(1)))
+                .andExpect(jsonPath("$[1].sweetId", is((int) rasmalai)));
+        mockMvc.perform(get("/api/sweets/" + gulabJamun + "/recommendations?limit=1").header("Authorization", userToken()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)));
+    }
+
+    @Test
+    void whenSweetDeletedWhileHeld_thenCheckoutStillSucceedsAndTheSweetIsNeverRecommended() throws Exception {
+        long ladoo = createSweet("Ladoo");
+        long peda = createSweet("Peda");
+        mockMvc.perform(post("/api/sweets/" + ladoo + "/purchase").header("Authorization", userToken()))
+                .andExpect(status().isOk());
+        long reservationId = reserve(peda);
+
+        mockMvc.perform(delete("/api/sweets/" + peda)
+                        .header("Authorization", "Bearer " + jwtUtil.generateToken("recommendation-admin", "ROLE_ADMIN")))
+                .andExpect(status().isNoContent());
+        mockMvc.perform(post("/api/reservations/" + reservationId + "/checkout").header("Authorization", userToken()))
+                .andExpect(status().isOk())
+                .andExpect(content().string(""));
+
+        mockMvc.perform(get("/api/sweets/" + ladoo + "/recommendations").header("Authorization", userToken()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(0)));
+    }
+}
@@ -0,0 +1,162 @@
+package com.example.Sweet_Shop;
+
+import com.example.Sweet_Shop.service.RecommendationService;
+import com.example.Sweet_Shop.utilis.CoPurchaseIndex;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RecommendationTests {
+
+    @Test
+    void whenBasketsRecorded_thenTopPartnersMatchBruteForceCounts() {
+        CoPurchaseIndex index = new CoPurchaseIndex(5);
+        Map<Long, Map<Long, Long>> expected = new HashMap<>();
+        SplittableRandom random = new SplittableRandom(42);
+        long[] basket = new long[6];
+        for (int b = 0; b < 20_000; b++) {
+            int size = 1 + random.nextInt(basket.length);
+            for (int i = 0; i < size; i++) {
+                basket[i] = random.nextInt(40);
+            }
+            index.addBasket(basket, size);
+            for (int i = 0; i < size; i++) {
+                for (int j = i + 1; j < size; j++) {
+                    if (basket[i] != basket[j]) {
+                        expected.computeIfAbsent(basket[i], k -> new HashMap<>()).merge(basket[j], 1L, Long::sum);
+                        expected.computeIfAbsent(basket[j], k -> new HashMap<>()).merge(basket[i], 1L, Long::sum);
+                    }
+                }
+            }
+        }
+
+        for (long sweetId = 0; sweetId < 40; sweetId++) {
+            assertEquals(bruteForceTop(expected.getOrDefault(sweetId, Map.of()), 5), index.recommendations(sweetId, 5),
+                    "top partners of sweet " + sweetId);
+        }
+        assertEquals(3, index.recommendations(7, 3).size());
+    }
+
+    @Test
+    void whenSweetRemoved_thenItDisappearsFromEveryList() {
+        CoPurchaseIndex index = new CoPurchaseIndex(2);
+        for (int i = 0; i < 5; i++) {
+            index.addPair(1, 2);
+        }
+        for (int i = 0; i < 3; i++) {
+            index.addPair(1, 3);
+        }
+        index.addPair(1, 4);
+
+        assertEquals(List.of(new CoPurchaseIndex.Recommendation(2, 5), new CoPurchaseIndex.Recommendation(3, 3)),
+                index.recommendations(1, 5));
+        index.remove(2);
+
+        // The heap is refilled from the counts, so sweet 4 moves up into the top 2
+        assertEquals(List.of(new CoPurchaseIndex.Recommendation(3, 3), new CoPurchaseIndex.Recommendation(4, 1)),
+                index.recommendations(1, 5));
+        assertTrue(index.recommendations(2, 5).isEmpty());
+        assertEquals(3, index.sweetCount());
+
+        // A basket that still holds the removed sweet can't bring it back
+        index.addPair(1, 2);
+        index.addPair(2, 5);
+        assertEquals(List.of(new CoPurchaseIndex.Recommendation(3, 3), new CoPurchaseIndex.Recommendation(4, 1)),
+                index.recommendations(1, 5));
+        assertTrue(index.recommendations(2, 5).isEmpty());
+        assertTrue(index.recommendations(5, 5).isEmpty());
+    }
+
+    @Test
+    void whenPurchasesFallInAndOutOfTheBasketWindow_thenOnlyPurchasesInsideItArePaired() {
+        TestClock clock = new TestClock();
+        // 30 minute baskets, no snapshots, no catalog (nothing is deleted)
+        RecommendationService service = new RecommendationService(5, 30, "", 5, null,
+                new StaticListableBeanFactory(Map.of("clock", clock)).getBeanProvider(Clock.class));
+
+        service.recordPurchase("asha", 1);
+        clock.advance(Duration.ofMinutes(20));
+        service.recordPurchase("asha", 2);
+        service.recordPurchase("asha", 2); // Bought again in the same basket: not another pairing
+        clock.advance(Duration.ofMinutes(20));
+        // 40 minutes after sweet 1, 20 after sweet 2: only 2 is still in the basket
+        service.recordPurchase("asha", 3);
+        service.recordPurchase("ravi", 3); // Another user's basket
+        service.recordPurchase("ravi", 1);
+
+        assertEquals(List.of(new CoPurchaseIndex.Recommendation(2, 1), new CoPurchaseIndex.Recommendation(3, 1)),
+                service.recommendationsFor(1, 5));
+        assertEquals(List.of(new CoPurchaseIndex.Recommendation(1, 1), new CoPurchaseIndex.Recommendation(2, 1)),
+                service.recommendationsFor(3, 5));
+        assertEquals(List.of(new CoPurchaseIndex.Recommendation(1, 1)), service.recommendationsFor(3, 1));
+        assertEquals(6L, service.getStats().get("purchasesRecorded"));
+    }
+
+    @Test
+    void whenSnapshotReadBack_thenRecommendationsAreUnchanged() throws Exception {
+        CoPurchaseIndex index = new CoPurchaseIndex(4);
+        SplittableRandom random = new SplittableRandom(7);
+        long[] basket = new long[4];
+        for (int b = 0; b < 5_000; b++) {
+            for (int i = 0; i < basket.length; i++) {
+                basket[i] = 1_000 + random.nextInt(100);
+            }
+            index.addBasket(basket, basket.length);
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            index.writeTo(out);
+        }
+        CoPurchaseIndex restored = new CoPurchaseIndex(4);
+        restored.readFrom(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+
+        assertEquals(index.sweetCount(), restored.sweetCount());
+        assertEquals(index.pairCount(), restored.pairCount());
+        for (long sweetId = 1_000; sweetId < 1_100; sweetId++) {
+            assertEquals(index.recommendations(sweetId, 4), restored.recommendations(sweetId, 4));
+        }
+    }
+
+    @Test
+    void whenSnapshotReadBack_thenRemovedSweetsStayRemoved() throws Exception {
+        CoPurchaseIndex index = new CoPurchaseIndex(4);
+        index.addPair(1, 2);
+        index.addPair(1, 3);
+        index.remove(2);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            index.writeTo(out);
+        }
+        CoPurchaseIndex restored = new CoPurchaseIndex(4);
+        restored.readFrom(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+
+        // A basket from before the restart that still holds sweet 2 can't bring it back either
+        restored.addPair(1, 2);
+        assertEquals(List.of(new CoPurchaseIndex.Recommendation(3, 1)), restored.recommendations(1, 4));
+        assertFalse(restored.contains(2));
+    }
+
+    private static List<CoPurchaseIndex.Recommendation> bruteForceTop(Map<Long, Long> counts, int limit) {
+        List<CoPurchaseIndex.Recommendation> all = new ArrayList<>();
+        counts.forEach((partner, count) -> all.add(new CoPurchaseIndex.Recommendation(partner, count)));
+        all.sort(Comparator.comparingLong(CoPurchaseIndex.Recommendation::count).reversed()
+                .thenComparingLong(CoPurchaseIndex.Recommendation::sweetId));
+        return all.subList(0, Math.min(limit, all.size()));
+    }
+}
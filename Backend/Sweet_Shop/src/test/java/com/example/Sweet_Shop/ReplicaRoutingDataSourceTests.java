@@ -0,0 +1,164 @@
+package com.example.Sweet_Shop;
+
+import com.example.Sweet_Shop.config.ReplicaRoutingDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Stub data sources only: which connection comes back shows where the router sent the transaction
+public class ReplicaRoutingDataSourceTests {
+
+    private final Connection primaryConnection = Mockito.mock(Connection.class);
+    private final Connection replica0Connection = Mockito.mock(Connection.class);
+    private final Connection replica1Connection = Mockito.mock(Connection.class);
+    private ReplicaRoutingDataSource router;
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+        RequestContextHolder.resetRequestAttributes();
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+        TransactionSynchronizationManager.setActualTransactionActive(false);
+        if (router != null) {
+            router.close();
+        }
+    }
+
+    @Test
+    void whenReadOnly_thenReplicasTakeTurns() throws Exception {
+        router = router(healthy(replica0Connection), healthy(replica1Connection));
+
+        List<Connection> used = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            used.add(connectionFor("alice", true));
+        }
+
+        assertEquals(List.of(replica0Connection, replica1Connection, replica0Connection, replica1Connection), used);
+        // Write transactions get the primary's connection, wrapped to see whether they write
+        connectionFor("alice", false).getCatalog();
+        Mockito.verify(primaryConnection).getCatalog();
+    }
+
+    @Test
+    void whenClientWrote_thenItsReadsStayOnPrimaryButOthersDoNot() throws Exception {
+        router = router(healthy(replica0Connection));
+
+        Connection connection = connectionFor("alice", false);
+        connection.prepareStatement("update sweet set quantity = quantity - 1 where id = ?");
+
+        assertSame(primaryConnection, connectionFor("alice", true));
+        assertSame(replica0Connection, connectionFor("bob", true));
+    }
+
+    @Test
+    void whenReadWriteTransactionOnlyReads_thenClientIsNotPinned() throws Exception {
+        router = router(healthy(replica0Connection));
+
+        Connection connection = connectionFor("alice", false);
+        connection.prepareStatement("select quantity from sweet where id = ? for update");
+
+        assertSame(replica0Connection, connectionFor("alice", true));
+    }
+
+    @Test
+    void whenWorkMustSeeTheLatestCommit_thenItsReadOnlyTransactionsUseThePrimary() throws Exception {
+        router = router(healthy(replica0Connection));
+
+        assertSame(primaryConnection, ReplicaRoutingDataSource.onPrimary(() -> {
+            try {
+                return connectionFor("alice", true);
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+        }));
+        assertSame(replica0Connection, connectionFor("alice", true));
+    }
+
+    @Test
+    void whenClientSendsBackThePinFromAWrite_thenAnotherNodeKeepsItsReadsOnPrimary() throws Exception {
+        router = router(healthy(replica0Connection));
+        MockHttpServletResponse writeResponse = new MockHttpServletResponse();
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest(), writeResponse));
+        connectionFor("alice", false).prepareStatement("update sweet set quantity = quantity - 1 where id = ?");
+        String pin = writeResponse.getHeader(ReplicaRoutingDataSource.READ_YOUR_WRITES_HEADER);
+        assertNotNull(pin);
+
+        // A second node, which never saw the write
+        router.close();
+        router = router(healthy(replica1Connection));
+        MockHttpServletRequest nextRequest = new MockHttpServletRequest();
+        nextRequest.addHeader(ReplicaRoutingDataSource.READ_YOUR_WRITES_HEADER, pin);
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(nextRequest));
+        assertSame(primaryConnection, connectionFor("alice", true));
+
+        // Pins that have passed, or reach further ahead than one window, are not honoured
+        for (long until : new long[]{System.currentTimeMillis() - 1, System.currentTimeMillis() + 3_600_000}) {
+            MockHttpServletRequest request = new MockHttpServletRequest();
+            request.addHeader(ReplicaRoutingDataSource.READ_YOUR_WRITES_HEADER, Long.toString(until));
+            RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+            assertSame(replica1Connection, connectionFor("alice", true));
+        }
+    }
+
+    @Test
+    void whenReplicaFailsHealthCheck_thenReadsSkipItAndFallBackToPrimary() throws Exception {
+        DataSource broken = Mockito.mock(DataSource.class);
+        Mockito.when(broken.getConnection()).thenThrow(new SQLException("connection refused"));
+        router = router(broken, healthy(replica1Connection));
+        awaitHealthy(List.of("replica-1"));
+
+        assertSame(replica1Connection, connectionFor("alice", true));
+        assertSame(replica1Connection, connectionFor("alice", true));
+
+        router.close();
+        router = router(broken);
+        awaitHealthy(List.of());
+        assertSame(primaryConnection, connectionFor("alice", true));
+    }
+
+    private ReplicaRoutingDataSource router(DataSource... replicas) throws SQLException {
+        DataSource primary = Mockito.mock(DataSource.class);
+        Mockito.when(primary.getConnection()).thenReturn(primaryConnection);
+        // A check interval far longer than the test, so only the one at startup runs
+        ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(primary, List.of(replicas), 60_000, 600_000, 1_000);
+        routing.afterPropertiesSet();
+        return routing;
+    }
+
+    private static DataSource healthy(Connection connection) throws SQLException {
+        Mockito.when(connection.isValid(Mockito.anyInt())).thenReturn(true);
+        DataSource dataSource = Mockito.mock(DataSource.class);
+        Mockito.when(dataSource.getConnection()).thenReturn(connection);
+        return dataSource;
+    }
+
+    private Connection connectionFor(String username, boolean readOnly) throws SQLException {
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(username, null, List.of()));
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(readOnly);
+        return router.getConnection();
+    }
+
+    private void awaitHealthy(List<String> expected) throws InterruptedException {
+        for (int attempt = 0; attempt < 100 && !router.getHealthyReplicas().equals(expected); attempt++) {
+            Thread.sleep(20);
+        }
+        assertEquals(expected, router.getHealthyReplicas());
+    }
+}
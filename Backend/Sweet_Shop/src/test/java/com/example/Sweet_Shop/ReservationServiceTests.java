@@ -0,0 +1,130 @@
+package com.example.Sweet_Shop;
+
+import com.example.Sweet_Shop.exception.InvalidPurchaseException;
+import com.example.Sweet_Shop.model.Reservation;
+import com.example.Sweet_Shop.model.Sweet;
+import com.example.Sweet_Shop.repository.ReservationRepository;
+import com.example.Sweet_Shop.repository.SweetRepository;
+import com.example.Sweet_Shop.service.ReservationService;
+import com.example.Sweet_Shop.service.SweetService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Not @Transactional: the point is to hit the database from many threads at once
+@SpringBootTest(properties = "reservations.tick-ms=20")
+public class ReservationServiceTests {
+
+    @Autowired
+    private ReservationService reservationService;
+    @Autowired
+    private SweetService sweetService;
+    @Autowired
+    private SweetRepository sweetRepository;
+    @Autowired
+    private ReservationRepository reservationRepository;
+
+    private final List<Long> createdSweets = new ArrayList<>();
+
+    @AfterEach
+    void cleanUp() {
+        reservationRepository.deleteAll(reservationRepository.findAll().stream()
+                .filter(r -> createdSweets.contains(r.getSweetId())).toList());
+        sweetRepository.deleteAllById(createdSweets);
+    }
+
+    private Sweet createSweet(int quantity) {
+        Sweet sweet = sweetRepository.save(new Sweet("Ladoo", "North Indian", 2.0, quantity));
+        createdSweets.add(sweet.getId());
+        return sweet;
+    }
+
+    @Test
+    void whenHoldExpires_thenStockIsReturned() throws Exception {
+        Sweet sweet = createSweet(10);
+        reservationService.reserve(sweet.getId(), 4, Duration.ofMillis(200), "alice");
+        assertEquals(6, sweetRepository.findById(sweet.getId()).orElseThrow().getQuantity());
+
+        Thread.sleep(1_000);
+        assertEquals(10, sweetRepository.findById(sweet.getId()).orElseThrow().getQuantity());
+    }
+
+    @Test
+    void whenCheckedOut_thenStockStaysTakenAfterExpiry() throws Exception {
+        Sweet sweet = createSweet(10);
+        Reservation reservation = reservationService.reserve(sweet.getId(), 3, Duration.ofMillis(300), "alice");
+        reservationService.checkout(reservation.getId(), "alice");
+
+        Thread.sleep(1_000);
+        assertEquals(7, sweetRepository.findById(sweet.getId()).orElseThrow().getQuantity());
+        assertThrows(InvalidPurchaseException.class, () -> reservationService.checkout(reservation.getId(), "alice"));
+    }
+
+    @Test
+    void whenSomeoneElsesReservation_thenCheckoutIsRejected() {
+        Sweet sweet = createSweet(10);
+        Reservation reservation = reservationService.reserve(sweet.getId(), 1, null, "alice");
+        assertThrows(InvalidPurchaseException.class, () -> reservationService.checkout(reservation.getId(), "mallory"));
+    }
+
+    @Test
+    void whenReservationsRaceWithPurchases_thenStockIsNeverOversold() throws Exception {
+        int initialStock = 200;
+        Sweet sweet = createSweet(initialStock);
+        Long id = sweet.getId();
+
+        AtomicInteger purchased = new AtomicInteger();
+        AtomicInteger checkedOut = new AtomicInteger();
+        List<Reservation> openHolds = Collections.synchronizedList(new ArrayList<>());
+        ExecutorService pool = Executors.newFixedThreadPool(16);
+        CountDownLatch start = new CountDownLatch(1);
+        for (int t = 0; t < 16; t++) {
+            int worker = t;
+            pool.submit(() -> {
+                start.await();
+                for (int i = 0; i < 40; i++) {
+                    try {
+                        if ((worker + i) % 3 == 0) {
+                            sweetService.purchaseSweet(id);
+                            purchased.incrementAndGet();
+                        } else {
+                            Reservation reservation = reservationService.reserve(id, 2, Duration.ofMinutes(5), "user" + worker);
+                            if (i % 2 == 0) {
+                                reservationService.checkout(reservation.getId(), "user" + worker);
+                                checkedOut.addAndGet(2);
+                            } else if (i % 5 == 0) {
+                                reservationService.cancel(reservation.getId(), "user" + worker);
+                            } else {
+                                openHolds.add(reservation);
+                            }
+                        }
+                    } catch (InvalidPurchaseException outOfStock) {
+                        // Expected once stock runs out
+                    }
+                }
+                return null;
+            });
+        }
+        start.countDown();
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(60, TimeUnit.SECONDS));
+
+        int held = openHolds.stream().mapToInt(Reservation::getQuantity).sum();
+        int remaining = sweetRepository.findById(id).orElseThrow().getQuantity();
+        assertTrue(remaining >= 0);
+        assertEquals(initialStock, remaining + purchased.get() + checkedOut.get() + held);
+    }
+}
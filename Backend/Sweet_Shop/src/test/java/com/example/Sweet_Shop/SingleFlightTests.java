@@ -0,0 +1,112 @@
+package com.example.Sweet_Shop;
+
+import com.example.Sweet_Shop.utilis.SingleFlight;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SingleFlightTests {
+
+    private static final int CALLERS = 16;
+
+    @Test
+    void whenManyCallersAskForTheSameKey_thenTheLoaderRunsOnceAndEveryoneGetsItsResult() throws Exception {
+        SingleFlight<String, String> singleFlight = new SingleFlight<>();
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger loads = new AtomicInteger();
+        ExecutorService callers = Executors.newFixedThreadPool(CALLERS);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < CALLERS; i++) {
+                results.add(callers.submit(() -> singleFlight.execute("catalog", () -> {
+                    loads.incrementAndGet();
+                    await(release);
+                    return "sweets";
+                })));
+            }
+            // The loader is held until everyone else has joined it
+            awaitCollapsed(singleFlight, CALLERS - 1);
+            release.countDown();
+
+            for (Future<String> result : results) {
+                assertEquals("sweets", result.get(5, TimeUnit.SECONDS));
+            }
+            assertEquals(1, loads.get());
+            assertEquals(1, singleFlight.getExecutions());
+            assertEquals(CALLERS - 1, singleFlight.getCollapsed());
+            assertEquals(0, singleFlight.getInFlight());
+        } finally {
+            callers.shutdownNow();
+        }
+    }
+
+    @Test
+    void whenTheLoaderFails_thenFollowersGetTheSameExceptionAndTheKeyIsFreed() throws Exception {
+        SingleFlight<String, String> singleFlight = new SingleFlight<>();
+        CountDownLatch release = new CountDownLatch(1);
+        IllegalStateException failure = new IllegalStateException("database unavailable");
+        ExecutorService callers = Executors.newFixedThreadPool(2);
+        try {
+            Future<String> leader = callers.submit(() -> singleFlight.execute("catalog", () -> {
+                await(release);
+                throw failure;
+            }));
+            awaitInFlight(singleFlight);
+            Future<String> follower = callers.submit(() -> singleFlight.execute("catalog", () -> "never runs"));
+            awaitCollapsed(singleFlight, 1);
+            release.countDown();
+
+            assertSame(failure, assertThrows(Exception.class, () -> leader.get(5, TimeUnit.SECONDS)).getCause());
+            assertSame(failure, assertThrows(Exception.class, () -> follower.get(5, TimeUnit.SECONDS)).getCause());
+        } finally {
+            callers.shutdownNow();
+        }
+
+        assertEquals(0, singleFlight.getInFlight());
+        assertEquals("sweets", singleFlight.execute("catalog", () -> "sweets"));
+        assertEquals(2, singleFlight.getExecutions());
+    }
+
+    @Test
+    void whenAnExecutionFinished_thenTheNextCallRunsTheLoaderAgain() {
+        SingleFlight<String, Integer> singleFlight = new SingleFlight<>();
+        AtomicInteger loads = new AtomicInteger();
+
+        assertEquals(1, singleFlight.execute("catalog", loads::incrementAndGet));
+        assertEquals(2, singleFlight.execute("catalog", loads::incrementAndGet));
+        assertEquals(2, singleFlight.getExecutions());
+        assertEquals(0, singleFlight.getCollapsed());
+        assertEquals(0, singleFlight.getInFlight());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void awaitCollapsed(SingleFlight<?, ?> singleFlight, long expected) throws InterruptedException {
+        for (int attempt = 0; attempt < 500 && singleFlight.getCollapsed() < expected; attempt++) {
+            Thread.sleep(10);
+        }
+        assertEquals(expected, singleFlight.getCollapsed());
+    }
+
+    private static void awaitInFlight(SingleFlight<?, ?> singleFlight) throws InterruptedException {
+        for (int attempt = 0; attempt < 500 && singleFlight.getInFlight() == 0; attempt++) {
+            Thread.sleep(10);
+        }
+        assertEquals(1, singleFlight.getInFlight());
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.Sweet_Shop;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Records the SQL Hibernate sends, for tests that pin down how many statements an API call
+ * costs. Enable it with
+ * spring.jpa.properties.hibernate.session_factory.statement_inspector=com.example.Sweet_Shop.SqlStatementCounter.
+ *
+ * Only statements from the thread that called start() are kept, so the background threads
+ * (reservation expiry, pricing reloads, the audit writer) never make a count flaky. MockMvc
+ * serves requests on the test thread, so everything a request does is included. Plain JDBC
+ * (JdbcTemplate) doesn't go through Hibernate and isn't seen here.
+ */
+public class SqlStatementCounter implements StatementInspector {
+
+    private static final List<String> statements = new CopyOnWriteArrayList<>();
+    private static volatile Thread recording;
+
+    /** Forgets what was recorded so far and starts recording the calling thread. */
+    public static void start() {
+        statements.clear();
+        recording = Thread.currentThread();
+    }
+
+    public static List<String> statements() {
+        return List.copyOf(statements);
+    }
+
+    public static int count() {
+        return statements.size();
+    }
+
+    @Override
+    public String inspect(String sql) {
+        if (Thread.currentThread() == recording) {
+            statements.add(sql);
+        }
+        return sql;
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.Sweet_Shop;
+
+import com.example.Sweet_Shop.exception.InvalidPurchaseException;
+import com.example.Sweet_Shop.model.Store;
+import com.example.Sweet_Shop.model.Sweet;
+import com.example.Sweet_Shop.repository.StoreRepository;
+import com.example.Sweet_Shop.repository.SweetRepository;
+import com.example.Sweet_Shop.service.StoreInventoryService;
+import com.example.Sweet_Shop.utilis.StoreStockIndex;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Not @Transactional: the availability index is only updated once a change has committed
+@SpringBootTest
+public class StoreInventoryTests {
+
+    @Autowired
+    private StoreInventoryService storeInventoryService;
+    @Autowired
+    private StoreRepository storeRepository;
+    @Autowired
+    private SweetRepository sweetRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Store mumbai;
+    private Store delhi;
+    private Sweet sweet;
+
+    @BeforeEach
+    void setUp() {
+        mumbai = storeInventoryService.createStore(new Store("Mumbai", 19.07, 72.87));
+        delhi = storeInventoryService.createStore(new Store("Delhi", 28.61, 77.20));
+        sweet = sweetRepository.save(new Sweet("Barfi", "North Indian", 4.0, 0));
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("delete from store_stock where sweet_id = ?", sweet.getId());
+        sweetRepository.deleteById(sweet.getId());
+        storeRepository.deleteAllById(List.of(mumbai.getId(), delhi.getId()));
+    }
+
+    @Test
+    void whenStockedAndSoldPerStore_thenAvailabilityTracksEachStore() {
+        storeInventoryService.restock(mumbai.getId(), sweet.getId(), 5);
+        storeInventoryService.restock(delhi.getId(), sweet.getId(), 3);
+        // No promotions on this category, so the list price is charged
+        assertEquals(400L, storeInventoryService.purchase(mumbai.getId(), sweet.getId(), 2));
+
+        Map<String, Object> availability = storeInventoryService.availability(sweet.getId());
+        assertEquals(6L, availability.get("total"));
+        assertEquals(Map.of(mumbai.getId(), 3, delhi.getId(), 3), availability.get("stores"));
+        assertEquals(3, jdbcTemplate.queryForObject(
+                "select quantity from store_stock where store_id = ? and sweet_id = ?",
+                Integer.class, mumbai.getId(), sweet.getId()));
+    }
+
+    @Test
+    void whenStoreHasTooLittle_thenPurchaseFailsWithoutTouchingOtherStores() {
+        storeInventoryService.restock(mumbai.getId(), sweet.getId(), 1);
+        storeInventoryService.restock(delhi.getId(), sweet.getId(), 10);
+
+        InvalidPurchaseException e = assertThrows(InvalidPurchaseException.class,
+                () -> storeInventoryService.purchase(mumbai.getId(), sweet.getId(), 2));
+        assertTrue(e.getMessage().contains("out of stock"));
+        assertEquals(11L, storeInventoryService.availability(sweet.getId()).get("total"));
+    }
+
+    @Test
+    void whenNearestStoreIsEmpty_thenNextClosestWithStockIsChosen() {
+        storeInventoryService.restock(mumbai.getId(), sweet.getId(), 1);
+        storeInventoryService.restock(delhi.getId(), sweet.getId(), 10);
+        double puneLat = 18.52;
+        double puneLon = 73.85;
+
+        assertEquals(mumbai.getId(), storeInventoryService.nearestWithStock(sweet.getId(), puneLat, puneLon, 1).storeId());
+        StoreStockIndex.Nearest forFive = storeInventoryService.nearestWithStock(sweet.getId(), puneLat, puneLon, 5);
+        assertEquals(delhi.getId(), forFive.storeId());
+        assertTrue(forFive.distanceKm() > 1000);
+        assertNull(storeInventoryService.nearestWithStock(sweet.getId(), puneLat, puneLon, 50));
+    }
+}
@@ -1,10 +1,13 @@
 package com.example.Sweet_Shop;
 
+import com.example.Sweet_Shop.dto.SweetView;
 import com.example.Sweet_Shop.model.Sweet;
 import com.example.Sweet_Shop.model.User;
 import com.example.Sweet_Shop.repository.SweetRepository;
 import com.example.Sweet_Shop.repository.UserRepository;
+import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -16,15 +19,21 @@ import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.List;
 import java.util.Map;
 
+import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*; // Import all
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
-@SpringBootTest
+// Every test logs in twice from the same address, which would trip the login rate limit
+@SpringBootTest(properties = "rate-limit.enabled=false")
 @AutoConfigureMockMvc
 @Transactional
 public class SweetShopApiTests {
@@ -130,6 +139,36 @@ public class SweetShopApiTests {
                 .andExpect(jsonPath("$", hasSize(2)));
     }
 
+    @Test
+    void whenGetAllSweetsAsCbor_thenReturnsCborList() throws Exception {
+        sweetRepository.save(new Sweet("Rasgulla", "Bengali", 2.50, 100));
+        sweetRepository.save(new Sweet("Jalebi", "North Indian", 4.00, 80));
+        MvcResult result = mockMvc.perform(get("/api/sweets")
+                        .accept("application/cbor")
+                        .header("Authorization", "Bearer " + userAuthToken))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/cbor"))
+                .andExpect(header().string("Vary", containsString("Accept")))
+                .andReturn();
+        List<SweetView> sweets = new CBORMapper().readValue(result.getResponse().getContentAsByteArray(),
+                new TypeReference<List<SweetView>>() { });
+        assertEquals(2, sweets.size());
+        assertEquals("Rasgulla", sweets.get(0).name());
+    }
+
+    @Test
+    void whenExportSweets_thenStreamsAllSweetsAsJson() throws Exception {
+        sweetRepository.save(new Sweet("Rasgulla", "Bengali", 2.50, 100));
+        sweetRepository.save(new Sweet("Jalebi", "North Indian", 4.00, 80));
+        mockMvc.perform(get("/api/sweets/export")
+                        .header("Authorization", "Bearer " + userAuthToken))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[1].name", is("Jalebi")))
+                .andExpect(jsonPath("$[1].effectivePrice", is(4.0)));
+    }
+
     @Test
     void whenSearchSweetsByCategory_thenReturnsMatchingSweets() throws Exception {
         sweetRepository.save(new Sweet("Rasgulla", "Bengali", 2.50, 100));
@@ -163,6 +202,15 @@ public class SweetShopApiTests {
                 .andExpect(jsonPath("$[0].name", is("Jalebi")));
     }
 
+    @Test
+    void whenSearchPriceBoundIsNotFinite_thenReturns400() throws Exception {
+        for (String query : new String[]{"minPrice=NaN", "maxPrice=Infinity", "minPrice=-Infinity&maxPrice=5"}) {
+            mockMvc.perform(get("/api/sweets/search?" + query)
+                            .header("Authorization", "Bearer " + userAuthToken))
+                    .andExpect(status().isBadRequest());
+        }
+    }
+
     @Test
     void whenUpdateSweet_thenReturns200OkAndUpdatedSweet() throws Exception {
         Sweet originalSweet = sweetRepository.save(new Sweet("Old Rasgulla", "Bengali", 1.0, 50));
@@ -254,5 +302,21 @@ public class SweetShopApiTests {
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.quantity", is(60))); // Expect total quantity to be 10 + 50 = 60
     }
-}
 
+    // --- CONDITIONAL GET (ETAG) TESTS ---
+    @Test
+    void whenGetAllSweetsWithMatchingEtag_thenReturns304WithoutBody() throws Exception {
+        sweetRepository.save(new Sweet("Rasgulla", "Bengali", 2.50, 100));
+        String etag = mockMvc.perform(get("/api/sweets")
+                        .header("Authorization", "Bearer " + userAuthToken))
+                .andExpect(status().isOk())
+                .andExpect(header().exists("ETag"))
+                .andReturn().getResponse().getHeader("ETag");
+
+        mockMvc.perform(get("/api/sweets")
+                        .header("Authorization", "Bearer " + userAuthToken)
+                        .header("If-None-Match", etag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.Sweet_Shop;
+
+import com.example.Sweet_Shop.utilis.TimingWheel;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TimingWheelTests {
+
+    @Test
+    void whenDeadlinesPass_thenItemsExpireInDeadlineOrder() throws Exception {
+        List<String> expired = new CopyOnWriteArrayList<>();
+        try (TimingWheel<String> wheel = new TimingWheel<>("test-wheel", 10, TimeUnit.MILLISECONDS, 8, expired::addAll)) {
+            // 300 ms is several rotations of an 8 x 10 ms wheel
+            wheel.schedule("late", 300, TimeUnit.MILLISECONDS);
+            wheel.schedule("early", 20, TimeUnit.MILLISECONDS);
+            wheel.schedule("now", 0, TimeUnit.MILLISECONDS);
+
+            Thread.sleep(150);
+            assertEquals(List.of("now", "early"), expired);
+            Thread.sleep(300);
+            assertEquals(List.of("now", "early", "late"), expired);
+            assertEquals(0, wheel.pendingCount());
+        }
+    }
+
+    @Test
+    void whenCancelled_thenItemNeverExpires() throws Exception {
+        List<String> expired = new CopyOnWriteArrayList<>();
+        try (TimingWheel<String> wheel = new TimingWheel<>("test-wheel", 10, TimeUnit.MILLISECONDS, 8, expired::addAll)) {
+            TimingWheel.Timeout<String> timeout = wheel.schedule("cancelled", 50, TimeUnit.MILLISECONDS);
+            wheel.schedule("kept", 50, TimeUnit.MILLISECONDS);
+
+            assertTrue(timeout.cancel());
+            assertFalse(timeout.cancel());
+            Thread.sleep(200);
+            assertEquals(List.of("kept"), expired);
+        }
+    }
+
+    @Test
+    void whenManyTimeoutsScheduledConcurrently_thenAllExpireExactlyOnce() throws Exception {
+        AtomicLong expired = new AtomicLong();
+        try (TimingWheel<Integer> wheel = new TimingWheel<>("test-wheel", 5, TimeUnit.MILLISECONDS, 64,
+                items -> expired.addAndGet(items.size()))) {
+            Thread[] producers = new Thread[4];
+            for (int p = 0; p < producers.length; p++) {
+                producers[p] = new Thread(() -> {
+                    for (int i = 0; i < 250_000; i++) {
+                        wheel.schedule(i, i % 200, TimeUnit.MILLISECONDS);
+                    }
+                });
+                producers[p].start();
+            }
+            for (Thread producer : producers) {
+                producer.join();
+            }
+            long deadline = System.currentTimeMillis() + 10_000;
+            while (expired.get() < 1_000_000 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(50);
+            }
+            assertEquals(1_000_000, expired.get());
+            assertEquals(0, wheel.pendingCount());
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package com.example.Sweet_Shop;
+
+import com.example.Sweet_Shop.model.User;
+import com.example.Sweet_Shop.repository.UserRepository;
+import com.example.Sweet_Shop.utilis.RevocationFilter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Date;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "rate-limit.enabled=false")
+@AutoConfigureMockMvc
+@Transactional
+public class TokenRevocationTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+    @Value("${jwt.secret}")
+    private String secret;
+
+    private String accessToken;
+    private String refreshToken;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        userRepository.save(new User("tokenuser", passwordEncoder.encode("password123"), "token@example.com", "ROLE_USER"));
+        Map<String, Object> tokens = login();
+        accessToken = (String) tokens.get("token");
+        refreshToken = (String) tokens.get("refreshToken");
+    }
+
+    private Map<String, Object> login() throws Exception {
+        String body = mockMvc.perform(post("/api/auth/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"username\":\"tokenuser\", \"password\":\"password123\"}"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readValue(body, Map.class);
+    }
+
+    private Map<String, Object> refresh(String token) throws Exception {
+        String body = mockMvc.perform(post("/api/auth/refresh")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(Map.of("refreshToken", token))))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readValue(body, Map.class);
+    }
+
+    @Test
+    void whenLoggedOut_thenAccessTokenIsRejected() throws Exception {
+        mockMvc.perform(get("/api/sweets").header("Authorization", "Bearer " + accessToken))
+                .andExpect(status().isOk());
+        mockMvc.perform(post("/api/auth/logout")
+                        .header("Authorization", "Bearer " + accessToken)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(Map.of("refreshToken", refreshToken))))
+                .andExpect(status().isNoContent());
+
+        mockMvc.perform(get("/api/sweets").header("Authorization", "Bearer " + accessToken))
+                .andExpect(status().isUnauthorized());
+        mockMvc.perform(post("/api/auth/refresh")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(Map.of("refreshToken", refreshToken))))
+                .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    void whenRefreshed_thenNewPairWorksAndOldRefreshTokenIsUsedUp() throws Exception {
+        Map<String, Object> tokens = refresh(refreshToken);
+        assertNotEquals(accessToken, tokens.get("token"));
+
+        mockMvc.perform(get("/api/sweets").header("Authorization", "Bearer " + tokens.get("token")))
+                .andExpect(status().isOk());
+        mockMvc.perform(post("/api/auth/refresh")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(Map.of("refreshToken", refreshToken))))
+                .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    void whenAccessTokenExpiredOrMissing_thenUnauthorizedSoTheClientRefreshes() throws Exception {
+        long now = System.currentTimeMillis();
+        String expired = Jwts.builder()
+                .claim("role", "ROLE_USER")
+                .claim("typ", "access")
+                .setId(UUID.randomUUID().toString())
+                .setSubject("tokenuser")
+                .setIssuedAt(new Date(now - TimeUnit.MINUTES.toMillis(20)))
+                .setExpiration(new Date(now - TimeUnit.MINUTES.toMillis(5)))
+                .signWith(Keys.hmacShaKeyFor(Decoders.BASE64.decode(secret)), SignatureAlgorithm.HS256)
+                .compact();
+
+        mockMvc.perform(get("/api/sweets").header("Authorization", "Bearer " + expired))
+                .andExpect(status().isUnauthorized());
+        mockMvc.perform(get("/api/sweets"))
+                .andExpect(status().isUnauthorized());
+        refresh(refreshToken);
+    }
+
+    @Test
+    void whenRefreshTokenUsedAsAccessToken_thenRejected() throws Exception {
+        mockMvc.perform(get("/api/sweets").header("Authorization", "Bearer " + refreshToken))
+                .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    void whenRevokingSomeoneElsesToken_thenForbiddenUnlessAdmin() throws Exception {
+        userRepository.save(new User("othertokenuser", passwordEncoder.encode("password123"), "other@example.com", "ROLE_USER"));
+        String body = mockMvc.perform(post("/api/auth/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"username\":\"othertokenuser\", \"password\":\"password123\"}"))
+                .andReturn().getResponse().getContentAsString();
+        String otherToken = (String) objectMapper.readValue(body, Map.class).get("token");
+
+        mockMvc.perform(post("/api/auth/revoke")
+                        .header("Authorization", "Bearer " + otherToken)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(Map.of("token", accessToken))))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(get("/api/sweets").header("Authorization", "Bearer " + accessToken))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void whenFilterChecked_thenRevokedIdsAreFoundAndExpiredBucketsDropped() {
+        long hour = TimeUnit.HOURS.toMillis(1);
+        RevocationFilter filter = new RevocationFilter(hour, TimeUnit.DAYS.toMillis(7), 1000, 0.001);
+        long expiresAt = System.currentTimeMillis() + hour;
+        String revoked = UUID.randomUUID().toString();
+        filter.add(revoked, expiresAt);
+
+        assertTrue(filter.mightContain(revoked, expiresAt));
+        // Same id, different expiry bucket: not the token that was revoked
+        assertFalse(filter.mightContain(revoked, expiresAt + 2 * hour));
+        int falsePositives = 0;
+        for (int i = 0; i < 10_000; i++) {
+            if (filter.mightContain(UUID.randomUUID().toString(), expiresAt)) {
+                falsePositives++;
+            }
+        }
+        assertTrue(falsePositives < 20, "false positives: " + falsePositives);
+
+        filter.expire(expiresAt + 2 * hour);
+        assertFalse(filter.mightContain(revoked, expiresAt));
+    }
+}
@@ -0,0 +1,130 @@
+package com.example.Sweet_Shop.benchmark;
+
+import com.example.Sweet_Shop.SweetShopApplication;
+import com.example.Sweet_Shop.model.Sweet;
+import com.example.Sweet_Shop.repository.SweetRepository;
+import com.example.Sweet_Shop.service.JwtUtil;
+import com.example.Sweet_Shop.utilis.AdaptiveConcurrencyLimiter;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Local overload test for admission control: 256 clients buy through POST /api/sweets/{id}/purchase
+ * against a pool of 4 connections, many times what the pool can serve. Every client gives up after
+ * 100 ms, like a user or an upstream timeout would. "goodput" is purchases answered 200 within that
+ * deadline, per second; "late" ones still used a connection but came too late to count, "shed" ones
+ * got a 503 from the limiter without touching the database.
+ *
+ * Without the limiter every request waits for a connection, the wait soon exceeds the deadline and
+ * goodput collapses even though the database is busy all the time. With it the excess is turned
+ * away at once and the admitted purchases keep finishing in time.
+ * Needs the same DB_* and JWT_SECRET environment as the application.
+ * Run with: mvn -Pbenchmark test-compile exec:exec -Dbenchmark=AdmissionGoodputBenchmark
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Fork(1)
+@Threads(AdmissionGoodputBenchmark.CLIENTS)
+@State(Scope.Benchmark)
+public class AdmissionGoodputBenchmark {
+
+    static final int CLIENTS = 256;
+    private static final Duration CLIENT_DEADLINE = Duration.ofMillis(100);
+
+    @Param({"false", "true"})
+    public boolean admission;
+
+    private ConfigurableApplicationContext context;
+    private SweetRepository sweetRepository;
+    private final HttpClient httpClient = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+    private final List<Long> sweetIds = new ArrayList<>();
+    private final AtomicInteger nextClient = new AtomicInteger();
+    private String baseUrl;
+    private String authorization;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(SweetShopApplication.class)
+                .properties(
+                        "server.port=0",
+                        "spring.jpa.show-sql=false",
+                        "rate-limit.enabled=false",
+                        "admission.enabled=" + admission,
+                        // Small pool, so a few hundred clients are far beyond what it can serve
+                        "spring.datasource.hikari.maximum-pool-size=4",
+                        // Enough request threads that every client reaches the admission filter
+                        "server.tomcat.threads.max=" + (CLIENTS + 50))
+                .run();
+        sweetRepository = context.getBean(SweetRepository.class);
+        // One sweet per client: the clients compete for connections, not for one row lock
+        for (int i = 0; i < CLIENTS; i++) {
+            sweetIds.add(sweetRepository.save(new Sweet("Goodput " + i, "Benchmark", 1.0, Integer.MAX_VALUE / 2)).getId());
+        }
+        baseUrl = "http://localhost:" + ((WebServerApplicationContext) context).getWebServer().getPort();
+        authorization = "Bearer " + context.getBean(JwtUtil.class).generateToken("goodput-benchmark", "ROLE_USER");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        AdaptiveConcurrencyLimiter limiter = context.getBean(AdaptiveConcurrencyLimiter.class);
+        System.out.printf("%n[admission=%s] limit=%d admitted=%d rejected=%d%n",
+                admission, limiter.getLimit(), limiter.getAdmitted(), limiter.getRejected());
+        sweetRepository.deleteAllById(sweetIds);
+        context.close();
+    }
+
+    /** Per-client outcome counts; JMH reports each as a rate next to the operations per second. */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Outcomes {
+        public long goodput;
+        public long late;
+        public long shed;
+        public long failed;
+
+        HttpRequest purchase;
+
+        @Setup(Level.Trial)
+        public void setUp(AdmissionGoodputBenchmark benchmark) {
+            long sweetId = benchmark.sweetIds.get(benchmark.nextClient.getAndIncrement() % CLIENTS);
+            purchase = HttpRequest.newBuilder(URI.create(benchmark.baseUrl + "/api/sweets/" + sweetId + "/purchase"))
+                    .header("Authorization", benchmark.authorization)
+                    .timeout(CLIENT_DEADLINE)
+                    .POST(HttpRequest.BodyPublishers.noBody())
+                    .build();
+        }
+    }
+
+    @Benchmark
+    public void purchase(Outcomes outcomes) throws IOException, InterruptedException {
+        try {
+            int status = httpClient.send(outcomes.purchase, HttpResponse.BodyHandlers.discarding()).statusCode();
+            if (status == 200) {
+                outcomes.goodput++;
+            } else if (status == 503) {
+                outcomes.shed++;
+                Thread.sleep(5); // A shed client backs off briefly before retrying
+            } else {
+                outcomes.failed++;
+            }
+        } catch (HttpTimeoutException e) {
+            outcomes.late++;
+        }
+    }
+}
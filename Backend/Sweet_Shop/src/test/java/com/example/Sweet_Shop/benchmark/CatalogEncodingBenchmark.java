@@ -0,0 +1,91 @@
+package com.example.Sweet_Shop.benchmark;
+
+import com.example.Sweet_Shop.dto.SweetView;
+import com.example.Sweet_Shop.model.Sweet;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Encoding one full catalog response: the entity list as JSON (what getAllSweets used to send)
+ * against the SweetView list as JSON, CBOR and Smile, each with and without gzip as Tomcat would
+ * apply it. Payload sizes are printed once per fork; for allocation per response add -prof gc.
+ * Run with: mvn -Pbenchmark test-compile exec:exec -Dbenchmark=CatalogEncodingBenchmark
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CatalogEncodingBenchmark {
+
+    private static final String[] CATEGORIES = {"Bengali", "North Indian", "South Indian", "Dry Fruit", "Sugar Free"};
+
+    @Param({"1000"})
+    public int catalogSize;
+
+    @Param({"false", "true"})
+    public boolean gzip;
+
+    private List<Sweet> entities;
+    private List<SweetView> views;
+    private final ObjectMapper json = new ObjectMapper();
+    private final ObjectMapper cbor = new CBORMapper();
+    private final ObjectMapper smile = new SmileMapper();
+
+    @Setup
+    public void setUp() throws IOException {
+        entities = new ArrayList<>();
+        for (int i = 0; i < catalogSize; i++) {
+            Sweet sweet = new Sweet("Sweet " + i, CATEGORIES[i % CATEGORIES.length], 1.0 + (i % 100) / 10.0, 100 + i % 50);
+            sweet.setId((long) i);
+            sweet.setEffectivePrice(BigDecimal.valueOf(90 + i % 100, 2));
+            entities.add(sweet);
+        }
+        views = entities.stream().map(SweetView::of).toList();
+
+        System.out.printf("%nPayload bytes for %d sweets (gzip=%s): entity json %d, view json %d, cbor %d, smile %d%n",
+                catalogSize, gzip, entityJson().length, viewJson().length, viewCbor().length, viewSmile().length);
+    }
+
+    @Benchmark
+    public byte[] entityJson() throws IOException {
+        return encode(json, entities);
+    }
+
+    @Benchmark
+    public byte[] viewJson() throws IOException {
+        return encode(json, views);
+    }
+
+    @Benchmark
+    public byte[] viewCbor() throws IOException {
+        return encode(cbor, views);
+    }
+
+    @Benchmark
+    public byte[] viewSmile() throws IOException {
+        return encode(smile, views);
+    }
+
+    private byte[] encode(ObjectMapper mapper, Object body) throws IOException {
+        if (!gzip) {
+            return mapper.writeValueAsBytes(body);
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (GZIPOutputStream out = new GZIPOutputStream(bytes)) {
+            mapper.writeValue(out, body);
+        }
+        return bytes.toByteArray();
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.Sweet_Shop.benchmark;
+
+import com.example.Sweet_Shop.SweetShopApplication;
+import com.example.Sweet_Shop.dto.SweetRow;
+import com.example.Sweet_Shop.dto.SweetView;
+import com.example.Sweet_Shop.model.Sweet;
+import com.example.Sweet_Shop.repository.SweetRepository;
+import com.example.Sweet_Shop.service.CatalogExportService;
+import com.example.Sweet_Shop.service.PricingService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One full catalog read three ways: managed entities (what getAllSweets used to do, in a
+ * read-only transaction), the SweetRow projection it does now, and the JDBC export streamed to a
+ * discarding stream. The query cache is off so every call reaches the database. The interesting
+ * numbers are gc.alloc.rate.norm (bytes allocated per read) and gc.count, so run it with the GC
+ * profiler. Needs the same DB_* environment as the application.
+ * Run with: mvn -Pbenchmark test-compile exec:exec -Dbenchmark=CatalogReadBenchmark -Dbenchmark.args="-prof gc"
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CatalogReadBenchmark {
+
+    @Param({"1000"})
+    public int catalogSize;
+
+    private ConfigurableApplicationContext context;
+    private SweetRepository sweetRepository;
+    private PricingService pricingService;
+    private CatalogExportService exportService;
+    private TransactionTemplate readOnlyTransaction;
+    private final List<Long> sweetIds = new ArrayList<>();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(SweetShopApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(
+                        "spring.jpa.show-sql=false",
+                        "spring.jpa.properties.hibernate.cache.use_second_level_cache=false",
+                        "spring.jpa.properties.hibernate.cache.use_query_cache=false")
+                .run();
+        sweetRepository = context.getBean(SweetRepository.class);
+        pricingService = context.getBean(PricingService.class);
+        exportService = context.getBean(CatalogExportService.class);
+        readOnlyTransaction = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        readOnlyTransaction.setReadOnly(true);
+
+        for (int i = 0; i < catalogSize; i++) {
+            sweetIds.add(sweetRepository.save(new Sweet("Bench sweet " + i, "Bench", 1.0 + i % 100, 1000)).getId());
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        sweetRepository.deleteAllById(sweetIds);
+        context.close();
+    }
+
+    @Benchmark
+    public List<SweetView> managedEntities() {
+        return readOnlyTransaction.execute(status -> sweetRepository.findAll().stream()
+                .map(sweet -> SweetView.of(pricingService.price(sweet)))
+                .toList());
+    }
+
+    @Benchmark
+    public List<SweetView> projection() {
+        List<SweetView> result = new ArrayList<>();
+        for (SweetRow row : sweetRepository.findRows(null, null)) {
+            result.add(SweetView.of(row, pricingService.effectiveCents(row.id(), row.category(), row.price())));
+        }
+        return result;
+    }
+
+    @Benchmark
+    public void jdbcExport() throws IOException {
+        exportService.exportCatalog(OutputStream.nullOutputStream());
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.Sweet_Shop.benchmark;
+
+import com.example.Sweet_Shop.utilis.CoPurchaseIndex;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The co-purchase index behind /api/sweets/{id}/recommendations: ingesting 10M baskets of 1-6
+ * sweets into an empty index (one shot per iteration, so the number is the whole ingest), and
+ * answering a top-5 lookup from an index that already holds them. Popularity is skewed, so a few
+ * sweets have partners in the thousands and most have few, as in a real catalog.
+ * Run with: mvn -Pbenchmark test-compile exec:exec -Dbenchmark=CoPurchaseBenchmark
+ */
+@Fork(value = 1, jvmArgs = "-Xmx4g")
+public class CoPurchaseBenchmark {
+
+    private static final int SWEETS = 2_000;
+    private static final int TOP_K = 20;
+
+    @State(Scope.Benchmark)
+    public static class Ingest {
+        @Param({"10000000"})
+        public int baskets;
+
+        CoPurchaseIndex index;
+
+        @Setup(Level.Invocation)
+        public void setUp() {
+            index = new CoPurchaseIndex(TOP_K);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Loaded {
+        @Param({"10000000"})
+        public int baskets;
+
+        CoPurchaseIndex index;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            index = new CoPurchaseIndex(TOP_K);
+            ingest(index, baskets);
+            System.out.printf("%n%d sweets, %d pairs%n", index.sweetCount(), index.pairCount() / 2);
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 1)
+    @Measurement(iterations = 3)
+    public CoPurchaseIndex ingest(Ingest state) {
+        ingest(state.index, state.baskets);
+        return state.index;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    @Warmup(iterations = 3, time = 1)
+    @Measurement(iterations = 5, time = 1)
+    public List<CoPurchaseIndex.Recommendation> recommendations(Loaded state) {
+        return state.index.recommendations(skewedSweet(ThreadLocalRandom.current().nextDouble()), 5);
+    }
+
+    private static void ingest(CoPurchaseIndex index, int baskets) {
+        SplittableRandom random = new SplittableRandom(42);
+        long[] basket = new long[6];
+        for (int b = 0; b < baskets; b++) {
+            int size = 1 + random.nextInt(basket.length);
+            for (int i = 0; i < size; i++) {
+                basket[i] = skewedSweet(random.nextDouble());
+            }
+            index.addBasket(basket, size);
+        }
+    }
+
+    // Squaring a uniform draw puts about a third of all picks on the first 10% of ids
+    private static long skewedSweet(double uniform) {
+        return (long) (SWEETS * uniform * uniform);
+    }
+}
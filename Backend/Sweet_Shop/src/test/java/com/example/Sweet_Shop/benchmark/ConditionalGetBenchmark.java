@@ -0,0 +1,58 @@
+package com.example.Sweet_Shop.benchmark;
+
+import com.example.Sweet_Shop.model.Sweet;
+import com.example.Sweet_Shop.service.CatalogVersion;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Poll-heavy client: what a GET /api/sweets costs the server when nothing changed, with and
+ * without a matching If-None-Match. The full path is measured from the serialization step only
+ * (the DB query it also saves comes on top); payload sizes are printed at set up.
+ * Run with: mvn -Pbenchmark test-compile exec:exec -Dbenchmark=ConditionalGetBenchmark
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ConditionalGetBenchmark {
+
+    @Param({"50", "500"})
+    public int catalogSize;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final CatalogVersion catalogVersion = new CatalogVersion(event -> { });
+    private List<Sweet> catalog;
+    private String clientEtag;
+
+    @Setup
+    public void setUp() throws JsonProcessingException {
+        catalog = new ArrayList<>();
+        for (int i = 0; i < catalogSize; i++) {
+            Sweet sweet = new Sweet("Sweet " + i, i % 2 == 0 ? "Bengali" : "North Indian", 1.5 + i, 100);
+            sweet.setId((long) i);
+            catalog.add(sweet);
+        }
+        catalogVersion.bump(null);
+        clientEtag = catalogVersion.catalogEtag();
+        System.out.printf("%n[catalogSize=%d] body bytes per poll: full=%d, 304=0%n",
+                catalogSize, objectMapper.writeValueAsBytes(catalog).length);
+    }
+
+    @Benchmark
+    public byte[] fullResponse() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(catalog);
+    }
+
+    @Benchmark
+    public boolean notModified() {
+        return catalogVersion.catalogEtag().equals(clientEtag);
+    }
+}
@@ -0,0 +1,118 @@
+package com.example.Sweet_Shop.benchmark;
+
+import com.example.Sweet_Shop.model.PromotionRule;
+import com.example.Sweet_Shop.model.PromotionType;
+import com.example.Sweet_Shop.model.Sweet;
+import com.example.Sweet_Shop.repository.PromotionRuleRepository;
+import com.example.Sweet_Shop.service.CatalogVersion;
+import com.example.Sweet_Shop.service.PricingService;
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Price filtering for one search over the catalog: effective prices from the precomputed index
+ * against evaluating every promotion rule for every sweet per request, as searchSweets would
+ * have to without the index.
+ * Run with: mvn -Pbenchmark test-compile exec:exec -Dbenchmark=EffectivePriceBenchmark
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class EffectivePriceBenchmark {
+
+    private static final String[] CATEGORIES = {"Bengali", "North Indian", "South Indian", "Dry Fruit", "Sugar Free"};
+
+    @Param({"500"})
+    public int catalogSize;
+
+    @Param({"20", "200"})
+    public int ruleCount;
+
+    private List<Sweet> catalog;
+    private List<PromotionRule> rules;
+    private PricingService pricingService;
+    private final long minCents = 300;
+    private final long maxCents = 900;
+
+    @Setup
+    public void setUp() {
+        catalog = new ArrayList<>();
+        for (int i = 0; i < catalogSize; i++) {
+            Sweet sweet = new Sweet("Sweet " + i, CATEGORIES[i % CATEGORIES.length], 1.0 + (i % 100) / 10.0, 100);
+            sweet.setId((long) i);
+            catalog.add(sweet);
+        }
+        rules = new ArrayList<>();
+        Instant now = Instant.now();
+        for (int i = 0; i < ruleCount; i++) {
+            boolean perCategory = i % 4 == 0;
+            rules.add(new PromotionRule("rule " + i,
+                    perCategory ? null : (long) (i * 7 % catalogSize),
+                    perCategory ? CATEGORIES[i % CATEGORIES.length] : null,
+                    i % 2 == 0 ? PromotionType.PERCENT_OFF : PromotionType.AMOUNT_OFF,
+                    new BigDecimal(i % 2 == 0 ? "10" : "0.50"),
+                    now.minusSeconds(60), now.plusSeconds(3600)));
+        }
+        PromotionRuleRepository repository = Mockito.mock(PromotionRuleRepository.class);
+        Mockito.when(repository.findAll()).thenReturn(rules);
+        pricingService = new PricingService(repository, new CatalogVersion(event -> { }), new StaticListableBeanFactory().getBeanProvider(Clock.class));
+        pricingService.reload();
+    }
+
+    @TearDown
+    public void tearDown() {
+        pricingService.shutdown();
+    }
+
+    @Benchmark
+    public int indexedFilter() {
+        int matches = 0;
+        for (Sweet sweet : catalog) {
+            long cents = pricingService.effectiveCents(sweet);
+            if (cents >= minCents && cents <= maxCents) {
+                matches++;
+            }
+        }
+        return matches;
+    }
+
+    @Benchmark
+    public int perRequestRuleEvaluation() {
+        Instant now = Instant.now();
+        int matches = 0;
+        for (Sweet sweet : catalog) {
+            BigDecimal base = BigDecimal.valueOf(sweet.getPrice());
+            BigDecimal best = base;
+            for (PromotionRule rule : rules) {
+                boolean applies = rule.isActiveAt(now) && (sweet.getId().equals(rule.getSweetId())
+                        || sweet.getCategory().equals(rule.getCategory()));
+                if (!applies) {
+                    continue;
+                }
+                BigDecimal price = switch (rule.getType()) {
+                    case PERCENT_OFF -> base.multiply(BigDecimal.valueOf(100).subtract(rule.getAmount()))
+                            .divide(BigDecimal.valueOf(100));
+                    case AMOUNT_OFF -> base.subtract(rule.getAmount());
+                    case FIXED_PRICE -> rule.getAmount();
+                };
+                best = best.min(price);
+            }
+            long cents = best.movePointRight(2).longValue();
+            if (cents >= minCents && cents <= maxCents) {
+                matches++;
+            }
+        }
+        return matches;
+    }
+}
@@ -0,0 +1,101 @@
+package com.example.Sweet_Shop.benchmark;
+
+import com.example.Sweet_Shop.SweetShopApplication;
+import com.example.Sweet_Shop.model.Sweet;
+import com.example.Sweet_Shop.model.User;
+import com.example.Sweet_Shop.repository.SweetRepository;
+import com.example.Sweet_Shop.repository.UserRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Entity loads as the request paths issue them (sweet by id, user lookup for login), with the
+ * second-level/query cache on and off. Needs the same DB_* environment as the application; the
+ * database round trips per operation for each run are printed at tear down.
+ * Run with: mvn -Pbenchmark test-compile exec:exec -Dbenchmark=EntityLoadBenchmark
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(8)
+@State(Scope.Benchmark)
+public class EntityLoadBenchmark {
+
+    private static final int SWEETS = 200;
+
+    @Param({"true", "false"})
+    public boolean cache;
+
+    private ConfigurableApplicationContext context;
+    private SweetRepository sweetRepository;
+    private UserRepository userRepository;
+    private Statistics statistics;
+    private long[] sweetIds;
+    private Long userId;
+    private long statementsAtStart;
+    private final AtomicLong operations = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(SweetShopApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(
+                        "spring.jpa.show-sql=false",
+                        "spring.jpa.properties.hibernate.cache.use_second_level_cache=" + cache,
+                        "spring.jpa.properties.hibernate.cache.use_query_cache=" + cache)
+                .run();
+        sweetRepository = context.getBean(SweetRepository.class);
+        userRepository = context.getBean(UserRepository.class);
+        statistics = context.getBean(EntityManagerFactory.class).unwrap(SessionFactory.class).getStatistics();
+
+        sweetIds = new long[SWEETS];
+        for (int i = 0; i < SWEETS; i++) {
+            sweetIds[i] = sweetRepository.save(new Sweet("Bench sweet " + i, "Bench", 1.0 + i, 1000)).getId();
+        }
+        userId = userRepository.save(new User("bench-user", "x", "bench@example.com", "ROLE_USER")).getId();
+    }
+
+    @Setup(Level.Iteration)
+    public void resetCounters() {
+        statementsAtStart = statistics.getPrepareStatementCount();
+        operations.set(0);
+    }
+
+    @TearDown(Level.Iteration)
+    public void report() {
+        System.out.printf("%n[cache=%s] DB round trips per operation: %.3f%n", cache,
+                (double) (statistics.getPrepareStatementCount() - statementsAtStart) / Math.max(1, operations.get()));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        for (long id : sweetIds) {
+            sweetRepository.deleteById(id);
+        }
+        userRepository.deleteById(userId);
+        context.close();
+    }
+
+    @Benchmark
+    public Sweet loadSweetById() {
+        operations.incrementAndGet();
+        return sweetRepository.findById(sweetIds[ThreadLocalRandom.current().nextInt(SWEETS)]).orElseThrow();
+    }
+
+    @Benchmark
+    public User loginLookup() {
+        operations.incrementAndGet();
+        return userRepository.findByUsernameOrEmail("bench-user", "bench-user").orElseThrow();
+    }
+}
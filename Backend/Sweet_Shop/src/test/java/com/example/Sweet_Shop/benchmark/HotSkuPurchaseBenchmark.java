@@ -0,0 +1,67 @@
+package com.example.Sweet_Shop.benchmark;
+
+import com.example.Sweet_Shop.SweetShopApplication;
+import com.example.Sweet_Shop.model.Sweet;
+import com.example.Sweet_Shop.repository.SweetRepository;
+import com.example.Sweet_Shop.service.PurchaseQueue;
+import com.example.Sweet_Shop.service.SweetService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Everyone buys the same sweet: purchases per second through the per-request transaction
+ * (purchaseSweet) against the group-commit queue, with 64 concurrent buyers. Needs the same
+ * DB_* environment as the application; batch statistics for the queued run are printed at tear down.
+ * Run with: mvn -Pbenchmark test-compile exec:exec -Dbenchmark=HotSkuPurchaseBenchmark
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 3)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+@Threads(64)
+@State(Scope.Benchmark)
+public class HotSkuPurchaseBenchmark {
+
+    @Param({"direct", "queued"})
+    public String mode;
+
+    private ConfigurableApplicationContext context;
+    private SweetService sweetService;
+    private PurchaseQueue purchaseQueue;
+    private SweetRepository sweetRepository;
+    private Long sweetId;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(SweetShopApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(
+                        "spring.jpa.show-sql=false",
+                        "purchase.mode=queued",
+                        // Enough connections that the direct path is limited by the row lock, not the pool
+                        "spring.datasource.hikari.maximum-pool-size=64")
+                .run();
+        sweetService = context.getBean(SweetService.class);
+        purchaseQueue = context.getBean(PurchaseQueue.class);
+        sweetRepository = context.getBean(SweetRepository.class);
+        // Never runs out during a trial, so every operation is a successful purchase
+        sweetId = sweetRepository.save(new Sweet("Hot sweet", "Promotion", 1.0, Integer.MAX_VALUE / 2)).getId();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        System.out.printf("%n[mode=%s] purchase queue: %s%n", mode, purchaseQueue.getStats());
+        sweetRepository.deleteById(sweetId);
+        context.close();
+    }
+
+    @Benchmark
+    public Sweet purchase() {
+        return mode.equals("queued") ? purchaseQueue.purchase(sweetId) : sweetService.purchaseSweet(sweetId);
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.Sweet_Shop.benchmark;
+
+import com.example.Sweet_Shop.utilis.StoreStockIndex;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the in-memory availability index as stores are added: nearest store with stock for a
+ * random customer location, and a stock update, with 10 to 10,000 stores (half of them stocked).
+ * Run with: mvn -Pbenchmark test-compile exec:exec -Dbenchmark=NearestStoreBenchmark
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class NearestStoreBenchmark {
+
+    private static final long SWEET = 1;
+
+    @Param({"10", "100", "1000", "10000"})
+    public int stores;
+
+    private StoreStockIndex index;
+    private double[] lats;
+    private double[] lons;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        index = new StoreStockIndex();
+        for (int store = 0; store < stores; store++) {
+            // Spread over India, roughly
+            index.putStore(store, 8 + random.nextDouble() * 27, 68 + random.nextDouble() * 29);
+            index.set(SWEET, store, store % 2 == 0 ? 20 : 0);
+        }
+        lats = new double[1024];
+        lons = new double[1024];
+        for (int i = 0; i < lats.length; i++) {
+            lats[i] = 8 + random.nextDouble() * 27;
+            lons[i] = 68 + random.nextDouble() * 29;
+        }
+    }
+
+    @Benchmark
+    public StoreStockIndex.Nearest nearestWithStock() {
+        int i = next++ & 1023;
+        return index.nearest(SWEET, lats[i], lons[i], 1);
+    }
+
+    @Benchmark
+    public void applyDelta() {
+        int store = next++ % stores;
+        index.add(SWEET, store, (store & 1) == 0 ? 1 : -1);
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.Sweet_Shop.benchmark;
+
+import com.example.Sweet_Shop.config.RateLimitProperties;
+import com.example.Sweet_Shop.service.RateLimiter;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-request cost of the rate limiter.
+ * Run with: mvn -Pbenchmark test-compile exec:exec -Dbenchmark=RateLimiterBenchmark
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RateLimiterBenchmark {
+
+    private RateLimiter rateLimiter;
+    private String[] clients;
+
+    @Setup
+    public void setUp() {
+        RateLimitProperties properties = new RateLimitProperties();
+        properties.setMaxBuckets(100_000);
+        // Limits high enough that the benchmark measures the bookkeeping, not rejections
+        properties.setLimits(Map.of("user", Map.of(
+                "default", new RateLimitProperties.Limit(1_000_000_000L, 1_000_000_000d),
+                "purchase", new RateLimitProperties.Limit(1_000_000_000L, 1_000_000_000d))));
+        rateLimiter = new RateLimiter(properties);
+        clients = new String[50_000];
+        for (int i = 0; i < clients.length; i++) {
+            clients[i] = "u:user" + i;
+        }
+    }
+
+    /** One client hammering one route: every thread CASes the same bucket. */
+    @Benchmark
+    @Threads(8)
+    public long hotClient() {
+        return rateLimiter.tryAcquire("u:hot", "user", "purchase");
+    }
+
+    /** Many distinct clients: measures the map lookup plus an uncontended CAS. */
+    @Benchmark
+    @Threads(8)
+    public long manyClients() {
+        String client = clients[ThreadLocalRandom.current().nextInt(clients.length)];
+        return rateLimiter.tryAcquire(client, "user", "default");
+    }
+
+    /** Baseline for roles without a configured limit. */
+    @Benchmark
+    public long unlimitedRole() {
+        return rateLimiter.tryAcquire("u:admin", "admin", "default");
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.Sweet_Shop.benchmark;
+
+import com.example.Sweet_Shop.utilis.RevocationFilter;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.*;
+
+import java.security.Key;
+import java.util.Date;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-request cost of the revocation check in JwtRequestFilter, for tokens that were not revoked
+ * (the common case): the bucketed Bloom filter against an exact in-memory set of every revoked
+ * id, with the JWT parse the filter already does on every request for scale. The memory each
+ * structure needs for the revoked ids is printed at setup.
+ * Run with: mvn -Pbenchmark test-compile exec:exec -Dbenchmark=RevocationCheckBenchmark
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RevocationCheckBenchmark {
+
+    private static final long HOUR = TimeUnit.HOURS.toMillis(1);
+    private static final long WEEK = TimeUnit.DAYS.toMillis(7);
+    private static final int TOKENS = 4096;
+
+    @Param({"10000", "200000"})
+    public int revokedCount;
+
+    private RevocationFilter filter;
+    private Map<String, Long> exactSet;
+    private String[] tokenIds;
+    private long[] expiries;
+    private JwtParser parser;
+    private String signedToken;
+
+    @Setup
+    public void setUp() {
+        long now = System.currentTimeMillis();
+        filter = new RevocationFilter(HOUR, WEEK, 10_000, 0.001);
+        exactSet = new ConcurrentHashMap<>();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < revokedCount; i++) {
+            String id = UUID.randomUUID().toString();
+            long expiresAt = now + random.nextLong(WEEK);
+            filter.add(id, expiresAt);
+            exactSet.put(id, expiresAt);
+        }
+        // Live access tokens all expire within the next 15 minutes
+        tokenIds = new String[TOKENS];
+        expiries = new long[TOKENS];
+        for (int i = 0; i < TOKENS; i++) {
+            tokenIds[i] = UUID.randomUUID().toString();
+            expiries[i] = now + random.nextLong(TimeUnit.MINUTES.toMillis(15));
+        }
+
+        Key key = Keys.secretKeyFor(SignatureAlgorithm.HS256);
+        parser = Jwts.parserBuilder().setSigningKey(key).build();
+        signedToken = Jwts.builder()
+                .setId(tokenIds[0])
+                .setSubject("bench-user")
+                .claim("role", "ROLE_USER")
+                .claim("typ", "access")
+                .setExpiration(new Date(now + TimeUnit.MINUTES.toMillis(15)))
+                .signWith(key, SignatureAlgorithm.HS256)
+                .compact();
+
+        // A String of 36 chars is ~80 bytes with its array, a map node ~32, a boxed Long 16, plus the table slot
+        System.out.printf("%n%d revoked ids: Bloom buckets %d KB, exact set ~%d KB%n", revokedCount,
+                filter.bucketCount() * filter.bytesPerBucket() / 1024, (long) revokedCount * 136 / 1024);
+    }
+
+    @Benchmark
+    public boolean bloomFilter() {
+        int i = ThreadLocalRandom.current().nextInt(TOKENS);
+        return filter.mightContain(tokenIds[i], expiries[i]);
+    }
+
+    @Benchmark
+    public boolean exactSet() {
+        int i = ThreadLocalRandom.current().nextInt(TOKENS);
+        return exactSet.containsKey(tokenIds[i]);
+    }
+
+    @Benchmark
+    public Claims jwtParse() {
+        return parser.parseClaimsJws(signedToken).getBody();
+    }
+}
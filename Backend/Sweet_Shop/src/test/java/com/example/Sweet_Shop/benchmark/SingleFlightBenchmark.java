@@ -0,0 +1,70 @@
+package com.example.Sweet_Shop.benchmark;
+
+import com.example.Sweet_Shop.utilis.SingleFlight;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Thundering herd on one search: 64 threads ask for the same category at once and the
+ * "database" takes ~2 ms per query. Sample mode reports the latency percentiles (p99) for
+ * coalesced and direct execution; the DB query count for each run is printed at tear down.
+ * Run with: mvn -Pbenchmark test-compile exec:exec -Dbenchmark=SingleFlightBenchmark
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 3)
+@Fork(1)
+@Threads(64)
+@State(Scope.Benchmark)
+public class SingleFlightBenchmark {
+
+    private static final long QUERY_NANOS = TimeUnit.MILLISECONDS.toNanos(2);
+
+    @Param({"true", "false"})
+    public boolean coalesce;
+
+    private SingleFlight<String, List<String>> singleFlight;
+    private final AtomicLong dbQueries = new AtomicLong();
+    private final AtomicLong requests = new AtomicLong();
+    private final Semaphore connections = new Semaphore(8, true);
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        singleFlight = new SingleFlight<>();
+        dbQueries.set(0);
+        requests.set(0);
+    }
+
+    @TearDown(Level.Trial)
+    public void report() {
+        System.out.printf("%n[coalesce=%s] requests=%d dbQueries=%d (%.1f requests per query)%n",
+                coalesce, requests.get(), dbQueries.get(), (double) requests.get() / Math.max(1, dbQueries.get()));
+    }
+
+    private List<String> query() {
+        dbQueries.incrementAndGet();
+        // Queries queue for one of a few pooled connections, like HikariCP in front of Postgres
+        connections.acquireUninterruptibly();
+        try {
+            LockSupport.parkNanos(QUERY_NANOS);
+        } finally {
+            connections.release();
+        }
+        return List.of("Rasgulla", "Sandesh");
+    }
+
+    @Benchmark
+    public List<String> searchByCategory() {
+        requests.incrementAndGet();
+        if (coalesce) {
+            return singleFlight.execute("category=Bengali", this::query);
+        }
+        return query();
+    }
+}
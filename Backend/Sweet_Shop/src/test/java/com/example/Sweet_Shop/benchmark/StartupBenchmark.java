@@ -0,0 +1,97 @@
+package com.example.Sweet_Shop.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time from launching a new instance to it answering its first HTTP request, which is what
+ * decides how fast the service can scale out. Each invocation starts the application in a fresh
+ * JVM and polls GET /api/sweets until any response comes back (401 counts: the request was
+ * served). Modes:
+ *   baseline   - plain java -jar with Hibernate diffing the schema (ddl-auto=update, no Flyway)
+ *   migrations - plain java -jar with the Flyway migrations and ddl-auto=validate
+ *   fast-start - migrations plus the AOT-generated beans and the CDS archive
+ * Needs mvn -Pfast-start package first (it reads target/fast-start) and the same DB_*
+ * environment as the application.
+ * Run with: mvn -Pbenchmark test-compile exec:exec -Dbenchmark=StartupBenchmark
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class StartupBenchmark {
+
+    private static final File APP_DIRECTORY = new File("target/fast-start");
+    private static final String JAR = "Sweet_Shop-0.0.1-SNAPSHOT.jar";
+    private static final int PORT = 18081;
+    private static final Duration TIMEOUT = Duration.ofSeconds(120);
+
+    @Param({"baseline", "migrations", "fast-start"})
+    public String mode;
+
+    private final HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofMillis(200)).build();
+    private Process process;
+
+    @Setup(Level.Trial)
+    public void checkBuild() {
+        if (!new File(APP_DIRECTORY, JAR).exists() || !new File(APP_DIRECTORY, "application.jsa").exists()) {
+            throw new IllegalStateException("Build the fast-start profile first: mvn -Pfast-start package -DskipTests");
+        }
+    }
+
+    @TearDown(Level.Invocation)
+    public void stop() throws InterruptedException {
+        if (process != null) {
+            process.destroy();
+            if (!process.waitFor(10, TimeUnit.SECONDS)) {
+                process.destroyForcibly().waitFor();
+            }
+            process = null;
+        }
+    }
+
+    @Benchmark
+    public int timeToFirstRequest() throws Exception {
+        List<String> command = new ArrayList<>(List.of("java"));
+        if (mode.equals("fast-start")) {
+            command.add("-XX:SharedArchiveFile=application.jsa");
+            command.add("-Dspring.aot.enabled=true");
+        }
+        command.addAll(List.of("-jar", JAR, "--server.port=" + PORT, "--spring.jpa.show-sql=false"));
+        if (mode.equals("baseline")) {
+            command.add("--spring.jpa.hibernate.ddl-auto=update");
+            command.add("--spring.flyway.enabled=false");
+        }
+        process = new ProcessBuilder(command)
+                .directory(APP_DIRECTORY)
+                .redirectErrorStream(true)
+                .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                .start();
+
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + PORT + "/api/sweets")).build();
+        long deadline = System.nanoTime() + TIMEOUT.toNanos();
+        while (System.nanoTime() < deadline) {
+            if (!process.isAlive()) {
+                throw new IllegalStateException("The application exited with code " + process.exitValue());
+            }
+            try {
+                return client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+            } catch (IOException notListeningYet) {
+                Thread.sleep(10);
+            }
+        }
+        throw new IllegalStateException("No response within " + TIMEOUT);
+    }
+}
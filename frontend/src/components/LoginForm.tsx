@@ -29,10 +29,10 @@ export const LoginForm: React.FC<LoginFormProps> = ({ onToggleMode, isRegister }
         await apiService.register(formData.username, formData.email, formData.password);
         // After successful registration, log them in
         const loginData = await apiService.login(formData.username, formData.password);
-        login(loginData.token);
+        login(loginData.token, loginData.refreshToken);
       } else {
         const data = await apiService.login(formData.username, formData.password);
-        login(data.token);
+        login(data.token, data.refreshToken);
       }
     } catch (err) {
       setError(err instanceof Error ? err.message : 'An error occurred');
@@ -1,5 +1,6 @@
 import { useState, useEffect, createContext, useContext } from 'react';
 import { jwtDecode } from 'jwt-decode';
+import { apiService } from '../services/api';
 
 interface User {
   id: string;
@@ -12,7 +13,7 @@ interface AuthContextType {
   user: User | null;
   loading: boolean;
   isAdmin: boolean;
-  login: (token: string, user: User) => void;
+  login: (token: string, refreshToken?: string, user?: User) => void;
   logout: () => void;
 }
 
@@ -45,6 +46,7 @@ export const useAuthState = () => {
   const [loading, setLoading] = useState(true);
 
   useEffect(() => {
+    // An expired access token is fine here: the api service swaps it using the refresh token
     const token = localStorage.getItem('token');
 
     if (token) {
@@ -54,18 +56,23 @@ export const useAuthState = () => {
           setUser(decodedUser);
         } else {
           localStorage.removeItem('token');
+          localStorage.removeItem('refreshToken');
         }
       } catch (error) {
         localStorage.removeItem('token');
+        localStorage.removeItem('refreshToken');
       }
     }
 
     setLoading(false);
   }, []);
 
-  const login = (token: string, userData?: User) => {
+  const login = (token: string, refreshToken?: string, userData?: User) => {
     localStorage.setItem('token', token);
-    
+    if (refreshToken) {
+      localStorage.setItem('refreshToken', refreshToken);
+    }
+
     if (userData) {
       setUser(userData);
     } else {
@@ -75,7 +82,9 @@ export const useAuthState = () => {
   };
 
   const logout = () => {
+    apiService.logout();
     localStorage.removeItem('token');
+    localStorage.removeItem('refreshToken');
     setUser(null);
   };
 
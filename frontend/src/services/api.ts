@@ -1,18 +1,75 @@
 const API_BASE_URL = 'https://sweet-shop-iyxw.onrender.com/api';
 
+interface AuthTokens {
+  token: string;
+  refreshToken: string;
+}
+
+const READ_YOUR_WRITES_HEADER = 'X-Read-Your-Writes-Until';
+
 class ApiService {
+  // Shared by every request that gets a 401 while a refresh is already under way
+  private refreshing: Promise<boolean> | null = null;
+  // Handed out after a write and sent back until it passes, so whichever server answers next
+  // reads from the primary database and shows the change
+  private readYourWritesUntil: string | null = null;
+
   private getAuthHeaders(): HeadersInit {
     const token = localStorage.getItem('token');
+    const pinned = this.readYourWritesUntil !== null && Number(this.readYourWritesUntil) > Date.now();
     return {
       'Content-Type': 'application/json',
       ...(token && { Authorization: `Bearer ${token}` }),
+      ...(pinned && { [READ_YOUR_WRITES_HEADER]: this.readYourWritesUntil as string }),
     };
   }
 
+  // Access tokens are short-lived: on a 401, swap the refresh token for a new pair and retry once
+  private async authFetch(url: string, init: RequestInit = {}): Promise<Response> {
+    const send = async () => {
+      const response = await fetch(url, { ...init, headers: { ...this.getAuthHeaders(), ...init.headers } });
+      this.readYourWritesUntil = response.headers.get(READ_YOUR_WRITES_HEADER) ?? this.readYourWritesUntil;
+      return response;
+    };
+    const response = await send();
+    if (response.status !== 401 || !localStorage.getItem('refreshToken')) {
+      return response;
+    }
+    return (await this.refreshTokens()) ? send() : response;
+  }
+
+  private refreshTokens(): Promise<boolean> {
+    if (!this.refreshing) {
+      this.refreshing = (async () => {
+        try {
+          const response = await fetch(`${API_BASE_URL}/auth/refresh`, {
+            method: 'POST',
+            headers: { 'Content-Type': 'application/json' },
+            body: JSON.stringify({ refreshToken: localStorage.getItem('refreshToken') }),
+          });
+          if (!response.ok) {
+            return false;
+          }
+          const tokens: AuthTokens = await response.json();
+          localStorage.setItem('token', tokens.token);
+          // The old refresh token is used up now
+          localStorage.setItem('refreshToken', tokens.refreshToken);
+          return true;
+        } catch {
+          return false;
+        } finally {
+          this.refreshing = null;
+        }
+      })();
+    }
+    return this.refreshing;
+  }
+
    private async handleResponse<T>(response: Response): Promise<T | null> {
          if (!response.ok) {
            if (response.status === 401) {
              localStorage.removeItem('token');
+             localStorage.removeItem('refreshToken');
              localStorage.removeItem('user');
              window.location.href = '/login';
            }
@@ -42,10 +99,20 @@ class ApiService {
       body: JSON.stringify({ username, password }),
     });
 
-    const data = await this.handleResponse<{ token: string }>(response);
+    const data = await this.handleResponse<AuthTokens>(response);
     return data;
   }
 
+  // Revokes both tokens on the server; the caller clears them locally either way
+  async logout() {
+    const refreshToken = localStorage.getItem('refreshToken');
+    await fetch(`${API_BASE_URL}/auth/logout`, {
+      method: 'POST',
+      headers: this.getAuthHeaders(),
+      body: JSON.stringify({ refreshToken }),
+    }).catch(() => undefined);
+  }
+
   async register(username: string, email: string, password: string) {
     const response = await fetch(`${API_BASE_URL}/auth/register`, {
       method: 'POST',
@@ -58,9 +125,7 @@ class ApiService {
 
   // Sweets endpoints
   async getSweets() {
-    const response = await fetch(`${API_BASE_URL}/sweets`, {
-      headers: this.getAuthHeaders(),
-    });
+    const response = await this.authFetch(`${API_BASE_URL}/sweets`);
 
     return this.handleResponse<any[]>(response);
   }
@@ -73,17 +138,14 @@ class ApiService {
       }
     });
 
-    const response = await fetch(`${API_BASE_URL}/sweets/search?${params}`, {
-      headers: this.getAuthHeaders(),
-    });
+    const response = await this.authFetch(`${API_BASE_URL}/sweets/search?${params}`);
 
     return this.handleResponse<any[]>(response);
   }
 
   async createSweet(sweet: Omit<any, 'id'>) {
-    const response = await fetch(`${API_BASE_URL}/sweets`, {
+    const response = await this.authFetch(`${API_BASE_URL}/sweets`, {
       method: 'POST',
-      headers: this.getAuthHeaders(),
       body: JSON.stringify(sweet),
     });
 
@@ -91,9 +153,8 @@ class ApiService {
   }
 
   async updateSweet(id: string, sweet: Partial<any>) {
-    const response = await fetch(`${API_BASE_URL}/sweets/${id}`, {
+    const response = await this.authFetch(`${API_BASE_URL}/sweets/${id}`, {
       method: 'PUT',
-      headers: this.getAuthHeaders(),
       body: JSON.stringify(sweet),
     });
 
@@ -101,9 +162,8 @@ class ApiService {
   }
 
   async deleteSweet(id: string) {
-    const response = await fetch(`${API_BASE_URL}/sweets/${id}`, {
+    const response = await this.authFetch(`${API_BASE_URL}/sweets/${id}`, {
       method: 'DELETE',
-      headers: this.getAuthHeaders(),
     });
 
     return this.handleResponse(response);
@@ -111,18 +171,16 @@ class ApiService {
 
   // Inventory endpoints
   async purchaseSweet(id: string) {
-    const response = await fetch(`${API_BASE_URL}/sweets/${id}/purchase`, {
+    const response = await this.authFetch(`${API_BASE_URL}/sweets/${id}/purchase`, {
       method: 'POST',
-      headers: this.getAuthHeaders(),
     });
 
     return this.handleResponse(response);
   }
 
   async restockSweet(id: string, quantity: number) {
-    const response = await fetch(`${API_BASE_URL}/sweets/${id}/restock`, {
+    const response = await this.authFetch(`${API_BASE_URL}/sweets/${id}/restock`, {
       method: 'POST',
-      headers: {...this.getAuthHeaders(),'Content-Type': 'application/json', },
       body: JSON.stringify({ quantity }),
     });
 